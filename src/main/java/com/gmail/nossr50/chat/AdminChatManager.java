@@ -11,11 +11,11 @@ public class AdminChatManager extends ChatManager {
 
     @Override
     public void handleChat(String senderName, String displayName, String message, boolean isAsync) {
-        handleChat(new McMMOAdminChatEvent(plugin, senderName, displayName, message, isAsync));
+        handleChat(new McMMOAdminChatEvent(plugin, senderName, displayName, message, isAsync), null);
     }
 
     @Override
-    protected void sendMessage() {
-        plugin.getServer().broadcast(message, "mcmmo.chat.adminchat");
+    protected void sendMessage(ChatEnvelope envelope) {
+        plugin.getServer().broadcast(envelope.getMessage(), "mcmmo.chat.adminchat");
     }
 }
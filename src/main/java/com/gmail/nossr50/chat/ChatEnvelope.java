@@ -0,0 +1,43 @@
+package com.gmail.nossr50.chat;
+
+import com.gmail.nossr50.datatypes.party.Party;
+
+/**
+ * A single chat message on its way through a {@link ChatManager}.
+ * Immutable, so concurrent chat threads never see each other's messages.
+ */
+public final class ChatEnvelope {
+    private final String senderName;
+    private final String displayName;
+    private final String message;
+    private final Party party;
+
+    public ChatEnvelope(String senderName, String displayName, String message, Party party) {
+        this.senderName = senderName;
+        this.displayName = displayName;
+        this.message = message;
+        this.party = party;
+    }
+
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * @return the message, already formatted with the chat prefix
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    /**
+     * @return the party the message is sent to, null for admin chat
+     */
+    public Party getParty() {
+        return party;
+    }
+}
@@ -2,9 +2,7 @@ package com.gmail.nossr50.chat;
 
 import com.gmail.nossr50.datatypes.party.Party;
 import com.gmail.nossr50.events.chat.McMMOChatEvent;
-import com.gmail.nossr50.events.chat.McMMOPartyChatEvent;
 import com.gmail.nossr50.locale.LocaleLoader;
-import com.gmail.nossr50.util.player.UserManager;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
@@ -13,57 +11,39 @@ public abstract class ChatManager {
     protected boolean useDisplayNames;
     protected String chatPrefix;
 
-    protected String senderName;
-    protected String displayName;
-    protected String message;
-
     protected ChatManager(Plugin plugin, boolean useDisplayNames, String chatPrefix) {
         this.plugin = plugin;
         this.useDisplayNames = useDisplayNames;
         this.chatPrefix = chatPrefix;
     }
 
-    protected void handleChat(McMMOChatEvent event) {
+    /**
+     * Fire the chat event and deliver the message. May be called from several async chat threads at once,
+     * so all per-message state lives in the {@link ChatEnvelope}.
+     *
+     * @param event The chat event to fire
+     * @param party The party the message is sent to, null for admin chat
+     */
+    protected void handleChat(McMMOChatEvent event, Party party) {
         plugin.getServer().getPluginManager().callEvent(event);
 
         if (event.isCancelled()) {
             return;
         }
 
-        senderName = event.getSender();
-        displayName = useDisplayNames ? event.getDisplayName() : senderName;
-        message = LocaleLoader.formatString(chatPrefix, displayName) + " " + event.getMessage();
+        String senderName = event.getSender();
+        String displayName = useDisplayNames ? event.getDisplayName() : senderName;
+        String message = LocaleLoader.formatString(chatPrefix, displayName) + " " + event.getMessage();
+        ChatEnvelope envelope = new ChatEnvelope(senderName, displayName, message, party);
 
-        sendMessage();
+        sendMessage(envelope);
 
         /*
          * Party Chat Spying
          * Party messages will be copied to people with the mcmmo.admin.chatspy permission node
          */
-        if(event instanceof McMMOPartyChatEvent)
-        {
-            //We need to grab the party chat name
-            McMMOPartyChatEvent partyChatEvent = (McMMOPartyChatEvent) event;
-
-            //Find the people with permissions
-            for(Player player : event.getPlugin().getServer().getOnlinePlayers())
-            {
-                //Check for toggled players
-                if(UserManager.getPlayer(player).isPartyChatSpying())
-                {
-                    Party adminParty = UserManager.getPlayer(player).getParty();
-
-                    //Only message admins not part of this party
-                    if(adminParty != null)
-                    {
-                        //TODO: Incorporate JSON
-                        if(!adminParty.getName().equalsIgnoreCase(partyChatEvent.getParty()))
-                            player.sendMessage(LocaleLoader.getString("Commands.AdminChatSpy.Chat", partyChatEvent.getParty(), message));
-                    } else {
-                        player.sendMessage(LocaleLoader.getString("Commands.AdminChatSpy.Chat", partyChatEvent.getParty(), message));
-                    }
-                }
-            }
+        if (party != null) {
+            ChatSpyManager.deliver(envelope);
         }
     }
 
@@ -81,5 +61,5 @@ public abstract class ChatManager {
 
     public abstract void handleChat(String senderName, String displayName, String message, boolean isAsync);
 
-    protected abstract void sendMessage();
+    protected abstract void sendMessage(ChatEnvelope envelope);
 }
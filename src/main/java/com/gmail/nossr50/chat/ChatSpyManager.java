@@ -0,0 +1,60 @@
+package com.gmail.nossr50.chat;
+
+import com.gmail.nossr50.datatypes.party.Party;
+import com.gmail.nossr50.datatypes.player.McMMOPlayer;
+import com.gmail.nossr50.locale.LocaleLoader;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps track of the players spying on party chat, so delivering a party message
+ * doesn't have to look at every online player.
+ */
+public final class ChatSpyManager {
+    private static final Set<McMMOPlayer> spies = ConcurrentHashMap.newKeySet();
+
+    private ChatSpyManager() {}
+
+    /**
+     * Add or remove a player from the spies according to their current chat spy toggle.
+     *
+     * @param mcMMOPlayer The player to update
+     */
+    public static void update(McMMOPlayer mcMMOPlayer) {
+        if (mcMMOPlayer.isPartyChatSpying()) {
+            spies.add(mcMMOPlayer);
+        }
+        else {
+            spies.remove(mcMMOPlayer);
+        }
+    }
+
+    public static void remove(McMMOPlayer mcMMOPlayer) {
+        spies.remove(mcMMOPlayer);
+    }
+
+    /**
+     * Copy a party message to every spy who is not in that party.
+     * Safe to call from async chat threads.
+     *
+     * @param envelope The party message
+     */
+    static void deliver(ChatEnvelope envelope) {
+        if (spies.isEmpty()) {
+            return;
+        }
+
+        String partyName = envelope.getParty().getName();
+        String spyMessage = LocaleLoader.getString("Commands.AdminChatSpy.Chat", partyName, envelope.getMessage());
+
+        for (McMMOPlayer spy : spies) {
+            Party spyParty = spy.getParty();
+
+            //TODO: Incorporate JSON
+            if (spyParty == null || !spyParty.getName().equalsIgnoreCase(partyName)) {
+                spy.getPlayer().sendMessage(spyMessage);
+            }
+        }
+    }
+}
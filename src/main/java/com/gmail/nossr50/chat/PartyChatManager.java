@@ -3,27 +3,71 @@ package com.gmail.nossr50.chat;
 import com.gmail.nossr50.config.Config;
 import com.gmail.nossr50.datatypes.party.Party;
 import com.gmail.nossr50.events.chat.McMMOPartyChatEvent;
-import com.gmail.nossr50.runnables.party.PartyChatTask;
+import com.gmail.nossr50.locale.LocaleLoader;
+import org.bukkit.ChatColor;
+import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
 
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 public class PartyChatManager extends ChatManager {
-    private Party party;
+    // Chat arrives on several threads at once, each one gets its own target party
+    private final ThreadLocal<Party> party = new ThreadLocal<Party>();
 
     protected PartyChatManager(Plugin plugin) {
         super(plugin, Config.getInstance().getPartyDisplayNames(), Config.getInstance().getPartyChatPrefix());
     }
 
+    /**
+     * Set the party for the next message handled on the current thread.
+     *
+     * @param party The party to send to
+     */
     public void setParty(Party party) {
-        this.party = party;
+        this.party.set(party);
+    }
+
+    public void handleChat(Party party, String senderName, String displayName, String message, boolean isAsync) {
+        handleChat(new McMMOPartyChatEvent(plugin, senderName, displayName, party.getName(), message, isAsync), party);
     }
 
     @Override
     public void handleChat(String senderName, String displayName, String message, boolean isAsync) {
-        handleChat(new McMMOPartyChatEvent(plugin, senderName, displayName, party.getName(), message, isAsync));
+        Party targetParty = party.get();
+        party.remove();
+
+        handleChat(targetParty, senderName, displayName, message, isAsync);
     }
 
+    /**
+     * Deliver the message to the party and its ally in one pass, straight from the chat thread.
+     * Online member lists are copy-on-write, so this is safe off the main thread.
+     */
     @Override
-    protected void sendMessage() {
-        new PartyChatTask(plugin, party, senderName, displayName, message).runTask(plugin);
+    protected void sendMessage(ChatEnvelope envelope) {
+        Party party = envelope.getParty();
+        String message = envelope.getMessage();
+        String displayName = envelope.getDisplayName();
+
+        if (Config.getInstance().getPartyChatColorLeaderName() && envelope.getSenderName().equalsIgnoreCase(party.getLeader().getPlayerName())) {
+            message = message.replaceFirst(Pattern.quote(displayName), ChatColor.GOLD + Matcher.quoteReplacement(displayName) + ChatColor.RESET);
+        }
+
+        for (Player member : party.getOnlineMembers()) {
+            member.sendMessage(message);
+        }
+
+        Party ally = party.getAlly();
+
+        if (ally != null) {
+            String allyMessage = LocaleLoader.formatString(Config.getInstance().getPartyChatPrefixAlly()) + message;
+
+            for (Player member : ally.getOnlineMembers()) {
+                member.sendMessage(allyMessage);
+            }
+        }
+
+        plugin.getServer().getConsoleSender().sendMessage(ChatColor.stripColor("[mcMMO] [P]<" + party.getName() + ">" + message));
     }
 }
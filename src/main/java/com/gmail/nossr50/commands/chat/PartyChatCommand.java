@@ -52,7 +52,6 @@ public class PartyChatCommand extends ChatCommand {
             message = buildChatMessage(args, 1);
         }
 
-        ((PartyChatManager) chatManager).setParty(party);
-        chatManager.handleChat(sender.getName(), getDisplayName(sender), message);
+        ((PartyChatManager) chatManager).handleChat(party, sender.getName(), getDisplayName(sender), message, false);
     }
 }
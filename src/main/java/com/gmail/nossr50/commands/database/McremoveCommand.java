@@ -3,6 +3,7 @@ package com.gmail.nossr50.commands.database;
 import com.gmail.nossr50.locale.LocaleLoader;
 import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.util.commands.CommandUtils;
+import com.gmail.nossr50.util.player.OfflineProfileManager;
 import com.gmail.nossr50.util.player.UserManager;
 import com.google.common.collect.ImmutableList;
 import org.bukkit.command.Command;
@@ -20,17 +21,16 @@ public class McremoveCommand implements TabExecutor {
             case 1:
                 String playerName = CommandUtils.getMatchedPlayerName(args[0]);
 
-                if (UserManager.getOfflinePlayer(playerName) == null && CommandUtils.unloadedProfile(sender, mcMMO.getDatabaseManager().loadPlayerProfile(playerName, false))) {
+                if (UserManager.getOfflinePlayer(playerName) == null) {
+                    OfflineProfileManager.loadProfile(playerName).thenAccept(profile -> {
+                        if (!CommandUtils.unloadedProfile(sender, profile)) {
+                            removeUser(sender, playerName);
+                        }
+                    });
                     return true;
                 }
 
-                if (mcMMO.getDatabaseManager().removeUser(playerName)) {
-                    sender.sendMessage(LocaleLoader.getString("Commands.mcremove.Success", playerName));
-                }
-                else {
-                    sender.sendMessage(playerName + " could not be removed from the database."); // Pretty sure this should NEVER happen.
-                }
-
+                removeUser(sender, playerName);
                 return true;
 
             default:
@@ -38,6 +38,17 @@ public class McremoveCommand implements TabExecutor {
         }
     }
 
+    private void removeUser(CommandSender sender, String playerName) {
+        OfflineProfileManager.invalidate(playerName);
+
+        if (mcMMO.getDatabaseManager().removeUser(playerName)) {
+            sender.sendMessage(LocaleLoader.getString("Commands.mcremove.Success", playerName));
+        }
+        else {
+            sender.sendMessage(playerName + " could not be removed from the database."); // Pretty sure this should NEVER happen.
+        }
+    }
+
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         switch (args.length) {
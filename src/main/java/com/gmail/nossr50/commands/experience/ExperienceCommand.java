@@ -4,11 +4,10 @@ import com.gmail.nossr50.datatypes.player.McMMOPlayer;
 import com.gmail.nossr50.datatypes.player.PlayerProfile;
 import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
 import com.gmail.nossr50.locale.LocaleLoader;
-import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.util.commands.CommandUtils;
+import com.gmail.nossr50.util.player.OfflineProfileManager;
 import com.gmail.nossr50.util.player.UserManager;
 import com.google.common.collect.ImmutableList;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabExecutor;
@@ -17,7 +16,6 @@ import org.bukkit.util.StringUtil;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 public abstract class ExperienceCommand implements TabExecutor {
     @Override
@@ -81,20 +79,27 @@ public abstract class ExperienceCommand implements TabExecutor {
                 String playerName = CommandUtils.getMatchedPlayerName(args[0]);
                 McMMOPlayer mcMMOPlayer = UserManager.getOfflinePlayer(playerName);
 
-                // If the mcMMOPlayer doesn't exist, create a temporary profile and check if it's present in the database. If it's not, abort the process.
+                // If the mcMMOPlayer doesn't exist, load a temporary profile from the database off the main thread and check if it's present in the database. If it's not, abort the process.
                 if (mcMMOPlayer == null) {
-                    UUID uuid = null;
-                    OfflinePlayer player = mcMMO.p.getServer().getOfflinePlayer(playerName);
-                    if (player != null) {
-                        uuid = player.getUniqueId();
-                    }
-                    PlayerProfile profile = mcMMO.getDatabaseManager().loadPlayerProfile(playerName, uuid, false);
-
-                    if (CommandUtils.unloadedProfile(sender, profile)) {
-                        return true;
-                    }
-
-                    editValues(null, profile, skill, value);
+                    final PrimarySkillType offlineSkill = skill;
+
+                    OfflineProfileManager.loadProfile(playerName).thenAccept(profile -> {
+                        McMMOPlayer joinedPlayer = UserManager.getOfflinePlayer(playerName);
+
+                        // They logged in while loading, edit their live profile instead of the copy
+                        if (joinedPlayer != null) {
+                            editValues(joinedPlayer.getPlayer(), joinedPlayer.getProfile(), offlineSkill, value);
+                        }
+                        else if (CommandUtils.unloadedProfile(sender, profile)) {
+                            return;
+                        }
+                        else {
+                            editValues(null, profile, offlineSkill, value);
+                        }
+
+                        handleSenderMessage(sender, playerName, offlineSkill);
+                    });
+                    return true;
                 }
                 else {
                     editValues(mcMMOPlayer.getPlayer(), mcMMOPlayer.getProfile(), skill, value);
@@ -5,13 +5,12 @@ import com.gmail.nossr50.datatypes.player.McMMOPlayer;
 import com.gmail.nossr50.datatypes.player.PlayerProfile;
 import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
 import com.gmail.nossr50.locale.LocaleLoader;
-import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.util.EventUtils;
 import com.gmail.nossr50.util.Permissions;
 import com.gmail.nossr50.util.commands.CommandUtils;
+import com.gmail.nossr50.util.player.OfflineProfileManager;
 import com.gmail.nossr50.util.player.UserManager;
 import com.google.common.collect.ImmutableList;
-import org.bukkit.OfflinePlayer;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabExecutor;
@@ -20,7 +19,6 @@ import org.bukkit.util.StringUtil;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.UUID;
 
 /**
  * This class mirrors the structure of ExperienceCommand, except the
@@ -75,20 +73,27 @@ public class SkillresetCommand implements TabExecutor {
                 String playerName = CommandUtils.getMatchedPlayerName(args[0]);
                 McMMOPlayer mcMMOPlayer = UserManager.getOfflinePlayer(playerName);
 
-                // If the mcMMOPlayer doesn't exist, create a temporary profile and check if it's present in the database. If it's not, abort the process.
+                // If the mcMMOPlayer doesn't exist, load a temporary profile from the database off the main thread and check if it's present in the database. If it's not, abort the process.
                 if (mcMMOPlayer == null) {
-                    UUID uuid = null;
-                    OfflinePlayer player = mcMMO.p.getServer().getOfflinePlayer(playerName);
-                    if (player != null) {
-                        uuid = player.getUniqueId();
-                    }
-                    PlayerProfile profile = mcMMO.getDatabaseManager().loadPlayerProfile(playerName, uuid, false);
-
-                    if (CommandUtils.unloadedProfile(sender, profile)) {
-                        return true;
-                    }
-
-                    editValues(null, profile, skill);
+                    final PrimarySkillType offlineSkill = skill;
+
+                    OfflineProfileManager.loadProfile(playerName).thenAccept(profile -> {
+                        McMMOPlayer joinedPlayer = UserManager.getOfflinePlayer(playerName);
+
+                        // They logged in while loading, edit their live profile instead of the copy
+                        if (joinedPlayer != null) {
+                            editValues(joinedPlayer.getPlayer(), joinedPlayer.getProfile(), offlineSkill);
+                        }
+                        else if (CommandUtils.unloadedProfile(sender, profile)) {
+                            return;
+                        }
+                        else {
+                            editValues(null, profile, offlineSkill);
+                        }
+
+                        handleSenderMessage(sender, playerName, offlineSkill);
+                    });
+                    return true;
                 }
                 else {
                     editValues(mcMMOPlayer.getPlayer(), mcMMOPlayer.getProfile(), skill);
@@ -5,9 +5,9 @@ import com.gmail.nossr50.datatypes.player.McMMOPlayer;
 import com.gmail.nossr50.datatypes.player.PlayerProfile;
 import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
 import com.gmail.nossr50.locale.LocaleLoader;
-import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.util.Permissions;
 import com.gmail.nossr50.util.commands.CommandUtils;
+import com.gmail.nossr50.util.player.OfflineProfileManager;
 import com.gmail.nossr50.util.player.UserManager;
 import com.gmail.nossr50.util.scoreboards.ScoreboardManager;
 import com.google.common.collect.ImmutableList;
@@ -28,43 +28,9 @@ public class InspectCommand implements TabExecutor {
                 String playerName = CommandUtils.getMatchedPlayerName(args[0]);
                 McMMOPlayer mcMMOPlayer = UserManager.getOfflinePlayer(playerName);
 
-                // If the mcMMOPlayer doesn't exist, create a temporary profile and check if it's present in the database. If it's not, abort the process.
+                // If the mcMMOPlayer doesn't exist, load a temporary profile off the main thread and check if it's present in the database. If it's not, abort the process.
                 if (mcMMOPlayer == null) {
-                    PlayerProfile profile = mcMMO.getDatabaseManager().loadPlayerProfile(playerName, false); // Temporary Profile
-
-                    if (!CommandUtils.isLoaded(sender, profile)) {
-                        return true;
-                    }
-
-                    if (CommandUtils.inspectOffline(sender, profile, Permissions.inspectOffline(sender))) {
-                        return true;
-                    }
-
-                    if (Config.getInstance().getScoreboardsEnabled() && sender instanceof Player && Config.getInstance().getInspectUseBoard()) {
-                        ScoreboardManager.enablePlayerInspectScoreboard((Player) sender, profile);
-
-                        if (!Config.getInstance().getInspectUseChat()) {
-                            return true;
-                        }
-                    }
-
-                    sender.sendMessage(LocaleLoader.getString("Inspect.OfflineStats", playerName));
-
-                    sender.sendMessage(LocaleLoader.getString("Stats.Header.Gathering"));
-                    for (PrimarySkillType skill : PrimarySkillType.GATHERING_SKILLS) {
-                        sender.sendMessage(CommandUtils.displaySkill(profile, skill));
-                    }
-
-                    sender.sendMessage(LocaleLoader.getString("Stats.Header.Combat"));
-                    for (PrimarySkillType skill : PrimarySkillType.COMBAT_SKILLS) {
-                        sender.sendMessage(CommandUtils.displaySkill(profile, skill));
-                    }
-
-                    sender.sendMessage(LocaleLoader.getString("Stats.Header.Misc"));
-                    for (PrimarySkillType skill : PrimarySkillType.MISC_SKILLS) {
-                        sender.sendMessage(CommandUtils.displaySkill(profile, skill));
-                    }
-
+                    OfflineProfileManager.getProfile(playerName).thenAccept(profile -> displayOfflineStats(sender, playerName, profile));
                 }
                 else {
                     Player target = mcMMOPlayer.getPlayer();
@@ -101,6 +67,45 @@ public class InspectCommand implements TabExecutor {
         }
     }
 
+    private void displayOfflineStats(CommandSender sender, String playerName, PlayerProfile profile) {
+        if (sender instanceof Player && !((Player) sender).isOnline()) {
+            return;
+        }
+
+        if (!CommandUtils.isLoaded(sender, profile)) {
+            return;
+        }
+
+        if (CommandUtils.inspectOffline(sender, profile, Permissions.inspectOffline(sender))) {
+            return;
+        }
+
+        if (Config.getInstance().getScoreboardsEnabled() && sender instanceof Player && Config.getInstance().getInspectUseBoard()) {
+            ScoreboardManager.enablePlayerInspectScoreboard((Player) sender, profile);
+
+            if (!Config.getInstance().getInspectUseChat()) {
+                return;
+            }
+        }
+
+        sender.sendMessage(LocaleLoader.getString("Inspect.OfflineStats", playerName));
+
+        sender.sendMessage(LocaleLoader.getString("Stats.Header.Gathering"));
+        for (PrimarySkillType skill : PrimarySkillType.GATHERING_SKILLS) {
+            sender.sendMessage(CommandUtils.displaySkill(profile, skill));
+        }
+
+        sender.sendMessage(LocaleLoader.getString("Stats.Header.Combat"));
+        for (PrimarySkillType skill : PrimarySkillType.COMBAT_SKILLS) {
+            sender.sendMessage(CommandUtils.displaySkill(profile, skill));
+        }
+
+        sender.sendMessage(LocaleLoader.getString("Stats.Header.Misc"));
+        for (PrimarySkillType skill : PrimarySkillType.MISC_SKILLS) {
+            sender.sendMessage(CommandUtils.displaySkill(profile, skill));
+        }
+    }
+
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
         switch (args.length) {
@@ -7,6 +7,7 @@ import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.runnables.commands.McrankCommandAsyncTask;
 import com.gmail.nossr50.util.Permissions;
 import com.gmail.nossr50.util.commands.CommandUtils;
+import com.gmail.nossr50.util.player.OfflineProfileManager;
 import com.gmail.nossr50.util.player.UserManager;
 import com.google.common.collect.ImmutableList;
 import org.bukkit.command.Command;
@@ -54,15 +55,25 @@ public class McrankCommand implements TabExecutor {
                 String playerName = CommandUtils.getMatchedPlayerName(args[0]);
                 McMMOPlayer mcMMOPlayer = UserManager.getOfflinePlayer(playerName);
 
-                if (mcMMOPlayer != null) {
-                    Player player = mcMMOPlayer.getPlayer();
-                    playerName = player.getName();
+                if (mcMMOPlayer == null) {
+                    final String offlinePlayerName = playerName;
 
-                    if (CommandUtils.tooFar(sender, player, Permissions.mcrankFar(sender))) {
-                        return true;
-                    }
+                    OfflineProfileManager.getProfile(offlinePlayerName).thenAccept(profile -> {
+                        if (sender instanceof Player && !((Player) sender).isOnline()) {
+                            return;
+                        }
+
+                        if (!CommandUtils.inspectOffline(sender, profile, Permissions.mcrankOffline(sender))) {
+                            display(sender, offlinePlayerName);
+                        }
+                    });
+                    return true;
                 }
-                else if (CommandUtils.inspectOffline(sender, mcMMO.getDatabaseManager().loadPlayerProfile(playerName, false), Permissions.mcrankOffline(sender))) {
+
+                Player player = mcMMOPlayer.getPlayer();
+                playerName = player.getName();
+
+                if (CommandUtils.tooFar(sender, player, Permissions.mcrankFar(sender))) {
                     return true;
                 }
 
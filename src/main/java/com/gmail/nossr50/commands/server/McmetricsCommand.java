@@ -0,0 +1,61 @@
+package com.gmail.nossr50.commands.server;
+
+import com.gmail.nossr50.database.SQLDatabaseManager;
+import com.gmail.nossr50.locale.LocaleLoader;
+import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.skills.alchemy.AlchemyBrewScheduler;
+import com.gmail.nossr50.skills.archery.Archery;
+import com.gmail.nossr50.skills.taming.SummonRegistry;
+import com.gmail.nossr50.skills.woodcutting.TreeFellerRemoval;
+import com.gmail.nossr50.util.DropAggregator;
+import com.gmail.nossr50.util.EntityFlags;
+import com.gmail.nossr50.util.LatencyHistogram;
+import com.gmail.nossr50.util.MobHealthbarUtils;
+import com.gmail.nossr50.util.blockmeta.PistonMoveJournal;
+import com.gmail.nossr50.util.player.ProfileLoadingManager;
+import com.google.common.collect.ImmutableList;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+
+import java.util.List;
+import java.util.Map.Entry;
+
+/**
+ * Shows the counters and latency histograms collected by the performance sensitive parts of mcMMO.
+ */
+public class McmetricsCommand implements TabExecutor {
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        switch (args.length) {
+            case 0:
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.Header"));
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.Alchemy", AlchemyBrewScheduler.getActiveBrews(), AlchemyBrewScheduler.getCompletedBrews(), AlchemyBrewScheduler.getTickLatency()));
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.TreeFeller", TreeFellerRemoval.getBlocksProcessed(), TreeFellerRemoval.getBatchesProcessed(), String.format("%.1f", TreeFellerRemoval.getAverageBlocksPerBatch()), TreeFellerRemoval.getMaxBlocksPerBatch(), TreeFellerRemoval.getActiveRemovals()));
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.Drops", DropAggregator.getEntitiesSpawned(), DropAggregator.getEntitiesAvoided()));
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.Archery", Archery.getTrackedEntityCount()));
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.Summons", SummonRegistry.getActiveSummons()));
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.EntityFlags", EntityFlags.getFlaggedEntityCount()));
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.Healthbars", MobHealthbarUtils.getActiveHealthbars()));
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.Pistons", PistonMoveJournal.getMovesProcessed(), PistonMoveJournal.getFlagsMoved()));
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.Latency", "profile database", ProfileLoadingManager.getDatabaseLatency()));
+                sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.Latency", "profile join", ProfileLoadingManager.getJoinLatency()));
+
+                if (mcMMO.getDatabaseManager() instanceof SQLDatabaseManager) {
+                    for (Entry<String, LatencyHistogram> statement : ((SQLDatabaseManager) mcMMO.getDatabaseManager()).getStatementLatencies().entrySet()) {
+                        sender.sendMessage(LocaleLoader.getString("Commands.mcmetrics.Latency", "sql " + statement.getKey(), statement.getValue()));
+                    }
+                }
+
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {
+        return ImmutableList.of();
+    }
+}
@@ -182,6 +182,14 @@ public class Config extends AutoUpdateConfigLoader {
             reason.add("Abilities.Limits.Tree_Feller_Threshold should be greater than 0!");
         }
 
+        if (getTreeFellerBlocksPerTick() <= 0) {
+            reason.add("Abilities.Limits.Tree_Feller_Blocks_Per_Tick should be greater than 0!");
+        }
+
+        if (getTreeFellerInstantRemovalThreshold() < 0) {
+            reason.add("Abilities.Limits.Tree_Feller_Instant_Removal_Threshold should be at least 0!");
+        }
+
         if (getFishingLureModifier() < 0) {
             reason.add("Abilities.Fishing.Lure_Modifier should be at least 0!");
         }
@@ -343,6 +351,7 @@ public class Config extends AutoUpdateConfigLoader {
     public String getMySQLUserPassword() { return getStringIncludingInts("MySQL.Database.User_Password"); }
     public int getMySQLMaxConnections(PoolIdentifier identifier) { return config.getInt("MySQL.Database.MaxConnections." + StringUtils.getCapitalized(identifier.toString()), 30); }
     public int getMySQLMaxPoolSize(PoolIdentifier identifier) { return config.getInt("MySQL.Database.MaxPoolSize." + StringUtils.getCapitalized(identifier.toString()), 10); }
+    public int getMySQLStatementCacheSize() { return config.getInt("MySQL.Database.StatementCacheSize", 50); }
     public boolean getMySQLSSL() { return config.getBoolean("MySQL.Server.SSL", true); }
 
     private String getStringIncludingInts(String key) {
@@ -412,6 +421,7 @@ public class Config extends AutoUpdateConfigLoader {
     public int getPartyMaxSize() {return config.getInt("Party.MaxSize", -1); }
     public int getAutoPartyKickInterval() { return config.getInt("Party.AutoKick_Interval", 12); }
     public int getAutoPartyKickTime() { return config.getInt("Party.Old_Party_Member_Cutoff", 7); }
+    public boolean getPartyUseMySQL() { return config.getBoolean("Party.Use_MySQL", false); }
 
     public double getPartyShareBonusBase() { return config.getDouble("Party.Sharing.ExpShare_bonus_base", 1.1D); }
     public double getPartyShareBonusIncrease() { return config.getDouble("Party.Sharing.ExpShare_bonus_increase", 0.05D); }
@@ -459,6 +469,8 @@ public class Config extends AutoUpdateConfigLoader {
 
     /* Thresholds */
     public int getTreeFellerThreshold() { return config.getInt("Abilities.Limits.Tree_Feller_Threshold", 500); }
+    public int getTreeFellerBlocksPerTick() { return config.getInt("Abilities.Limits.Tree_Feller_Blocks_Per_Tick", 100); }
+    public int getTreeFellerInstantRemovalThreshold() { return config.getInt("Abilities.Limits.Tree_Feller_Instant_Removal_Threshold", 100); }
 
     /*
      * SKILL SETTINGS
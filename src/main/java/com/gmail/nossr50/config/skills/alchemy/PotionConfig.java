@@ -8,12 +8,17 @@ import org.bukkit.Color;
 import org.bukkit.Material;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.inventory.meta.PotionMeta;
 import org.bukkit.potion.*;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class PotionConfig extends ConfigLoader {
     private static PotionConfig instance;
@@ -28,6 +33,10 @@ public class PotionConfig extends ConfigLoader {
     private List<ItemStack> concoctionsIngredientsTierEight = new ArrayList<ItemStack>();
 
     private Map<String, AlchemyPotion> potionMap = new HashMap<String, AlchemyPotion>();
+    // Potions by material, base data and the types of their custom effects
+    private Map<PotionKey, List<AlchemyPotion>> potionIndex = new HashMap<PotionKey, List<AlchemyPotion>>();
+    // Potions by material and base data only, for items carrying more custom effects than the potion
+    private Map<PotionKey, List<AlchemyPotion>> potionsByData = new HashMap<PotionKey, List<AlchemyPotion>>();
 
     private PotionConfig() {
         super("potions.yml");
@@ -102,6 +111,35 @@ public class PotionConfig extends ConfigLoader {
         }
 
         mcMMO.p.debug("Loaded " + pass + " Alchemy potions, skipped " + fail + ".");
+
+        for (AlchemyPotion potion : potionMap.values()) {
+            addToIndex(potionIndex, new PotionKey(potion.getMaterial(), potion.getData(), getEffectTypesHash(potion.getEffects())), potion);
+            addToIndex(potionsByData, new PotionKey(potion.getMaterial(), potion.getData(), 0), potion);
+        }
+    }
+
+    private static void addToIndex(Map<PotionKey, List<AlchemyPotion>> index, PotionKey key, AlchemyPotion potion) {
+        List<AlchemyPotion> potions = index.get(key);
+
+        if (potions == null) {
+            potions = new ArrayList<AlchemyPotion>(1);
+            index.put(key, potions);
+        }
+
+        potions.add(potion);
+    }
+
+    /**
+     * Hash of the distinct types of the given effects, independent of their order.
+     */
+    private static int getEffectTypesHash(Collection<PotionEffect> effects) {
+        Set<PotionEffectType> types = new HashSet<PotionEffectType>();
+
+        for (PotionEffect effect : effects) {
+            types.add(effect.getType());
+        }
+
+        return types.hashCode();
     }
 
     /**
@@ -245,11 +283,39 @@ public class PotionConfig extends ConfigLoader {
     }
     
     public AlchemyPotion getPotion(ItemStack item) {
-        for (AlchemyPotion potion : potionMap.values()) {
-            if (potion.isSimilar(item)) {
+        if (!item.hasItemMeta()) {
+            return null;
+        }
+
+        ItemMeta itemMeta = item.getItemMeta();
+
+        if (!(itemMeta instanceof PotionMeta)) {
+            return null;
+        }
+
+        PotionMeta meta = (PotionMeta) itemMeta;
+        PotionData data = meta.getBasePotionData();
+
+        AlchemyPotion potion = findSimilar(potionIndex.get(new PotionKey(item.getType(), data, getEffectTypesHash(meta.getCustomEffects()))), item, meta);
+
+        if (potion != null) {
+            return potion;
+        }
+
+        return findSimilar(potionsByData.get(new PotionKey(item.getType(), data, 0)), item, meta);
+    }
+
+    private static AlchemyPotion findSimilar(List<AlchemyPotion> candidates, ItemStack item, PotionMeta meta) {
+        if (candidates == null) {
+            return null;
+        }
+
+        for (AlchemyPotion potion : candidates) {
+            if (potion.isSimilar(item, meta)) {
                 return potion;
             }
         }
+
         return null;
     }
     
@@ -283,5 +349,31 @@ public class PotionConfig extends ConfigLoader {
         Color color = Color.fromRGB(red/colors.size(), green/colors.size(), blue/colors.size());
         return color;
     }
-    
+
+    private static class PotionKey {
+        private final Material material;
+        private final PotionData data;
+        private final int effectTypesHash;
+
+        private PotionKey(Material material, PotionData data, int effectTypesHash) {
+            this.material = material;
+            this.data = data;
+            this.effectTypesHash = effectTypesHash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof PotionKey)) {
+                return false;
+            }
+
+            PotionKey other = (PotionKey) obj;
+            return material == other.material && effectTypesHash == other.effectTypesHash && data.equals(other.data);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * material.hashCode() + data.hashCode()) + effectTypesHash;
+        }
+    }
 }
@@ -17,7 +17,11 @@ import com.gmail.nossr50.util.StringUtils;
 import org.bukkit.OfflinePlayer;
 
 import java.io.*;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.*;
 
 public final class FlatfileDatabaseManager implements DatabaseManager {
     private final HashMap<PrimarySkillType, List<PlayerStat>> playerStatHash = new HashMap<PrimarySkillType, List<PlayerStat>>();
@@ -27,10 +31,13 @@ public final class FlatfileDatabaseManager implements DatabaseManager {
     private final long UPDATE_WAIT_TIME = 600000L; // 10 minutes
     private final File usersFile;
     private static final Object fileWritingLock = new Object();
+    private static final int PURGE_CHUNK_SIZE = 2000;
+    private KnownUserFilter knownUsers;
 
     protected FlatfileDatabaseManager() {
         usersFile = new File(mcMMO.getUsersFilePath());
         checkStructure();
+        loadKnownUsers();
         updateLeaderboards();
 
         if (mcMMO.getUpgradeManager().shouldUpgrade(UpgradeType.ADD_UUIDS)) {
@@ -39,128 +46,329 @@ public final class FlatfileDatabaseManager implements DatabaseManager {
     }
 
     public void purgePowerlessUsers() {
-        int purgedUsers = 0;
-
         mcMMO.p.getLogger().info("Purging powerless users...");
 
-        BufferedReader in = null;
-        FileWriter out = null;
-        String usersFilePath = mcMMO.getUsersFilePath();
+        int purgedUsers = purgeUsers(new PurgeFilter() {
+            @Override
+            public String filter(String line) {
+                String[] character = line.split(":");
 
-        // This code is O(n) instead of O(n²)
-        synchronized (fileWritingLock) {
-            try {
-                in = new BufferedReader(new FileReader(usersFilePath));
-                StringBuilder writer = new StringBuilder();
-                String line;
-
-                while ((line = in.readLine()) != null) {
-                    String[] character = line.split(":");
-                    Map<PrimarySkillType, Integer> skills = getSkillMapFromLine(character);
-
-                    boolean powerless = true;
-                    for (int skill : skills.values()) {
+                try {
+                    for (int skill : getSkillMapFromLine(character).values()) {
                         if (skill != 0) {
-                            powerless = false;
-                            break;
+                            return line;
                         }
                     }
+                }
+                catch (RuntimeException e) {
+                    // Malformed line, leave it for checkStructure() to deal with
+                    return line;
+                }
 
-                    // If they're still around, rewrite them to the file.
-                    if (!powerless) {
-                        writer.append(line).append("\r\n");
+                return null;
+            }
+        });
+
+        mcMMO.p.getLogger().info("Purged " + purgedUsers + " users from the database.");
+    }
+
+    public void purgeOldUsers() {
+        final long currentTime = System.currentTimeMillis();
+
+        mcMMO.p.getLogger().info("Purging old users...");
+
+        final Map<String, Long> lastPlayedTimes = resolveMissingLastLogins();
+
+        int removedPlayers = purgeUsers(new PurgeFilter() {
+            @Override
+            public String filter(String line) {
+                String[] character = line.split(":");
+                long lastPlayed = 0;
+
+                try {
+                    lastPlayed = Long.parseLong(character[LAST_LOGIN]) * Misc.TIME_CONVERSION_FACTOR;
+                }
+                catch (NumberFormatException e) {
+                    e.printStackTrace();
+                }
+
+                if (lastPlayed == 0) {
+                    Long resolvedLastPlayed = lastPlayedTimes.get(getUserKey(character));
+
+                    // Added after the last logins were resolved, reconsider them on the next purge
+                    if (resolvedLastPlayed == null) {
+                        return line;
                     }
-                    else {
-                        purgedUsers++;
+
+                    lastPlayed = resolvedLastPlayed;
+
+                    if (currentTime - lastPlayed > PURGE_TIME) {
+                        return null;
                     }
+
+                    // Rewrite their data with a valid time
+                    character[LAST_LOGIN] = Long.toString(lastPlayed / Misc.TIME_CONVERSION_FACTOR);
+                    return org.apache.commons.lang.StringUtils.join(character, ":");
                 }
 
-                // Write the new file
-                out = new FileWriter(usersFilePath);
-                out.write(writer.toString());
+                return currentTime - lastPlayed > PURGE_TIME ? null : line;
             }
-            catch (IOException e) {
-                mcMMO.p.getLogger().severe("Exception while reading " + usersFilePath + " (Are you sure you formatted it correctly?)" + e.toString());
+        });
+
+        mcMMO.p.getLogger().info("Purged " + removedPlayers + " users from the database.");
+    }
+
+    /**
+     * Look up when the users without a stored last login last played, according to the server.
+     * <p>
+     * Bukkit's offline player data may only be read on the main thread, so when called from another
+     * thread the lookup is handed to the main thread and waited for.
+     *
+     * @return the last played time in milliseconds by user key, see {@link #getUserKey(String[])}
+     */
+    private Map<String, Long> resolveMissingLastLogins() {
+        final List<String[]> users = new ArrayList<String[]>();
+        BufferedReader in = null;
+
+        try {
+            in = new BufferedReader(new FileReader(usersFile));
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                String[] character = line.split(":");
+
+                if (character.length > UUID_INDEX && getLastLogin(character) == 0) {
+                    users.add(character);
+                }
             }
-            finally {
-                if (in != null) {
-                    try {
-                        in.close();
-                    }
-                    catch (IOException e) {
-                        // Ignore
-                    }
+        }
+        catch (IOException e) {
+            mcMMO.p.getLogger().severe("Exception while reading " + usersFile.getPath() + ": " + e.toString());
+        }
+        finally {
+            if (in != null) {
+                try {
+                    in.close();
                 }
-                if (out != null) {
+                catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+
+        if (users.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Callable<Map<String, Long>> lookup = new Callable<Map<String, Long>>() {
+            @Override
+            public Map<String, Long> call() {
+                Map<String, Long> lastPlayedTimes = new HashMap<String, Long>();
+                Map<String, OfflinePlayer> playersByName = null;
+
+                for (String[] character : users) {
+                    OfflinePlayer player = null;
+
                     try {
-                        out.close();
+                        if (!character[UUID_INDEX].equalsIgnoreCase("NULL")) {
+                            player = mcMMO.p.getServer().getOfflinePlayer(UUID.fromString(character[UUID_INDEX]));
+                        }
                     }
-                    catch (IOException e) {
-                        // Ignore
+                    catch (IllegalArgumentException e) {
+                        // Malformed uuid, look them up by name instead
+                    }
+
+                    // Looking an offline player up by name can block on a web request, search the known players instead
+                    if (player == null) {
+                        if (playersByName == null) {
+                            playersByName = new HashMap<String, OfflinePlayer>();
+
+                            for (OfflinePlayer offlinePlayer : mcMMO.p.getServer().getOfflinePlayers()) {
+                                if (offlinePlayer.getName() != null) {
+                                    playersByName.put(offlinePlayer.getName().toLowerCase(Locale.ENGLISH), offlinePlayer);
+                                }
+                            }
+                        }
+
+                        player = playersByName.get(character[USERNAME].toLowerCase(Locale.ENGLISH));
                     }
+
+                    lastPlayedTimes.put(getUserKey(character), player == null ? 0L : player.getLastPlayed());
                 }
+
+                return lastPlayedTimes;
+            }
+        };
+
+        try {
+            if (mcMMO.p.getServer().isPrimaryThread()) {
+                return lookup.call();
             }
+
+            return mcMMO.p.getServer().getScheduler().callSyncMethod(mcMMO.p, lookup).get();
+        }
+        catch (Exception e) {
+            mcMMO.p.getLogger().warning("Could not look up the last logins of " + users.size() + " users, they will not be purged: " + e.toString());
+            return Collections.emptyMap();
         }
+    }
 
-        mcMMO.p.getLogger().info("Purged " + purgedUsers + " users from the database.");
+    private static long getLastLogin(String[] character) {
+        try {
+            return Long.parseLong(character[LAST_LOGIN]);
+        }
+        catch (NumberFormatException e) {
+            return 0;
+        }
     }
 
-    public void purgeOldUsers() {
-        int removedPlayers = 0;
-        long currentTime = System.currentTimeMillis();
+    /**
+     * @return the key identifying the user of a line, the uuid if known or the lowercase name otherwise, or null for malformed lines
+     */
+    private static String getUserKey(String[] character) {
+        if (character.length <= UUID_INDEX) {
+            return null;
+        }
 
-        mcMMO.p.getLogger().info("Purging old users...");
+        return character[UUID_INDEX].equalsIgnoreCase("NULL") ? character[USERNAME].toLowerCase(Locale.ENGLISH) : character[UUID_INDEX].toLowerCase(Locale.ENGLISH);
+    }
+
+    /**
+     * Purge users from the users file without holding the file lock for the whole scan.
+     * <p>
+     * The file is copied to a snapshot under the lock, the snapshot is filtered in parallel chunks
+     * with the lock released, and the decisions are then applied in one streaming pass over the live
+     * file into a temporary file that atomically replaces it. Lines are matched by user key, and only
+     * changed if they are still exactly what was filtered, so a user who was saved while the purge ran
+     * is kept as-is and reconsidered on the next purge.
+     *
+     * @param purgeFilter Decides, per line, whether to keep, rewrite or purge a user
+     * @return the number of users purged
+     */
+    private int purgeUsers(PurgeFilter purgeFilter) {
+        File snapshotFile = new File(mcMMO.getUsersFilePath() + ".purge");
+        PurgeChunkResult decisions = new PurgeChunkResult();
+
+        synchronized (fileWritingLock) {
+            try {
+                Files.copy(usersFile.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (IOException e) {
+                mcMMO.p.getLogger().severe("Unable to snapshot " + usersFile.getPath() + " for purging: " + e.toString());
+                return 0;
+            }
+        }
+
+        try {
+            filterSnapshot(snapshotFile, purgeFilter, decisions);
+        }
+        catch (Exception e) {
+            mcMMO.p.getLogger().severe("Exception while reading " + snapshotFile.getPath() + " (Are you sure you formatted it correctly?)" + e.toString());
+            return 0;
+        }
+        finally {
+            snapshotFile.delete();
+        }
+
+        if (decisions.filteredLines.isEmpty()) {
+            return 0;
+        }
+
+        return applyPurge(decisions);
+    }
 
+    private void filterSnapshot(File snapshotFile, final PurgeFilter purgeFilter, PurgeChunkResult decisions) throws IOException, InterruptedException, ExecutionException {
+        int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        Deque<Future<PurgeChunkResult>> pending = new ArrayDeque<Future<PurgeChunkResult>>();
         BufferedReader in = null;
-        FileWriter out = null;
+
+        try {
+            in = new BufferedReader(new FileReader(snapshotFile));
+            List<String> chunk = new ArrayList<String>(PURGE_CHUNK_SIZE);
+            String line;
+
+            while ((line = in.readLine()) != null) {
+                chunk.add(line);
+
+                if (chunk.size() == PURGE_CHUNK_SIZE) {
+                    // Only keep a few chunks in flight so memory stays bounded regardless of file size
+                    if (pending.size() >= threads * 2) {
+                        pending.poll().get().mergeInto(decisions);
+                    }
+
+                    pending.add(executor.submit(new PurgeChunkTask(chunk, purgeFilter)));
+                    chunk = new ArrayList<String>(PURGE_CHUNK_SIZE);
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                pending.add(executor.submit(new PurgeChunkTask(chunk, purgeFilter)));
+            }
+
+            while (!pending.isEmpty()) {
+                pending.poll().get().mergeInto(decisions);
+            }
+        }
+        finally {
+            executor.shutdownNow();
+
+            if (in != null) {
+                try {
+                    in.close();
+                }
+                catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    private int applyPurge(PurgeChunkResult decisions) {
+        int purgedUsers = 0;
+        BufferedReader in = null;
+        BufferedWriter out = null;
         String usersFilePath = mcMMO.getUsersFilePath();
+        File tempFile = new File(usersFilePath + ".tmp");
 
-        // This code is O(n) instead of O(n²)
         synchronized (fileWritingLock) {
             try {
                 in = new BufferedReader(new FileReader(usersFilePath));
-                StringBuilder writer = new StringBuilder();
+                out = new BufferedWriter(new FileWriter(tempFile));
                 String line;
 
                 while ((line = in.readLine()) != null) {
-                    String[] character = line.split(":");
-                    String name = character[USERNAME];
-                    long lastPlayed = 0;
-                    boolean rewrite = false;
-                    try {
-                        lastPlayed = Long.parseLong(character[37]) * Misc.TIME_CONVERSION_FACTOR;
-                    }
-                    catch (NumberFormatException e) {
-                        e.printStackTrace();
-                    }
-                    if (lastPlayed == 0) {
-                        OfflinePlayer player = mcMMO.p.getServer().getOfflinePlayer(name);
-                        lastPlayed = player.getLastPlayed();
-                        rewrite = true;
-                    }
+                    String key = getUserKey(line.split(":"));
 
-                    if (currentTime - lastPlayed > PURGE_TIME) {
-                        removedPlayers++;
-                    }
-                    else {
-                        if (rewrite) {
-                            // Rewrite their data with a valid time
-                            character[37] = Long.toString(lastPlayed);
-                            String newLine = org.apache.commons.lang.StringUtils.join(character, ":");
-                            writer.append(newLine).append("\r\n");
-                        }
-                        else {
-                            writer.append(line).append("\r\n");
+                    if (key != null && line.equals(decisions.filteredLines.get(key))) {
+                        String rewrittenLine = decisions.rewrittenLines.get(key);
+
+                        if (rewrittenLine == null) {
+                            purgedUsers++;
+                            continue;
                         }
+
+                        line = rewrittenLine;
                     }
+
+                    out.append(line).append("\r\n");
                 }
 
-                // Write the new file
-                out = new FileWriter(usersFilePath);
-                out.write(writer.toString());
+                in.close();
+                in = null;
+                out.close();
+                out = null;
+
+                try {
+                    Files.move(tempFile.toPath(), usersFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+                catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tempFile.toPath(), usersFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+                }
             }
             catch (IOException e) {
-                mcMMO.p.getLogger().severe("Exception while reading " + usersFilePath + " (Are you sure you formatted it correctly?)" + e.toString());
+                mcMMO.p.getLogger().severe("Exception while purging " + usersFilePath + ": " + e.toString());
+                purgedUsers = 0;
             }
             finally {
                 if (in != null) {
@@ -179,10 +387,72 @@ public final class FlatfileDatabaseManager implements DatabaseManager {
                         // Ignore
                     }
                 }
+
+                tempFile.delete();
             }
         }
 
-        mcMMO.p.getLogger().info("Purged " + removedPlayers + " users from the database.");
+        return purgedUsers;
+    }
+
+    private interface PurgeFilter {
+        /**
+         * Decide what to do with one line of the users file. Called from worker threads, so it must
+         * not use the Bukkit API.
+         *
+         * @param line The line to check
+         * @return the line to keep, which may be rewritten, or null to purge the user
+         */
+        String filter(String line);
+    }
+
+    private static class PurgeChunkResult {
+        // Line as it was filtered by user key, for every purged or rewritten user
+        private final Map<String, String> filteredLines = new HashMap<String, String>();
+        // Replacement line by user key, users without one are purged
+        private final Map<String, String> rewrittenLines = new HashMap<String, String>();
+
+        private void mergeInto(PurgeChunkResult result) {
+            result.filteredLines.putAll(filteredLines);
+            result.rewrittenLines.putAll(rewrittenLines);
+        }
+    }
+
+    private static class PurgeChunkTask implements Callable<PurgeChunkResult> {
+        private final List<String> lines;
+        private final PurgeFilter purgeFilter;
+
+        private PurgeChunkTask(List<String> lines, PurgeFilter purgeFilter) {
+            this.lines = lines;
+            this.purgeFilter = purgeFilter;
+        }
+
+        @Override
+        public PurgeChunkResult call() {
+            PurgeChunkResult result = new PurgeChunkResult();
+
+            for (String line : lines) {
+                String filtered = purgeFilter.filter(line);
+
+                if (filtered != null && filtered.equals(line)) {
+                    continue;
+                }
+
+                String key = getUserKey(line.split(":"));
+
+                if (key == null) {
+                    continue;
+                }
+
+                result.filteredLines.put(key, line);
+
+                if (filtered != null) {
+                    result.rewrittenLines.put(key, filtered);
+                }
+            }
+
+            return result;
+        }
     }
 
     public boolean removeUser(String playerName) {
@@ -276,6 +546,10 @@ public final class FlatfileDatabaseManager implements DatabaseManager {
                 if(!wroteUser)
                 {
                     writeUserToLine(profile, playerName, uuid, writer);
+
+                    if (knownUsers != null) {
+                        knownUsers.add(playerName, uuid);
+                    }
                 }
 
                 // Write the new file
@@ -435,6 +709,10 @@ public final class FlatfileDatabaseManager implements DatabaseManager {
                 // Add more in the same format as the line above
 
                 out.newLine();
+
+                if (knownUsers != null) {
+                    knownUsers.add(playerName, uuid);
+                }
             }
             catch (Exception e) {
                 e.printStackTrace();
@@ -462,6 +740,21 @@ public final class FlatfileDatabaseManager implements DatabaseManager {
     }
 
     public PlayerProfile loadPlayerProfile(String playerName, UUID uuid, boolean create) {
+        // Brand new players can't be in the file, so skip scanning it for them
+        if (knownUsers != null && knownUsers.isDefinitelyNew(playerName, uuid)) {
+            if (!create) {
+                return uuid == null ? new PlayerProfile(playerName) : new PlayerProfile(playerName, uuid);
+            }
+
+            // Check again under the lock, another load may have created the user in the meantime
+            synchronized (fileWritingLock) {
+                if (knownUsers.isDefinitelyNew(playerName, uuid)) {
+                    newUser(playerName, uuid);
+                    return uuid == null ? new PlayerProfile(playerName, true) : new PlayerProfile(playerName, uuid, true);
+                }
+            }
+        }
+
         BufferedReader in = null;
         String usersFilePath = mcMMO.getUsersFilePath();
 
@@ -598,6 +891,10 @@ public final class FlatfileDatabaseManager implements DatabaseManager {
 
                         line = line.replace(character[UUID_INDEX], uuid.toString());
                         worked = true;
+
+                        if (knownUsers != null) {
+                            knownUsers.add(userName, uuid);
+                        }
                     }
 
                     i++;
@@ -655,7 +952,12 @@ public final class FlatfileDatabaseManager implements DatabaseManager {
                             continue;
                         }
 
-                        character[UUID_INDEX] = fetchedUUIDs.remove(character[USERNAME]).toString();
+                        UUID fetchedUUID = fetchedUUIDs.remove(character[USERNAME]);
+                        character[UUID_INDEX] = fetchedUUID.toString();
+
+                        if (knownUsers != null) {
+                            knownUsers.add(character[USERNAME], fetchedUUID);
+                        }
                         line = new StringBuilder(org.apache.commons.lang.StringUtils.join(character, ":")).append(":").toString();
                     }
 
@@ -693,6 +995,56 @@ public final class FlatfileDatabaseManager implements DatabaseManager {
         return true;
     }
 
+    /**
+     * Build the known user filter from a single streaming pass over the users file.
+     */
+    private void loadKnownUsers() {
+        BufferedReader in = null;
+        String usersFilePath = mcMMO.getUsersFilePath();
+
+        synchronized (fileWritingLock) {
+            try {
+                // Lines are well over 100 bytes each, so this over-estimates the user count
+                KnownUserFilter filter = new KnownUserFilter(usersFile.length() / 100);
+                in = new BufferedReader(new FileReader(usersFilePath));
+                String line;
+
+                while ((line = in.readLine()) != null) {
+                    String[] character = line.split(":");
+
+                    UUID uuid = null;
+
+                    if (character.length > UUID_INDEX && !character[UUID_INDEX].equalsIgnoreCase("NULL")) {
+                        try {
+                            uuid = UUID.fromString(character[UUID_INDEX]);
+                        }
+                        catch (IllegalArgumentException e) {
+                            // Malformed uuid, the name alone still covers this row
+                        }
+                    }
+
+                    filter.add(character[USERNAME], uuid);
+                }
+
+                knownUsers = filter;
+            }
+            catch (Exception e) {
+                // Leave the filter disabled, every load will fall back on a full scan
+                mcMMO.p.getLogger().warning("Unable to build the known user filter, new players will be looked up normally: " + e.toString());
+            }
+            finally {
+                if (in != null) {
+                    try {
+                        in.close();
+                    }
+                    catch (IOException e) {
+                        // Ignore
+                    }
+                }
+            }
+        }
+    }
+
     public List<String> getStoredUsers() {
         ArrayList<String> users = new ArrayList<String>();
         BufferedReader in = null;
@@ -0,0 +1,130 @@
+package com.gmail.nossr50.database;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over the UUIDs and names of every user stored in the database.
+ * <p>
+ * A negative answer is exact, so a player who is definitely not in the filter can be created
+ * without scanning or querying the database first. A positive answer may be wrong and must be
+ * confirmed with a real lookup.
+ * <p>
+ * Entries are never removed; a removed user simply becomes a false positive until the next restart.
+ */
+public class KnownUserFilter {
+    // 10 bits per expected user and 7 probes gives roughly a 1% false positive rate
+    private static final int BITS_PER_USER = 10;
+    private static final int PROBES = 7;
+    private static final int MINIMUM_USERS = 10000;
+
+    private static final long UUID_SEED = 0x9E3779B97F4A7C15L;
+    private static final long NAME_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    private final AtomicLongArray words;
+    private final long bitCount;
+
+    /**
+     * @param expectedUsers The number of users currently stored, used to size the filter with room to grow
+     */
+    public KnownUserFilter(long expectedUsers) {
+        long capacity = Math.max(MINIMUM_USERS, expectedUsers * 2);
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (capacity * BITS_PER_USER + 63) / 64);
+
+        words = new AtomicLongArray(wordCount);
+        bitCount = wordCount * 64L;
+    }
+
+    /**
+     * Record a stored user.
+     *
+     * @param playerName The name of the user, may be null
+     * @param uuid The uuid of the user, may be null
+     */
+    public void add(String playerName, UUID uuid) {
+        if (uuid != null) {
+            set(hash(uuid));
+        }
+
+        if (playerName != null && !playerName.isEmpty()) {
+            set(hash(playerName));
+        }
+    }
+
+    /**
+     * Check whether a lookup for this user is guaranteed to find nothing.
+     * <p>
+     * Both the uuid and the name are checked, since database lookups fall back on the
+     * name for rows that do not have a uuid yet.
+     *
+     * @param playerName The name being looked up
+     * @param uuid The uuid being looked up, may be null
+     * @return true if no stored user can match, false if a real lookup is needed
+     */
+    public boolean isDefinitelyNew(String playerName, UUID uuid) {
+        if (uuid != null && mightContain(hash(uuid))) {
+            return false;
+        }
+
+        return playerName == null || playerName.isEmpty() || !mightContain(hash(playerName));
+    }
+
+    private void set(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= PROBES; i++) {
+            long bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long word;
+
+            do {
+                word = words.get(index);
+
+                if ((word & mask) != 0) {
+                    break;
+                }
+            }
+            while (!words.compareAndSet(index, word, word | mask));
+        }
+    }
+
+    private boolean mightContain(long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+
+        for (int i = 1; i <= PROBES; i++) {
+            long bit = ((h1 + i * h2) & Integer.MAX_VALUE) % bitCount;
+
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static long hash(UUID uuid) {
+        return mix(uuid.getMostSignificantBits() ^ mix(uuid.getLeastSignificantBits() ^ UUID_SEED));
+    }
+
+    private static long hash(String playerName) {
+        // Names are matched case-insensitively by both backends
+        String name = playerName.toLowerCase(Locale.ENGLISH);
+        long hash = NAME_SEED;
+
+        for (int i = 0; i < name.length(); i++) {
+            hash = (hash ^ name.charAt(i)) * 0x100000001B3L;
+        }
+
+        return mix(hash);
+    }
+
+    private static long mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        value = (value ^ (value >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return value ^ (value >>> 33);
+    }
+}
@@ -12,13 +12,16 @@ import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
 import com.gmail.nossr50.datatypes.skills.SuperAbilityType;
 import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.runnables.database.UUIDUpdateAsyncTask;
+import com.gmail.nossr50.util.LatencyHistogram;
 import com.gmail.nossr50.util.Misc;
 import org.apache.tomcat.jdbc.pool.DataSource;
 import org.apache.tomcat.jdbc.pool.PoolProperties;
+import org.apache.tomcat.jdbc.pool.interceptor.StatementCache;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.locks.ReentrantLock;
 
 public final class SQLDatabaseManager implements DatabaseManager {
@@ -32,6 +35,37 @@ public final class SQLDatabaseManager implements DatabaseManager {
     private DataSource savePool;
 
     private ReentrantLock massUpdateLock = new ReentrantLock();
+    private KnownUserFilter knownUsers;
+
+    private final Map<String, LatencyHistogram> statementLatencies = new ConcurrentHashMap<String, LatencyHistogram>();
+
+    private final String updateLastLoginQuery = "UPDATE " + tablePrefix + "users SET lastlogin = UNIX_TIMESTAMP() WHERE id = ?";
+    private final String updateSkillsQuery = "UPDATE " + tablePrefix + "skills SET "
+            + " taming = ?, mining = ?, repair = ?, woodcutting = ?"
+            + ", unarmed = ?, herbalism = ?, excavation = ?"
+            + ", archery = ?, swords = ?, axes = ?, acrobatics = ?"
+            + ", fishing = ?, alchemy = ?, total = ? WHERE user_id = ?";
+    private final String updateExperienceQuery = "UPDATE " + tablePrefix + "experience SET "
+            + " taming = ?, mining = ?, repair = ?, woodcutting = ?"
+            + ", unarmed = ?, herbalism = ?, excavation = ?"
+            + ", archery = ?, swords = ?, axes = ?, acrobatics = ?"
+            + ", fishing = ?, alchemy = ? WHERE user_id = ?";
+    private final String updateCooldownsQuery = "UPDATE " + tablePrefix + "cooldowns SET "
+            + "  mining = ?, woodcutting = ?, unarmed = ?"
+            + ", herbalism = ?, excavation = ?, swords = ?"
+            + ", axes = ?, blast_mining = ?, chimaera_wing = ? WHERE user_id = ?";
+    private final String updateHudsQuery = "UPDATE " + tablePrefix + "huds SET mobhealthbar = ?, scoreboardtips = ? WHERE user_id = ?";
+    private final String loadProfileQuery = "SELECT "
+            + "s.taming, s.mining, s.repair, s.woodcutting, s.unarmed, s.herbalism, s.excavation, s.archery, s.swords, s.axes, s.acrobatics, s.fishing, s.alchemy, "
+            + "e.taming, e.mining, e.repair, e.woodcutting, e.unarmed, e.herbalism, e.excavation, e.archery, e.swords, e.axes, e.acrobatics, e.fishing, e.alchemy, "
+            + "c.taming, c.mining, c.repair, c.woodcutting, c.unarmed, c.herbalism, c.excavation, c.archery, c.swords, c.axes, c.acrobatics, c.blast_mining, c.chimaera_wing, "
+            + "h.mobhealthbar, h.scoreboardtips, u.uuid, u.user "
+            + "FROM " + tablePrefix + "users u "
+            + "JOIN " + tablePrefix + "skills s ON (u.id = s.user_id) "
+            + "JOIN " + tablePrefix + "experience e ON (u.id = e.user_id) "
+            + "JOIN " + tablePrefix + "cooldowns c ON (u.id = c.user_id) "
+            + "JOIN " + tablePrefix + "huds h ON (u.id = h.user_id) "
+            + "WHERE u.id = ?";
 
     protected SQLDatabaseManager() {
         String connectionString = "jdbc:mysql://" + Config.getInstance().getMySQLServerName()
@@ -46,6 +80,9 @@ public final class SQLDatabaseManager implements DatabaseManager {
             connectionString+=
                     "?useSSL=false";
 
+        // Server-side prepared statements, so the pooled statement cache saves the server from re-parsing our queries
+        connectionString += "&useServerPrepStmts=true";
+
         try {
             // Force driver to load if not yet loaded
             Class.forName("com.mysql.jdbc.Driver");
@@ -57,53 +94,32 @@ public final class SQLDatabaseManager implements DatabaseManager {
         }
 
 
+        miscPool = createPool(connectionString, PoolIdentifier.MISC);
+        savePool = createPool(connectionString, PoolIdentifier.SAVE);
+        loadPool = createPool(connectionString, PoolIdentifier.LOAD);
+
+        checkStructure();
+        loadKnownUsers();
+    }
+
+    private DataSource createPool(String connectionString, PoolIdentifier identifier) {
         PoolProperties poolProperties = new PoolProperties();
         poolProperties.setDriverClassName("com.mysql.jdbc.Driver");
         poolProperties.setUrl(connectionString);
         poolProperties.setUsername(Config.getInstance().getMySQLUserName());
         poolProperties.setPassword(Config.getInstance().getMySQLUserPassword());
-        poolProperties.setMaxIdle(Config.getInstance().getMySQLMaxPoolSize(PoolIdentifier.MISC));
-        poolProperties.setMaxActive(Config.getInstance().getMySQLMaxConnections(PoolIdentifier.MISC));
-        poolProperties.setInitialSize(0);
-        poolProperties.setMaxWait(-1);
-        poolProperties.setRemoveAbandoned(true);
-        poolProperties.setRemoveAbandonedTimeout(60);
-        poolProperties.setTestOnBorrow(true);
-        poolProperties.setValidationQuery("SELECT 1");
-        poolProperties.setValidationInterval(30000);
-        miscPool = new DataSource(poolProperties);
-        poolProperties = new PoolProperties();
-        poolProperties.setDriverClassName("com.mysql.jdbc.Driver");
-        poolProperties.setUrl(connectionString);
-        poolProperties.setUsername(Config.getInstance().getMySQLUserName());
-        poolProperties.setPassword(Config.getInstance().getMySQLUserPassword());
-        poolProperties.setInitialSize(0);
-        poolProperties.setMaxIdle(Config.getInstance().getMySQLMaxPoolSize(PoolIdentifier.SAVE));
-        poolProperties.setMaxActive(Config.getInstance().getMySQLMaxConnections(PoolIdentifier.SAVE));
-        poolProperties.setMaxWait(-1);
-        poolProperties.setRemoveAbandoned(true);
-        poolProperties.setRemoveAbandonedTimeout(60);
-        poolProperties.setTestOnBorrow(true);
-        poolProperties.setValidationQuery("SELECT 1");
-        poolProperties.setValidationInterval(30000);
-        savePool = new DataSource(poolProperties);
-        poolProperties = new PoolProperties();
-        poolProperties.setDriverClassName("com.mysql.jdbc.Driver");
-        poolProperties.setUrl(connectionString);
-        poolProperties.setUsername(Config.getInstance().getMySQLUserName());
-        poolProperties.setPassword(Config.getInstance().getMySQLUserPassword());
         poolProperties.setInitialSize(0);
-        poolProperties.setMaxIdle(Config.getInstance().getMySQLMaxPoolSize(PoolIdentifier.LOAD));
-        poolProperties.setMaxActive(Config.getInstance().getMySQLMaxConnections(PoolIdentifier.LOAD));
+        poolProperties.setMaxIdle(Config.getInstance().getMySQLMaxPoolSize(identifier));
+        poolProperties.setMaxActive(Config.getInstance().getMySQLMaxConnections(identifier));
         poolProperties.setMaxWait(-1);
         poolProperties.setRemoveAbandoned(true);
         poolProperties.setRemoveAbandonedTimeout(60);
         poolProperties.setTestOnBorrow(true);
         poolProperties.setValidationQuery("SELECT 1");
         poolProperties.setValidationInterval(30000);
-        loadPool = new DataSource(poolProperties);
-
-        checkStructure();
+        // Keep prepared statements open per pooled connection instead of re-preparing them on every call
+        poolProperties.setJdbcInterceptors(StatementCache.class.getName() + "(prepared=true,callable=false,max=" + Config.getInstance().getMySQLStatementCacheSize() + ")");
+        return new DataSource(poolProperties);
     }
 
     public void purgePowerlessUsers() {
@@ -210,6 +226,7 @@ public final class SQLDatabaseManager implements DatabaseManager {
         boolean success = true;
         PreparedStatement statement = null;
         Connection connection = null;
+        long startTime = System.nanoTime();
 
         try {
             connection = getConnection(PoolIdentifier.SAVE);
@@ -224,20 +241,20 @@ public final class SQLDatabaseManager implements DatabaseManager {
                 }
             }
 
-            statement = connection.prepareStatement("UPDATE " + tablePrefix + "users SET lastlogin = UNIX_TIMESTAMP() WHERE id = ?");
+            // Write every table in one transaction, so a failure part-way through can't leave a half-saved profile behind
+            connection.setAutoCommit(false);
+
+            statement = connection.prepareStatement(updateLastLoginQuery);
             statement.setInt(1, id);
-            success &= (statement.executeUpdate() != 0);
+            success &= (executeUpdate("save.users", statement) != 0);
             statement.close();
             if (!success) {
                 mcMMO.p.getLogger().severe("Failed to update last login for " + profile.getPlayerName());
+                connection.rollback();
                 return false;
             }
 
-            statement = connection.prepareStatement("UPDATE " + tablePrefix + "skills SET "
-                    + " taming = ?, mining = ?, repair = ?, woodcutting = ?"
-                    + ", unarmed = ?, herbalism = ?, excavation = ?"
-                    + ", archery = ?, swords = ?, axes = ?, acrobatics = ?"
-                    + ", fishing = ?, alchemy = ?, total = ? WHERE user_id = ?");
+            statement = connection.prepareStatement(updateSkillsQuery);
             statement.setInt(1, profile.getSkillLevel(PrimarySkillType.TAMING));
             statement.setInt(2, profile.getSkillLevel(PrimarySkillType.MINING));
             statement.setInt(3, profile.getSkillLevel(PrimarySkillType.REPAIR));
@@ -256,18 +273,15 @@ public final class SQLDatabaseManager implements DatabaseManager {
                 total += profile.getSkillLevel(primarySkillType);
             statement.setInt(14, total);
             statement.setInt(15, id);
-            success &= (statement.executeUpdate() != 0);
+            success &= (executeUpdate("save.skills", statement) != 0);
             statement.close();
             if (!success) {
                 mcMMO.p.getLogger().severe("Failed to update skills for " + profile.getPlayerName());
+                connection.rollback();
                 return false;
             }
 
-            statement = connection.prepareStatement("UPDATE " + tablePrefix + "experience SET "
-                    + " taming = ?, mining = ?, repair = ?, woodcutting = ?"
-                    + ", unarmed = ?, herbalism = ?, excavation = ?"
-                    + ", archery = ?, swords = ?, axes = ?, acrobatics = ?"
-                    + ", fishing = ?, alchemy = ? WHERE user_id = ?");
+            statement = connection.prepareStatement(updateExperienceQuery);
             statement.setInt(1, profile.getSkillXpLevel(PrimarySkillType.TAMING));
             statement.setInt(2, profile.getSkillXpLevel(PrimarySkillType.MINING));
             statement.setInt(3, profile.getSkillXpLevel(PrimarySkillType.REPAIR));
@@ -282,17 +296,15 @@ public final class SQLDatabaseManager implements DatabaseManager {
             statement.setInt(12, profile.getSkillXpLevel(PrimarySkillType.FISHING));
             statement.setInt(13, profile.getSkillXpLevel(PrimarySkillType.ALCHEMY));
             statement.setInt(14, id);
-            success &= (statement.executeUpdate() != 0);
+            success &= (executeUpdate("save.experience", statement) != 0);
             statement.close();
             if (!success) {
                 mcMMO.p.getLogger().severe("Failed to update experience for " + profile.getPlayerName());
+                connection.rollback();
                 return false;
             }
 
-            statement = connection.prepareStatement("UPDATE " + tablePrefix + "cooldowns SET "
-                    + "  mining = ?, woodcutting = ?, unarmed = ?"
-                    + ", herbalism = ?, excavation = ?, swords = ?"
-                    + ", axes = ?, blast_mining = ?, chimaera_wing = ? WHERE user_id = ?");
+            statement = connection.prepareStatement(updateCooldownsQuery);
             statement.setLong(1, profile.getAbilityDATS(SuperAbilityType.SUPER_BREAKER));
             statement.setLong(2, profile.getAbilityDATS(SuperAbilityType.TREE_FELLER));
             statement.setLong(3, profile.getAbilityDATS(SuperAbilityType.BERSERK));
@@ -303,30 +315,38 @@ public final class SQLDatabaseManager implements DatabaseManager {
             statement.setLong(8, profile.getAbilityDATS(SuperAbilityType.BLAST_MINING));
             statement.setLong(9, profile.getUniqueData(UniqueDataType.CHIMAERA_WING_DATS));
             statement.setInt(10, id);
-            success = (statement.executeUpdate() != 0);
+            success = (executeUpdate("save.cooldowns", statement) != 0);
             statement.close();
             if (!success) {
                 mcMMO.p.getLogger().severe("Failed to update cooldowns for " + profile.getPlayerName());
+                connection.rollback();
                 return false;
             }
 
-            statement = connection.prepareStatement("UPDATE " + tablePrefix + "huds SET mobhealthbar = ?, scoreboardtips = ? WHERE user_id = ?");
+            statement = connection.prepareStatement(updateHudsQuery);
             statement.setString(1, profile.getMobHealthbarType() == null ? Config.getInstance().getMobHealthbarDefault().name() : profile.getMobHealthbarType().name());
             statement.setInt(2, profile.getScoreboardTipsShown());
             statement.setInt(3, id);
-            success = (statement.executeUpdate() != 0);
+            success = (executeUpdate("save.huds", statement) != 0);
             statement.close();
             if (!success) {
                 mcMMO.p.getLogger().severe("Failed to update hud settings for " + profile.getPlayerName());
+                connection.rollback();
                 return false;
             }
+
+            connection.commit();
         }
         catch (SQLException ex) {
             printErrors(ex);
+            tryRollback(connection);
+            success = false;
         }
         finally {
             tryClose(statement);
+            tryRestoreAutoCommit(connection);
             tryClose(connection);
+            getStatementLatency("save").recordSince(startTime);
         }
 
         return success;
@@ -505,8 +525,19 @@ public final class SQLDatabaseManager implements DatabaseManager {
                 return -1;
             }
 
-            writeMissingRows(connection, resultSet.getInt(1));
-            return resultSet.getInt(1);
+            int id = resultSet.getInt(1);
+
+            writeMissingRows(connection, id);
+
+            if (knownUsers != null) {
+                knownUsers.add(playerName, uuid);
+            }
+
+            if (uuid != null) {
+                cachedUserIDs.put(uuid, id);
+            }
+
+            return id;
         }
         catch (SQLException ex) {
             printErrors(ex);
@@ -538,6 +569,18 @@ public final class SQLDatabaseManager implements DatabaseManager {
 
         try {
             connection = getConnection(PoolIdentifier.LOAD);
+
+            // Brand new players can't have any rows yet, so skip looking them up
+            if (create && knownUsers != null && knownUsers.isDefinitelyNew(playerName, uuid)) {
+                int id = newUser(connection, playerName, uuid);
+
+                if (id != -1) {
+                    return new PlayerProfile(playerName, uuid, true);
+                }
+
+                // Another server sharing this database may have created them, fall back on a real lookup
+            }
+
             int id = getUserID(connection, playerName, uuid);
 
             if (id == -1) {
@@ -555,21 +598,12 @@ public final class SQLDatabaseManager implements DatabaseManager {
             // There is such a user
             writeMissingRows(connection, id);
 
-            statement = connection.prepareStatement(
-                    "SELECT "
-                            + "s.taming, s.mining, s.repair, s.woodcutting, s.unarmed, s.herbalism, s.excavation, s.archery, s.swords, s.axes, s.acrobatics, s.fishing, s.alchemy, "
-                            + "e.taming, e.mining, e.repair, e.woodcutting, e.unarmed, e.herbalism, e.excavation, e.archery, e.swords, e.axes, e.acrobatics, e.fishing, e.alchemy, "
-                            + "c.taming, c.mining, c.repair, c.woodcutting, c.unarmed, c.herbalism, c.excavation, c.archery, c.swords, c.axes, c.acrobatics, c.blast_mining, c.chimaera_wing, "
-                            + "h.mobhealthbar, h.scoreboardtips, u.uuid, u.user "
-                            + "FROM " + tablePrefix + "users u "
-                            + "JOIN " + tablePrefix + "skills s ON (u.id = s.user_id) "
-                            + "JOIN " + tablePrefix + "experience e ON (u.id = e.user_id) "
-                            + "JOIN " + tablePrefix + "cooldowns c ON (u.id = c.user_id) "
-                            + "JOIN " + tablePrefix + "huds h ON (u.id = h.user_id) "
-                            + "WHERE u.id = ?");
+            statement = connection.prepareStatement(loadProfileQuery);
             statement.setInt(1, id);
 
+            long queryStart = System.nanoTime();
             resultSet = statement.executeQuery();
+            getStatementLatency("load.profile").recordSince(queryStart);
 
             if (resultSet.next()) {
                 try {
@@ -687,6 +721,11 @@ public final class SQLDatabaseManager implements DatabaseManager {
             statement.setString(1, uuid.toString());
             statement.setString(2, userName);
             statement.execute();
+
+            if (knownUsers != null) {
+                knownUsers.add(userName, uuid);
+            }
+
             return true;
         }
         catch (SQLException ex) {
@@ -715,6 +754,10 @@ public final class SQLDatabaseManager implements DatabaseManager {
 
                 statement.addBatch();
 
+                if (knownUsers != null) {
+                    knownUsers.add(entry.getKey(), entry.getValue());
+                }
+
                 count++;
 
                 if ((count % 500) == 0) {
@@ -739,6 +782,59 @@ public final class SQLDatabaseManager implements DatabaseManager {
         }
     }
 
+    /**
+     * Build the known user filter from a single streaming scan of the users table.
+     */
+    private void loadKnownUsers() {
+        Statement statement = null;
+        ResultSet resultSet = null;
+        Connection connection = null;
+
+        try {
+            connection = getConnection(PoolIdentifier.MISC);
+            statement = connection.createStatement();
+            resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + tablePrefix + "users");
+            resultSet.next();
+
+            KnownUserFilter filter = new KnownUserFilter(resultSet.getLong(1));
+
+            resultSet.close();
+            statement.close();
+
+            // A fetch size of Integer.MIN_VALUE makes the MySQL driver stream rows instead of buffering the whole table
+            statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(Integer.MIN_VALUE);
+            resultSet = statement.executeQuery("SELECT user, uuid FROM " + tablePrefix + "users");
+
+            while (resultSet.next()) {
+                String uuid = resultSet.getString(2);
+                UUID parsedUUID = null;
+
+                if (uuid != null) {
+                    try {
+                        parsedUUID = UUID.fromString(uuid);
+                    }
+                    catch (IllegalArgumentException e) {
+                        // Malformed uuid, the name alone still covers this row
+                    }
+                }
+
+                filter.add(resultSet.getString(1), parsedUUID);
+            }
+
+            knownUsers = filter;
+        }
+        catch (SQLException ex) {
+            // Leave the filter disabled, every load will fall back on a real lookup
+            printErrors(ex);
+        }
+        finally {
+            tryClose(resultSet);
+            tryClose(statement);
+            tryClose(connection);
+        }
+    }
+
     public List<String> getStoredUsers() {
         ArrayList<String> users = new ArrayList<String>();
 
@@ -925,7 +1021,7 @@ public final class SQLDatabaseManager implements DatabaseManager {
 
     }
 
-    private Connection getConnection(PoolIdentifier identifier) throws SQLException {
+    Connection getConnection(PoolIdentifier identifier) throws SQLException {
         Connection connection = null;
         switch (identifier) {
             case LOAD:
@@ -1486,6 +1582,65 @@ public final class SQLDatabaseManager implements DatabaseManager {
         return -1;
     }
     
+    private int executeUpdate(String name, PreparedStatement statement) throws SQLException {
+        long startTime = System.nanoTime();
+
+        try {
+            return statement.executeUpdate();
+        }
+        finally {
+            getStatementLatency(name).recordSince(startTime);
+        }
+    }
+
+    private LatencyHistogram getStatementLatency(String name) {
+        LatencyHistogram histogram = statementLatencies.get(name);
+
+        if (histogram == null) {
+            histogram = new LatencyHistogram();
+            LatencyHistogram existing = statementLatencies.putIfAbsent(name, histogram);
+
+            if (existing != null) {
+                histogram = existing;
+            }
+        }
+
+        return histogram;
+    }
+
+    /**
+     * Get the latency histograms for the statements we time, keyed by statement name.
+     *
+     * @return an unmodifiable view of the statement latency histograms
+     */
+    public Map<String, LatencyHistogram> getStatementLatencies() {
+        return Collections.unmodifiableMap(statementLatencies);
+    }
+
+    private void tryRollback(Connection connection) {
+        if (connection != null) {
+            try {
+                if (!connection.getAutoCommit()) {
+                    connection.rollback();
+                }
+            }
+            catch (SQLException e) {
+                // Ignore
+            }
+        }
+    }
+
+    private void tryRestoreAutoCommit(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.setAutoCommit(true);
+            }
+            catch (SQLException e) {
+                // Ignore
+            }
+        }
+    }
+
     private void tryClose(AutoCloseable closeable) {
         if (closeable != null) {
             try {
@@ -1499,6 +1654,10 @@ public final class SQLDatabaseManager implements DatabaseManager {
 
     @Override
     public void onDisable() {
+        for (Map.Entry<String, LatencyHistogram> entry : statementLatencies.entrySet()) {
+            mcMMO.p.debug("SQL latency for " + entry.getKey() + ": " + entry.getValue());
+        }
+
         mcMMO.p.debug("Releasing connection pool resource...");
         miscPool.close();
         loadPool.close();
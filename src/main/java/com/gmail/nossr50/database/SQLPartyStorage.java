@@ -0,0 +1,346 @@
+package com.gmail.nossr50.database;
+
+import com.gmail.nossr50.config.Config;
+import com.gmail.nossr50.database.SQLDatabaseManager.PoolIdentifier;
+import com.gmail.nossr50.datatypes.party.ItemShareType;
+import com.gmail.nossr50.datatypes.party.ShareMode;
+import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.party.PartySnapshot;
+import com.gmail.nossr50.party.PartyStorage;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stores parties in the MySQL database, using the save pool of the {@link SQLDatabaseManager}.
+ * <p>
+ * Each save runs in a single transaction and only touches the rows of parties that changed.
+ */
+public class SQLPartyStorage implements PartyStorage {
+    private final SQLDatabaseManager databaseManager;
+    private final String tablePrefix = Config.getInstance().getMySQLTablePrefix();
+
+    private final String upsertPartyQuery = "INSERT INTO " + tablePrefix + "parties "
+            + "(name, leader_uuid, leader_name, password, locked, level, xp, ally, xp_share_mode, item_share_mode, item_share_types) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+            + "leader_uuid = VALUES(leader_uuid), leader_name = VALUES(leader_name), password = VALUES(password), locked = VALUES(locked), "
+            + "level = VALUES(level), xp = VALUES(xp), ally = VALUES(ally), xp_share_mode = VALUES(xp_share_mode), "
+            + "item_share_mode = VALUES(item_share_mode), item_share_types = VALUES(item_share_types)";
+    private final String deletePartyQuery = "DELETE FROM " + tablePrefix + "parties WHERE name = ?";
+    private final String deleteMembersQuery = "DELETE FROM " + tablePrefix + "party_members WHERE party_name = ?";
+    private final String insertMemberQuery = "INSERT INTO " + tablePrefix + "party_members (party_name, position, uuid, name) VALUES (?, ?, ?, ?)";
+
+    public SQLPartyStorage(SQLDatabaseManager databaseManager) {
+        this.databaseManager = databaseManager;
+        checkStructure();
+    }
+
+    @Override
+    public List<PartySnapshot> load() {
+        List<PartySnapshot> parties = new ArrayList<PartySnapshot>();
+        Map<String, Map<UUID, String>> members = new HashMap<String, Map<UUID, String>>();
+        Connection connection = null;
+        Statement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            connection = databaseManager.getConnection(PoolIdentifier.MISC);
+            statement = connection.createStatement();
+
+            resultSet = statement.executeQuery("SELECT party_name, uuid, name FROM " + tablePrefix + "party_members ORDER BY party_name, position");
+
+            while (resultSet.next()) {
+                String partyName = resultSet.getString(1).toLowerCase(Locale.ENGLISH);
+                Map<UUID, String> partyMembers = members.get(partyName);
+
+                if (partyMembers == null) {
+                    partyMembers = new LinkedHashMap<UUID, String>();
+                    members.put(partyName, partyMembers);
+                }
+
+                try {
+                    partyMembers.put(UUID.fromString(resultSet.getString(2)), resultSet.getString(3));
+                }
+                catch (IllegalArgumentException e) {
+                    // Malformed uuid, drop the member
+                }
+            }
+
+            resultSet.close();
+            resultSet = statement.executeQuery("SELECT name, leader_uuid, leader_name, password, locked, level, xp, ally, xp_share_mode, item_share_mode, item_share_types FROM " + tablePrefix + "parties");
+
+            while (resultSet.next()) {
+                String partyName = resultSet.getString("name");
+
+                try {
+                    Map<UUID, String> partyMembers = members.get(partyName.toLowerCase(Locale.ENGLISH));
+
+                    parties.add(new PartySnapshot(partyName,
+                            UUID.fromString(resultSet.getString("leader_uuid")),
+                            resultSet.getString("leader_name"),
+                            resultSet.getString("password"),
+                            resultSet.getBoolean("locked"),
+                            resultSet.getInt("level"),
+                            resultSet.getInt("xp"),
+                            resultSet.getString("ally"),
+                            ShareMode.getShareMode(resultSet.getString("xp_share_mode")),
+                            ShareMode.getShareMode(resultSet.getString("item_share_mode")),
+                            parseItemShareTypes(resultSet.getString("item_share_types")),
+                            partyMembers == null ? new LinkedHashMap<UUID, String>() : partyMembers));
+                }
+                catch (IllegalArgumentException e) {
+                    mcMMO.p.getLogger().warning("Could not load party " + partyName + " from the database: " + e.toString());
+                }
+            }
+        }
+        catch (SQLException ex) {
+            printErrors(ex);
+        }
+        finally {
+            tryClose(resultSet);
+            tryClose(statement);
+            tryClose(connection);
+        }
+
+        return parties;
+    }
+
+    @Override
+    public void save(Collection<PartySnapshot> changed, Collection<String> removedNames) throws SQLException {
+        Connection connection = null;
+        PreparedStatement upsertParty = null;
+        PreparedStatement deleteParty = null;
+        PreparedStatement deleteMembers = null;
+        PreparedStatement insertMember = null;
+
+        try {
+            connection = databaseManager.getConnection(PoolIdentifier.SAVE);
+            connection.setAutoCommit(false);
+
+            deleteParty = connection.prepareStatement(deletePartyQuery);
+            deleteMembers = connection.prepareStatement(deleteMembersQuery);
+
+            for (String partyName : removedNames) {
+                deleteParty.setString(1, partyName);
+                deleteParty.addBatch();
+                deleteMembers.setString(1, partyName);
+                deleteMembers.addBatch();
+            }
+
+            if (!removedNames.isEmpty()) {
+                deleteParty.executeBatch();
+                deleteMembers.executeBatch();
+            }
+
+            upsertParty = connection.prepareStatement(upsertPartyQuery);
+            insertMember = connection.prepareStatement(insertMemberQuery);
+
+            for (PartySnapshot party : changed) {
+                upsertParty.setString(1, party.getName());
+                upsertParty.setString(2, party.getLeaderUniqueId().toString());
+                upsertParty.setString(3, party.getLeaderName());
+                upsertParty.setString(4, party.getPassword());
+                upsertParty.setBoolean(5, party.isLocked());
+                upsertParty.setInt(6, party.getLevel());
+                upsertParty.setInt(7, party.getXp());
+                upsertParty.setString(8, party.getAllyName());
+                upsertParty.setString(9, party.getXpShareMode().toString());
+                upsertParty.setString(10, party.getItemShareMode().toString());
+                upsertParty.setString(11, formatItemShareTypes(party));
+                upsertParty.addBatch();
+
+                deleteMembers.setString(1, party.getName());
+                deleteMembers.addBatch();
+
+                int position = 0;
+
+                for (Entry<UUID, String> member : party.getMembers().entrySet()) {
+                    if (member.getKey() == null) {
+                        continue;
+                    }
+
+                    insertMember.setString(1, party.getName());
+                    insertMember.setInt(2, position++);
+                    insertMember.setString(3, member.getKey().toString());
+                    insertMember.setString(4, member.getValue());
+                    insertMember.addBatch();
+                }
+            }
+
+            if (!changed.isEmpty()) {
+                upsertParty.executeBatch();
+                deleteMembers.executeBatch();
+                insertMember.executeBatch();
+            }
+
+            connection.commit();
+        }
+        catch (SQLException ex) {
+            tryRollback(connection);
+            throw ex;
+        }
+        finally {
+            tryClose(upsertParty);
+            tryClose(deleteParty);
+            tryClose(deleteMembers);
+            tryClose(insertMember);
+            tryRestoreAutoCommit(connection);
+            tryClose(connection);
+        }
+    }
+
+    /**
+     * Check whether the party tables hold any parties yet.
+     *
+     * @return true if no party has been stored in the database
+     */
+    public boolean isEmpty() {
+        Connection connection = null;
+        Statement statement = null;
+        ResultSet resultSet = null;
+
+        try {
+            connection = databaseManager.getConnection(PoolIdentifier.MISC);
+            statement = connection.createStatement();
+            resultSet = statement.executeQuery("SELECT 1 FROM " + tablePrefix + "parties LIMIT 1");
+
+            return !resultSet.next();
+        }
+        catch (SQLException ex) {
+            printErrors(ex);
+            return false;
+        }
+        finally {
+            tryClose(resultSet);
+            tryClose(statement);
+            tryClose(connection);
+        }
+    }
+
+    private void checkStructure() {
+        Connection connection = null;
+        Statement statement = null;
+
+        try {
+            connection = databaseManager.getConnection(PoolIdentifier.MISC);
+            statement = connection.createStatement();
+
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS `" + tablePrefix + "parties` ("
+                    + "`name` varchar(64) NOT NULL,"
+                    + "`leader_uuid` varchar(36) NOT NULL,"
+                    + "`leader_name` varchar(40) NOT NULL,"
+                    + "`password` varchar(64) NULL DEFAULT NULL,"
+                    + "`locked` tinyint(1) NOT NULL DEFAULT '1',"
+                    + "`level` int(10) NOT NULL DEFAULT '0',"
+                    + "`xp` int(10) NOT NULL DEFAULT '0',"
+                    + "`ally` varchar(64) NULL DEFAULT NULL,"
+                    + "`xp_share_mode` varchar(16) NOT NULL DEFAULT 'NONE',"
+                    + "`item_share_mode` varchar(16) NOT NULL DEFAULT 'NONE',"
+                    + "`item_share_types` varchar(255) NOT NULL DEFAULT '',"
+                    + "PRIMARY KEY (`name`)) "
+                    + "DEFAULT CHARSET=latin1;");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS `" + tablePrefix + "party_members` ("
+                    + "`party_name` varchar(64) NOT NULL,"
+                    + "`position` int(10) NOT NULL DEFAULT '0',"
+                    + "`uuid` varchar(36) NOT NULL,"
+                    + "`name` varchar(40) NOT NULL,"
+                    + "PRIMARY KEY (`party_name`, `uuid`)) "
+                    + "DEFAULT CHARSET=latin1;");
+        }
+        catch (SQLException ex) {
+            printErrors(ex);
+        }
+        finally {
+            tryClose(statement);
+            tryClose(connection);
+        }
+    }
+
+    private static String formatItemShareTypes(PartySnapshot party) {
+        StringBuilder builder = new StringBuilder();
+
+        for (ItemShareType itemShareType : ItemShareType.values()) {
+            if (party.isSharing(itemShareType)) {
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+
+                builder.append(itemShareType.name());
+            }
+        }
+
+        return builder.toString();
+    }
+
+    private static Set<ItemShareType> parseItemShareTypes(String value) {
+        Set<ItemShareType> itemShareTypes = EnumSet.noneOf(ItemShareType.class);
+
+        if (value == null || value.isEmpty()) {
+            return itemShareTypes;
+        }
+
+        for (String name : value.split(",")) {
+            try {
+                itemShareTypes.add(ItemShareType.valueOf(name));
+            }
+            catch (IllegalArgumentException e) {
+                // Unknown share type from a newer version, ignore it
+            }
+        }
+
+        return itemShareTypes;
+    }
+
+    private static void printErrors(SQLException ex) {
+        mcMMO.p.getLogger().severe("SQLException: " + ex.getMessage());
+        mcMMO.p.getLogger().severe("SQLState: " + ex.getSQLState());
+        mcMMO.p.getLogger().severe("VendorError: " + ex.getErrorCode());
+    }
+
+    private static void tryRollback(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.rollback();
+            }
+            catch (SQLException e) {
+                // Ignore
+            }
+        }
+    }
+
+    private static void tryRestoreAutoCommit(Connection connection) {
+        if (connection != null) {
+            try {
+                connection.setAutoCommit(true);
+            }
+            catch (SQLException e) {
+                // Ignore
+            }
+        }
+    }
+
+    private static void tryClose(AutoCloseable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            }
+            catch (Exception e) {
+                // Ignore
+            }
+        }
+    }
+}
@@ -5,7 +5,10 @@ import org.bukkit.metadata.FixedMetadataValue;
 
 /**
  * This class is for storing mob names since we switch them to heart values
+ *
+ * @deprecated Original names are kept by {@link com.gmail.nossr50.util.MobHealthbarUtils}, mcMMO no longer stores them as metadata
  */
+@Deprecated
 public class OldName extends FixedMetadataValue {
 
     public OldName(String oldName, mcMMO plugin)
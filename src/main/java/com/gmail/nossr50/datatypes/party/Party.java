@@ -6,6 +6,7 @@ import com.gmail.nossr50.datatypes.experience.FormulaType;
 import com.gmail.nossr50.locale.LocaleLoader;
 import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.party.PartyManager;
+import com.gmail.nossr50.party.PartyPositionCache;
 import com.gmail.nossr50.util.EventUtils;
 import com.gmail.nossr50.util.sounds.SoundManager;
 import com.gmail.nossr50.util.sounds.SoundType;
@@ -18,10 +19,12 @@ import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Party {
     private final LinkedHashMap<UUID, String> members = new LinkedHashMap<UUID, String>();
-    private final List<Player> onlineMembers = new ArrayList<Player>();
+    // Copy-on-write so chat can be delivered from async chat threads
+    private final List<Player> onlineMembers = new CopyOnWriteArrayList<Player>();
 
     private PartyLeader leader;
     private String name;
@@ -40,6 +43,9 @@ public class Party {
     private boolean shareWoodcuttingDrops = true;
     private boolean shareMiscDrops        = true;
 
+    // Whether this party has changes that have not been handed to the party storage yet
+    private boolean dirty = true;
+
     public Party(String name) {
         this.name = name;
     }
@@ -102,10 +108,12 @@ public class Party {
     }
 
     public boolean addOnlineMember(Player player) {
+        PartyPositionCache.invalidate();
         return onlineMembers.add(player);
     }
 
     public boolean removeOnlineMember(Player player) {
+        PartyPositionCache.invalidate();
         return onlineMembers.remove(player);
     }
 
@@ -143,22 +151,27 @@ public class Party {
 
     public void setName(String name) {
         this.name = name;
+        dirty = true;
     }
 
     public void setLeader(PartyLeader leader) {
         this.leader = leader;
+        dirty = true;
     }
 
     public void setPassword(String password) {
         this.password = password;
+        dirty = true;
     }
 
     public void setLocked(boolean locked) {
         this.locked = locked;
+        dirty = true;
     }
 
     public void setAlly(Party ally) {
         this.ally = ally;
+        dirty = true;
     }
 
     public int getLevel() {
@@ -167,6 +180,7 @@ public class Party {
 
     public void setLevel(int level) {
         this.level = level;
+        dirty = true;
     }
 
     public float getXp() {
@@ -175,6 +189,7 @@ public class Party {
 
     public void setXp(float xp) {
         this.xp = xp;
+        dirty = true;
     }
 
     public void addXp(float xp) {
@@ -253,6 +268,7 @@ public class Party {
 
     public void setXpShareMode(ShareMode xpShareMode) {
         this.xpShareMode = xpShareMode;
+        dirty = true;
     }
 
     public ShareMode getXpShareMode() {
@@ -261,6 +277,7 @@ public class Party {
 
     public void setItemShareMode(ShareMode itemShareMode) {
         this.itemShareMode = itemShareMode;
+        dirty = true;
     }
 
     public ShareMode getItemShareMode() {
@@ -314,6 +331,27 @@ public class Party {
             default:
                 return;
         }
+
+        dirty = true;
+    }
+
+    /**
+     * Check whether this party changed since it was last handed to the party storage.
+     *
+     * @return true if the party needs to be saved
+     */
+    public boolean isDirty() {
+        return dirty;
+    }
+
+    /**
+     * Flag this party as changed or saved.
+     * Changes to {@link #getMembers()} are not tracked automatically, mark the party dirty after modifying it.
+     *
+     * @param dirty true if the party needs to be saved
+     */
+    public void setDirty(boolean dirty) {
+        this.dirty = dirty;
     }
 
     public boolean hasMember(String memberName) {
@@ -1,5 +1,6 @@
 package com.gmail.nossr50.datatypes.player;
 
+import com.gmail.nossr50.chat.ChatSpyManager;
 import com.gmail.nossr50.config.AdvancedConfig;
 import com.gmail.nossr50.config.Config;
 import com.gmail.nossr50.config.WorldBlacklist;
@@ -12,6 +13,7 @@ import com.gmail.nossr50.datatypes.mods.CustomTool;
 import com.gmail.nossr50.datatypes.party.Party;
 import com.gmail.nossr50.datatypes.party.PartyTeleportRecord;
 import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
+import com.gmail.nossr50.datatypes.skills.SubSkillType;
 import com.gmail.nossr50.datatypes.skills.SuperAbilityType;
 import com.gmail.nossr50.datatypes.skills.ToolType;
 import com.gmail.nossr50.locale.LocaleLoader;
@@ -59,8 +61,7 @@ import org.bukkit.inventory.ItemStack;
 import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.plugin.Plugin;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Set;
 import java.util.UUID;
 
@@ -68,7 +69,8 @@ public class McMMOPlayer {
     private Player        player;
     private PlayerProfile profile;
 
-    private final Map<PrimarySkillType, SkillManager> skillManagers = new HashMap<PrimarySkillType, SkillManager>();
+    // Indexed by PrimarySkillType ordinal
+    private final SkillManager[] skillManagers = new SkillManager[PrimarySkillType.values().length];
     private ExperienceBarManager experienceBarManager;
 
     private Party   party;
@@ -86,10 +88,12 @@ public class McMMOPlayer {
     private boolean godMode;
     private boolean chatSpy = false; //Off by default
 
-    private final Map<SuperAbilityType, Boolean> abilityMode     = new HashMap<SuperAbilityType, Boolean>();
-    private final Map<SuperAbilityType, Boolean> abilityInformed = new HashMap<SuperAbilityType, Boolean>();
+    // Indexed by SuperAbilityType ordinal
+    private final boolean[] abilityMode     = new boolean[SuperAbilityType.values().length];
+    private final boolean[] abilityInformed = new boolean[SuperAbilityType.values().length];
 
-    private final Map<ToolType, Boolean> toolMode = new HashMap<ToolType, Boolean>();
+    // Indexed by ToolType ordinal
+    private final boolean[] toolMode = new boolean[ToolType.values().length];
 
     private int recentlyHurt;
     private int respawnATS;
@@ -101,6 +105,10 @@ public class McMMOPlayer {
     private boolean isUsingUnarmed;
     private final FixedMetadataValue playerMetadata;
 
+    // Sub-skill ranks by SubSkillType ordinal, valid while the parent skill is at the level it was computed for
+    private final byte[] subSkillRanks = new byte[SubSkillType.values().length];
+    private final int[] subSkillRankLevels = newSubSkillRankLevels();
+
     public McMMOPlayer(Player player, PlayerProfile profile) {
         String playerName = player.getName();
         UUID uuid = player.getUniqueId();
@@ -120,7 +128,7 @@ public class McMMOPlayer {
          */
         try {
             for (PrimarySkillType primarySkillType : PrimarySkillType.values()) {
-                skillManagers.put(primarySkillType, primarySkillType.getManagerClass().getConstructor(McMMOPlayer.class).newInstance(this));
+                skillManagers[primarySkillType.ordinal()] = primarySkillType.getManagerClass().getConstructor(McMMOPlayer.class).newInstance(this);
             }
         }
         catch (Exception e) {
@@ -128,16 +136,10 @@ public class McMMOPlayer {
             mcMMO.p.getPluginLoader().disablePlugin(mcMMO.p);
         }
 
-        for (SuperAbilityType superAbilityType : SuperAbilityType.values()) {
-            abilityMode.put(superAbilityType, false);
-            abilityInformed.put(superAbilityType, true); // This is intended
-        }
-
-        for (ToolType toolType : ToolType.values()) {
-            toolMode.put(toolType, false);
-        }
+        Arrays.fill(abilityInformed, true); // This is intended
 
         experienceBarManager = new ExperienceBarManager(this);
+        updatePowerLevelPermissions();
     }
 
     /*public void hideXpBar(PrimarySkillType primarySkillType)
@@ -183,63 +185,63 @@ public class McMMOPlayer {
     }
 
     public AcrobaticsManager getAcrobaticsManager() {
-        return (AcrobaticsManager) skillManagers.get(PrimarySkillType.ACROBATICS);
+        return (AcrobaticsManager) skillManagers[PrimarySkillType.ACROBATICS.ordinal()];
     }
 
     public AlchemyManager getAlchemyManager() {
-        return (AlchemyManager) skillManagers.get(PrimarySkillType.ALCHEMY);
+        return (AlchemyManager) skillManagers[PrimarySkillType.ALCHEMY.ordinal()];
     }
 
     public ArcheryManager getArcheryManager() {
-        return (ArcheryManager) skillManagers.get(PrimarySkillType.ARCHERY);
+        return (ArcheryManager) skillManagers[PrimarySkillType.ARCHERY.ordinal()];
     }
 
     public AxesManager getAxesManager() {
-        return (AxesManager) skillManagers.get(PrimarySkillType.AXES);
+        return (AxesManager) skillManagers[PrimarySkillType.AXES.ordinal()];
     }
 
     public ExcavationManager getExcavationManager() {
-        return (ExcavationManager) skillManagers.get(PrimarySkillType.EXCAVATION);
+        return (ExcavationManager) skillManagers[PrimarySkillType.EXCAVATION.ordinal()];
     }
 
     public FishingManager getFishingManager() {
-        return (FishingManager) skillManagers.get(PrimarySkillType.FISHING);
+        return (FishingManager) skillManagers[PrimarySkillType.FISHING.ordinal()];
     }
 
     public HerbalismManager getHerbalismManager() {
-        return (HerbalismManager) skillManagers.get(PrimarySkillType.HERBALISM);
+        return (HerbalismManager) skillManagers[PrimarySkillType.HERBALISM.ordinal()];
     }
 
     public MiningManager getMiningManager() {
-        return (MiningManager) skillManagers.get(PrimarySkillType.MINING);
+        return (MiningManager) skillManagers[PrimarySkillType.MINING.ordinal()];
     }
 
     public RepairManager getRepairManager() {
-        return (RepairManager) skillManagers.get(PrimarySkillType.REPAIR);
+        return (RepairManager) skillManagers[PrimarySkillType.REPAIR.ordinal()];
     }
 
     public SalvageManager getSalvageManager() {
-        return (SalvageManager) skillManagers.get(PrimarySkillType.SALVAGE);
+        return (SalvageManager) skillManagers[PrimarySkillType.SALVAGE.ordinal()];
     }
 
     public SmeltingManager getSmeltingManager() {
-        return (SmeltingManager) skillManagers.get(PrimarySkillType.SMELTING);
+        return (SmeltingManager) skillManagers[PrimarySkillType.SMELTING.ordinal()];
     }
 
     public SwordsManager getSwordsManager() {
-        return (SwordsManager) skillManagers.get(PrimarySkillType.SWORDS);
+        return (SwordsManager) skillManagers[PrimarySkillType.SWORDS.ordinal()];
     }
 
     public TamingManager getTamingManager() {
-        return (TamingManager) skillManagers.get(PrimarySkillType.TAMING);
+        return (TamingManager) skillManagers[PrimarySkillType.TAMING.ordinal()];
     }
 
     public UnarmedManager getUnarmedManager() {
-        return (UnarmedManager) skillManagers.get(PrimarySkillType.UNARMED);
+        return (UnarmedManager) skillManagers[PrimarySkillType.UNARMED.ordinal()];
     }
 
     public WoodcuttingManager getWoodcuttingManager() {
-        return (WoodcuttingManager) skillManagers.get(PrimarySkillType.WOODCUTTING);
+        return (WoodcuttingManager) skillManagers[PrimarySkillType.WOODCUTTING.ordinal()];
     }
 
     /*
@@ -263,7 +265,7 @@ public class McMMOPlayer {
      * @return true if the ability is enabled, false otherwise
      */
     public boolean getAbilityMode(SuperAbilityType ability) {
-        return abilityMode.get(ability);
+        return abilityMode[ability.ordinal()];
     }
 
     /**
@@ -273,7 +275,7 @@ public class McMMOPlayer {
      * @param isActive True if the ability is active, false otherwise
      */
     public void setAbilityMode(SuperAbilityType ability, boolean isActive) {
-        abilityMode.put(ability, isActive);
+        abilityMode[ability.ordinal()] = isActive;
     }
 
     /**
@@ -283,7 +285,7 @@ public class McMMOPlayer {
      * @return true if the ability is informed, false otherwise
      */
     public boolean getAbilityInformed(SuperAbilityType ability) {
-        return abilityInformed.get(ability);
+        return abilityInformed[ability.ordinal()];
     }
 
     /**
@@ -293,7 +295,7 @@ public class McMMOPlayer {
      * @param isInformed True if the ability is informed, false otherwise
      */
     public void setAbilityInformed(SuperAbilityType ability, boolean isInformed) {
-        abilityInformed.put(ability, isInformed);
+        abilityInformed[ability.ordinal()] = isInformed;
     }
 
     /**
@@ -303,7 +305,7 @@ public class McMMOPlayer {
      * @return true if the tool is prepped, false otherwise
      */
     public boolean getToolPreparationMode(ToolType tool) {
-        return toolMode.get(tool);
+        return toolMode[tool.ordinal()];
     }
 
     public boolean getAbilityUse() {
@@ -334,7 +336,7 @@ public class McMMOPlayer {
      * @param isPrepared true if the tool should be prepped, false otherwise
      */
     public void setToolPreparationMode(ToolType tool, boolean isPrepared) {
-        toolMode.put(tool, isPrepared);
+        toolMode[tool.ordinal()] = isPrepared;
     }
 
     /*
@@ -423,7 +425,10 @@ public class McMMOPlayer {
 
     public boolean isPartyChatSpying() { return chatSpy; }
 
-    public void togglePartyChatSpying() { chatSpy = !chatSpy;}
+    public void togglePartyChatSpying() {
+        chatSpy = !chatSpy;
+        ChatSpyManager.update(this);
+    }
 
     /*
      * Skill notifications
@@ -443,15 +448,22 @@ public class McMMOPlayer {
      * @return the power level of the player
      */
     public int getPowerLevel() {
-        int powerLevel = 0;
+        return profile.getPowerLevel();
+    }
+
+    /**
+     * Re-check which skills the player has permission for, and so count towards the power level.
+     */
+    public void updatePowerLevelPermissions() {
+        int powerLevelSkills = 0;
 
         for (PrimarySkillType type : PrimarySkillType.NON_CHILD_SKILLS) {
             if (type.getPermissions(player)) {
-                powerLevel += getSkillLevel(type);
+                powerLevelSkills |= 1 << type.ordinal();
             }
         }
 
-        return powerLevel;
+        profile.setPowerLevelSkills(powerLevelSkills);
     }
 
     /**
@@ -542,7 +554,7 @@ public class McMMOPlayer {
      */
     private void checkXp(PrimarySkillType primarySkillType, XPGainReason xpGainReason, XPGainSource xpGainSource) {
         if (getSkillXpLevelRaw(primarySkillType) < getXpToLevel(primarySkillType)) {
-            UserManager.getPlayer(player).processPostXpEvent(xpGainReason, primarySkillType, mcMMO.p, xpGainSource);
+            processPostXpEvent(xpGainReason, primarySkillType, mcMMO.p, xpGainSource);
             return;
         }
 
@@ -560,7 +572,7 @@ public class McMMOPlayer {
         }
 
         if (!EventUtils.handleLevelChangeEvent(player, primarySkillType, levelsGained, xpRemoved, true, xpGainReason)) {
-            UserManager.getPlayer(player).processPostXpEvent(xpGainReason, primarySkillType, mcMMO.p, xpGainSource);
+            processPostXpEvent(xpGainReason, primarySkillType, mcMMO.p, xpGainSource);
             return;
         }
 
@@ -572,10 +584,10 @@ public class McMMOPlayer {
          * Check to see if the player unlocked any new skills
          */
 
-        NotificationManager.sendPlayerLevelUpNotification(UserManager.getPlayer(player), primarySkillType, levelsGained, profile.getSkillLevel(primarySkillType));
+        NotificationManager.sendPlayerLevelUpNotification(this, primarySkillType, levelsGained, profile.getSkillLevel(primarySkillType));
 
         //UPDATE XP BARS
-        UserManager.getPlayer(player).processPostXpEvent(xpGainReason, primarySkillType, mcMMO.p, xpGainSource);
+        processPostXpEvent(xpGainReason, primarySkillType, mcMMO.p, xpGainSource);
     }
 
     /*
@@ -930,6 +942,30 @@ public class McMMOPlayer {
         return (skill.getMaxLevel() < getSkillLevel(skill) + 1) || (Config.getInstance().getPowerLevelCap() < getPowerLevel() + 1);
     }
 
+    /**
+     * Get the current rank of a subskill, recomputing the ranks of its parent skill only when that skill's level changed.
+     *
+     * @param subSkillType Target subskill
+     * @return The rank reached in this subskill, -1 for subskills without ranks
+     */
+    public int getSubSkillRank(SubSkillType subSkillType) {
+        PrimarySkillType parentSkill = RankUtils.getParentSkill(subSkillType);
+        int skillLevel = getSkillLevel(parentSkill);
+
+        if (subSkillRankLevels[parentSkill.ordinal()] != skillLevel) {
+            RankUtils.computeRanks(parentSkill, skillLevel, subSkillRanks);
+            subSkillRankLevels[parentSkill.ordinal()] = skillLevel;
+        }
+
+        return subSkillRanks[subSkillType.ordinal()];
+    }
+
+    private static int[] newSubSkillRankLevels() {
+        int[] levels = new int[PrimarySkillType.values().length];
+        Arrays.fill(levels, Integer.MIN_VALUE);
+        return levels;
+    }
+
     /*
      * These functions are wrapped from PlayerProfile so that we don't always have to store it alongside the McMMOPlayer object.
      */
@@ -998,6 +1034,7 @@ public class McMMOPlayer {
         }
 
         UserManager.remove(thisPlayer);
+        ChatSpyManager.remove(this);
 
         if(Config.getInstance().getScoreboardsEnabled())
             ScoreboardManager.teardownPlayer(thisPlayer);
@@ -11,16 +11,16 @@ import com.gmail.nossr50.datatypes.skills.SuperAbilityType;
 import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.runnables.player.PlayerProfileSaveTask;
 import com.gmail.nossr50.skills.child.FamilyTree;
-import com.gmail.nossr50.util.player.UserManager;
-import com.google.common.collect.ImmutableMap;
 
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.DelayQueue;
 
 public class PlayerProfile {
+    private static final int ALL_POWER_LEVEL_SKILLS = getPowerLevelSkills(PrimarySkillType.NON_CHILD_SKILLS);
+
     private final String playerName;
     private UUID uuid;
     private boolean loaded;
@@ -30,15 +30,19 @@ public class PlayerProfile {
     private MobHealthbarType mobHealthbarType;
     private int scoreboardTipsShown;
 
-    /* Skill Data */
-    private final Map<PrimarySkillType, Integer>   skills     = new HashMap<PrimarySkillType, Integer>();   // Skill & Level
-    private final Map<PrimarySkillType, Float>     skillsXp   = new HashMap<PrimarySkillType, Float>();     // Skill & XP
-    private final Map<SuperAbilityType, Integer> abilityDATS = new HashMap<SuperAbilityType, Integer>(); // Ability & Cooldown
-    private final Map<UniqueDataType, Integer> uniquePlayerData = new HashMap<>(); //Misc data that doesn't fit into other categories (chimaera wing, etc..)
+    /* Skill Data, indexed by enum ordinal */
+    private final int[]   skills;           // Skill & Level, unused for child skills
+    private final float[] skillsXp;         // Skill & XP, unused for child skills
+    private final int[]   abilityDATS;      // Ability & Cooldown
+    private final int[]   uniquePlayerData; //Misc data that doesn't fit into other categories (chimaera wing, etc..)
+
+    // Sum of the levels of the skills whose ordinal bit is set in powerLevelSkills, kept up to date on every level change
+    private int powerLevel;
+    private int powerLevelSkills = ALL_POWER_LEVEL_SKILLS;
 
     // Store previous XP gains for deminished returns
     private DelayQueue<SkillXpGain> gainedSkillsXp = new DelayQueue<SkillXpGain>();
-    private HashMap<PrimarySkillType, Float> rollingSkillsXp = new HashMap<PrimarySkillType, Float>();
+    private final float[] rollingSkillsXp = new float[PrimarySkillType.values().length];
 
     @Deprecated
     public PlayerProfile(String playerName) {
@@ -52,17 +56,18 @@ public class PlayerProfile {
         mobHealthbarType = Config.getInstance().getMobHealthbarDefault();
         scoreboardTipsShown = 0;
 
-        for (SuperAbilityType superAbilityType : SuperAbilityType.values()) {
-            abilityDATS.put(superAbilityType, 0);
-        }
+        skills = new int[PrimarySkillType.values().length];
+        skillsXp = new float[PrimarySkillType.values().length];
+        abilityDATS = new int[SuperAbilityType.values().length];
+        uniquePlayerData = new int[UniqueDataType.values().length];
+
+        int startingLevel = AdvancedConfig.getInstance().getStartingLevel();
 
         for (PrimarySkillType primarySkillType : PrimarySkillType.NON_CHILD_SKILLS) {
-            skills.put(primarySkillType, AdvancedConfig.getInstance().getStartingLevel());
-            skillsXp.put(primarySkillType, 0F);
+            skills[primarySkillType.ordinal()] = startingLevel;
         }
 
-        //Misc Cooldowns
-        uniquePlayerData.put(UniqueDataType.CHIMAERA_WING_DATS, 0); //Chimaera wing
+        recalculatePowerLevel();
     }
 
     @Deprecated
@@ -82,11 +87,49 @@ public class PlayerProfile {
         this.mobHealthbarType = mobHealthbarType;
         this.scoreboardTipsShown = scoreboardTipsShown;
 
-        skills.putAll(levelData);
-        skillsXp.putAll(xpData);
-        abilityDATS.putAll(cooldownData);
-        uniquePlayerData.putAll(uniqueProfileData);
+        skills = new int[PrimarySkillType.values().length];
+        skillsXp = new float[PrimarySkillType.values().length];
+        abilityDATS = new int[SuperAbilityType.values().length];
+        uniquePlayerData = new int[UniqueDataType.values().length];
+
+        for (Map.Entry<PrimarySkillType, Integer> entry : levelData.entrySet()) {
+            skills[entry.getKey().ordinal()] = entry.getValue();
+        }
+
+        for (Map.Entry<PrimarySkillType, Float> entry : xpData.entrySet()) {
+            skillsXp[entry.getKey().ordinal()] = entry.getValue();
+        }
+
+        for (Map.Entry<SuperAbilityType, Integer> entry : cooldownData.entrySet()) {
+            abilityDATS[entry.getKey().ordinal()] = entry.getValue();
+        }
 
+        for (Map.Entry<UniqueDataType, Integer> entry : uniqueProfileData.entrySet()) {
+            uniquePlayerData[entry.getKey().ordinal()] = entry.getValue();
+        }
+
+        recalculatePowerLevel();
+        loaded = true;
+    }
+
+    /**
+     * Copy the saved state of a profile, for saving it while the original keeps changing.
+     *
+     * @param profile The profile to copy
+     */
+    private PlayerProfile(PlayerProfile profile) {
+        playerName = profile.playerName;
+        uuid = profile.uuid;
+        mobHealthbarType = profile.mobHealthbarType;
+        scoreboardTipsShown = profile.scoreboardTipsShown;
+
+        skills = profile.skills.clone();
+        skillsXp = profile.skillsXp.clone();
+        abilityDATS = profile.abilityDATS.clone();
+        uniquePlayerData = profile.uniquePlayerData.clone();
+
+        powerLevelSkills = profile.powerLevelSkills;
+        powerLevel = profile.powerLevel;
         loaded = true;
     }
 
@@ -100,7 +143,7 @@ public class PlayerProfile {
         }
 
         // TODO should this part be synchronized?
-        PlayerProfile profileCopy = new PlayerProfile(playerName, uuid, ImmutableMap.copyOf(skills), ImmutableMap.copyOf(skillsXp), ImmutableMap.copyOf(abilityDATS), mobHealthbarType, scoreboardTipsShown, ImmutableMap.copyOf(uniquePlayerData));
+        PlayerProfile profileCopy = new PlayerProfile(this);
         changed = !mcMMO.getDatabaseManager().saveUser(profileCopy);
 
         if (changed) {
@@ -158,19 +201,19 @@ public class PlayerProfile {
      * Cooldowns
      */
 
-    public int getChimaerWingDATS() { return uniquePlayerData.get(UniqueDataType.CHIMAERA_WING_DATS);}
+    public int getChimaerWingDATS() { return uniquePlayerData[UniqueDataType.CHIMAERA_WING_DATS.ordinal()];}
 
     protected void setChimaeraWingDATS(int DATS) {
         changed = true;
-        uniquePlayerData.put(UniqueDataType.CHIMAERA_WING_DATS, DATS);
+        uniquePlayerData[UniqueDataType.CHIMAERA_WING_DATS.ordinal()] = DATS;
     }
 
     public void setUniqueData(UniqueDataType uniqueDataType, int newData) {
         changed = true;
-        uniquePlayerData.put(uniqueDataType, newData);
+        uniquePlayerData[uniqueDataType.ordinal()] = newData;
     }
 
-    public long getUniqueData(UniqueDataType uniqueDataType) { return uniquePlayerData.get(uniqueDataType); }
+    public long getUniqueData(UniqueDataType uniqueDataType) { return uniquePlayerData[uniqueDataType.ordinal()]; }
 
     /**
      * Get the current deactivation timestamp of an ability.
@@ -179,7 +222,7 @@ public class PlayerProfile {
      * @return the deactivation timestamp for the ability
      */
     public long getAbilityDATS(SuperAbilityType ability) {
-        return abilityDATS.get(ability);
+        return abilityDATS[ability.ordinal()];
     }
 
     /**
@@ -191,7 +234,7 @@ public class PlayerProfile {
     protected void setAbilityDATS(SuperAbilityType ability, long DATS) {
         changed = true;
 
-        abilityDATS.put(ability, (int) (DATS * .001D));
+        abilityDATS[ability.ordinal()] = (int) (DATS * .001D);
     }
 
     /**
@@ -200,9 +243,7 @@ public class PlayerProfile {
     protected void resetCooldowns() {
         changed = true;
 
-        for (SuperAbilityType ability : abilityDATS.keySet()) {
-            abilityDATS.put(ability, 0);
-        }
+        Arrays.fill(abilityDATS, 0);
     }
 
     /*
@@ -210,11 +251,11 @@ public class PlayerProfile {
      */
 
     public int getSkillLevel(PrimarySkillType skill) {
-        return skill.isChildSkill() ? getChildSkillLevel(skill) : skills.get(skill);
+        return skill.isChildSkill() ? getChildSkillLevel(skill) : skills[skill.ordinal()];
     }
 
     public float getSkillXpLevelRaw(PrimarySkillType skill) {
-        return skillsXp.get(skill);
+        return skillsXp[skill.ordinal()];
     }
 
     public int getSkillXpLevel(PrimarySkillType skill) {
@@ -228,7 +269,7 @@ public class PlayerProfile {
 
         changed = true;
 
-        skillsXp.put(skill, xpLevel);
+        skillsXp[skill.ordinal()] = xpLevel;
     }
 
     protected float levelUp(PrimarySkillType skill) {
@@ -236,8 +277,9 @@ public class PlayerProfile {
 
         changed = true;
 
-        skills.put(skill, skills.get(skill) + 1);
-        skillsXp.put(skill, skillsXp.get(skill) - xpRemoved);
+        skills[skill.ordinal()]++;
+        skillsXp[skill.ordinal()] -= xpRemoved;
+        adjustPowerLevel(skill, 1);
 
         return xpRemoved;
     }
@@ -255,7 +297,7 @@ public class PlayerProfile {
 
         changed = true;
 
-        skillsXp.put(skill, skillsXp.get(skill) - xp);
+        skillsXp[skill.ordinal()] -= xp;
     }
 
     public void removeXp(PrimarySkillType skill, float xp) {
@@ -265,7 +307,7 @@ public class PlayerProfile {
 
         changed = true;
 
-        skillsXp.put(skill, skillsXp.get(skill) - xp);
+        skillsXp[skill.ordinal()] -= xp;
     }
 
     /**
@@ -285,8 +327,9 @@ public class PlayerProfile {
         if(level < 0)
             level = 0;
 
-        skills.put(skill, level);
-        skillsXp.put(skill, 0F);
+        adjustPowerLevel(skill, level - skills[skill.ordinal()]);
+        skills[skill.ordinal()] = level;
+        skillsXp[skill.ordinal()] = 0F;
     }
 
     /**
@@ -296,7 +339,7 @@ public class PlayerProfile {
      * @param levels Number of levels to add
      */
     public void addLevels(PrimarySkillType skill, int levels) {
-        modifySkill(skill, skills.get(skill) + levels);
+        modifySkill(skill, skills[skill.ordinal()] + levels);
     }
 
     /**
@@ -313,14 +356,69 @@ public class PlayerProfile {
             float dividedXP = (xp / parentSkills.size());
 
             for (PrimarySkillType parentSkill : parentSkills) {
-                skillsXp.put(parentSkill, skillsXp.get(parentSkill) + dividedXP);
+                skillsXp[parentSkill.ordinal()] += dividedXP;
             }
         }
         else {
-            skillsXp.put(skill, skillsXp.get(skill) + xp);
+            skillsXp[skill.ordinal()] += xp;
         }
     }
 
+    /**
+     * Get the power level, the sum of the levels of all skills counted towards it.
+     *
+     * @return the cached power level
+     */
+    public int getPowerLevel() {
+        return powerLevel;
+    }
+
+    /**
+     * Set which skills count towards the power level, usually the skills the player has permission for.
+     *
+     * @param powerLevelSkills Bit set of {@link PrimarySkillType} ordinals, see {@link #getPowerLevelSkills(Iterable)}
+     */
+    protected void setPowerLevelSkills(int powerLevelSkills) {
+        if (this.powerLevelSkills == powerLevelSkills) {
+            return;
+        }
+
+        this.powerLevelSkills = powerLevelSkills;
+        recalculatePowerLevel();
+    }
+
+    /**
+     * @param primarySkillTypes The non-child skills to count towards the power level
+     * @return the bit set to pass to {@link #setPowerLevelSkills(int)}
+     */
+    public static int getPowerLevelSkills(Iterable<PrimarySkillType> primarySkillTypes) {
+        int powerLevelSkills = 0;
+
+        for (PrimarySkillType primarySkillType : primarySkillTypes) {
+            powerLevelSkills |= 1 << primarySkillType.ordinal();
+        }
+
+        return powerLevelSkills;
+    }
+
+    private void adjustPowerLevel(PrimarySkillType skill, int levels) {
+        if ((powerLevelSkills & (1 << skill.ordinal())) != 0) {
+            powerLevel += levels;
+        }
+    }
+
+    private void recalculatePowerLevel() {
+        int sum = 0;
+
+        for (PrimarySkillType primarySkillType : PrimarySkillType.NON_CHILD_SKILLS) {
+            if ((powerLevelSkills & (1 << primarySkillType.ordinal())) != 0) {
+                sum += skills[primarySkillType.ordinal()];
+            }
+        }
+
+        powerLevel = sum;
+    }
+
     /**
      * Get the registered amount of experience gained
      * This is used for diminished XP returns
@@ -328,13 +426,7 @@ public class PlayerProfile {
      * @return xp Experience amount registered
      */
     public float getRegisteredXpGain(PrimarySkillType primarySkillType) {
-        float xp = 0F;
-
-        if (rollingSkillsXp.get(primarySkillType) != null) {
-            xp = rollingSkillsXp.get(primarySkillType);
-        }
-
-        return xp;
+        return rollingSkillsXp[primarySkillType.ordinal()];
     }
 
     /**
@@ -346,7 +438,7 @@ public class PlayerProfile {
      */
     public void registerXpGain(PrimarySkillType primarySkillType, float xp) {
         gainedSkillsXp.add(new SkillXpGain(primarySkillType, xp));
-        rollingSkillsXp.put(primarySkillType, getRegisteredXpGain(primarySkillType) + xp);
+        rollingSkillsXp[primarySkillType.ordinal()] += xp;
     }
 
     /**
@@ -356,7 +448,7 @@ public class PlayerProfile {
     public void purgeExpiredXpGains() {
         SkillXpGain gain;
         while ((gain = gainedSkillsXp.poll()) != null) {
-            rollingSkillsXp.put(gain.getSkill(), getRegisteredXpGain(gain.getSkill()) - gain.getXp());
+            rollingSkillsXp[gain.getSkill().ordinal()] -= gain.getXp();
         }
     }
 
@@ -367,7 +459,7 @@ public class PlayerProfile {
      * @return the total amount of Xp until next level
      */
     public int getXpToLevel(PrimarySkillType primarySkillType) {
-        int level = (ExperienceConfig.getInstance().getCumulativeCurveEnabled()) ? UserManager.getPlayer(playerName).getPowerLevel() : skills.get(primarySkillType);
+        int level = (ExperienceConfig.getInstance().getCumulativeCurveEnabled()) ? powerLevel : skills[primarySkillType.ordinal()];
         FormulaType formulaType = ExperienceConfig.getInstance().getFormulaType();
 
         return mcMMO.getFormulaManager().getCachedXpToLevel(level, formulaType);
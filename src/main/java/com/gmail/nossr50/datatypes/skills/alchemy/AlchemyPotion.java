@@ -9,6 +9,8 @@ import org.bukkit.potion.Potion;
 import org.bukkit.potion.PotionData;
 import org.bukkit.potion.PotionEffect;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -21,6 +23,8 @@ public class AlchemyPotion {
     private List<PotionEffect> effects;
     private Color color;
     private Map<ItemStack, String> children;
+    // Children by ingredient material, in the order of children
+    private Map<Material, List<Entry<ItemStack, String>>> childrenByMaterial;
 
     public AlchemyPotion(Material material, PotionData data, String name, List<String> lore, List<PotionEffect> effects, Color color, Map<ItemStack, String> children) {
         this.material = material;
@@ -28,8 +32,8 @@ public class AlchemyPotion {
         this.lore = lore;
         this.name = name;
         this.effects = effects;
-        this.children = children;
         this.color = color;
+        setChildren(children);
     }
 
     public String toString() {
@@ -117,16 +121,37 @@ public class AlchemyPotion {
 
     public void setChildren(Map<ItemStack, String> children) {
         this.children = children;
+        this.childrenByMaterial = new EnumMap<Material, List<Entry<ItemStack, String>>>(Material.class);
+
+        for (Entry<ItemStack, String> child : children.entrySet()) {
+            List<Entry<ItemStack, String>> sameMaterial = childrenByMaterial.get(child.getKey().getType());
+
+            if (sameMaterial == null) {
+                sameMaterial = new ArrayList<Entry<ItemStack, String>>(1);
+                childrenByMaterial.put(child.getKey().getType(), sameMaterial);
+            }
+
+            sameMaterial.add(child);
+        }
     }
 
     public AlchemyPotion getChild(ItemStack ingredient) {
-        if (!children.isEmpty()) {
-            for (Entry<ItemStack, String> child : children.entrySet()) {
-                if (ingredient.isSimilar(child.getKey())) {
-                    return PotionConfig.getInstance().getPotion(child.getValue());
-                }
+        if (ingredient == null) {
+            return null;
+        }
+
+        List<Entry<ItemStack, String>> sameMaterial = childrenByMaterial.get(ingredient.getType());
+
+        if (sameMaterial == null) {
+            return null;
+        }
+
+        for (Entry<ItemStack, String> child : sameMaterial) {
+            if (ingredient.isSimilar(child.getKey())) {
+                return PotionConfig.getInstance().getPotion(child.getValue());
             }
         }
+
         return null;
     }
 
@@ -137,7 +162,14 @@ public class AlchemyPotion {
         if (!item.hasItemMeta()) {
             return false;
         }
-        PotionMeta meta = (PotionMeta) item.getItemMeta();
+        return isSimilar(item, (PotionMeta) item.getItemMeta());
+    }
+
+    /**
+     * Same as {@link #isSimilar(ItemStack)}, for callers that already copied the item's meta and
+     * matched its type against {@link #getMaterial()}.
+     */
+    public boolean isSimilar(ItemStack item, PotionMeta meta) {
         PotionData that = meta.getBasePotionData();
         if (data.getType() != that.getType()) {
             return false;
@@ -11,7 +11,8 @@ import com.gmail.nossr50.datatypes.skills.ToolType;
 import com.gmail.nossr50.events.fake.FakeBlockBreakEvent;
 import com.gmail.nossr50.events.fake.FakeBlockDamageEvent;
 import com.gmail.nossr50.mcMMO;
-import com.gmail.nossr50.skills.alchemy.Alchemy;
+import com.gmail.nossr50.skills.alchemy.AlchemyBrew;
+import com.gmail.nossr50.skills.alchemy.AlchemyBrewScheduler;
 import com.gmail.nossr50.skills.excavation.ExcavationManager;
 import com.gmail.nossr50.skills.herbalism.Herbalism;
 import com.gmail.nossr50.skills.herbalism.HerbalismManager;
@@ -23,6 +24,7 @@ import com.gmail.nossr50.util.BlockUtils;
 import com.gmail.nossr50.util.EventUtils;
 import com.gmail.nossr50.util.ItemUtils;
 import com.gmail.nossr50.util.Permissions;
+import com.gmail.nossr50.util.blockmeta.PistonMoveJournal;
 import com.gmail.nossr50.util.player.UserManager;
 import com.gmail.nossr50.util.skills.SkillUtils;
 import com.gmail.nossr50.util.sounds.SoundManager;
@@ -65,16 +67,7 @@ public class BlockListener implements Listener {
         if(WorldBlacklist.isWorldBlacklisted(event.getBlock().getWorld()))
             return;
 
-        BlockFace direction = event.getDirection();
-        Block movedBlock = event.getBlock();
-        movedBlock = movedBlock.getRelative(direction, 2);
-
-        for (Block b : event.getBlocks()) {
-            if (BlockUtils.shouldBeWatched(b.getState()) && mcMMO.getPlaceStore().isTrue(b)) {
-                movedBlock = b.getRelative(direction);
-                mcMMO.getPlaceStore().setTrue(movedBlock);
-            }
-        }
+        PistonMoveJournal.record(event.getBlock().getWorld(), event.getBlocks(), event.getDirection());
     }
 
     /**
@@ -88,15 +81,8 @@ public class BlockListener implements Listener {
         if(WorldBlacklist.isWorldBlacklisted(event.getBlock().getWorld()))
             return;
 
-        // Get opposite direction so we get correct block
-        BlockFace direction = event.getDirection();
-        Block movedBlock = event.getBlock().getRelative(direction);
-        mcMMO.getPlaceStore().setTrue(movedBlock);
-
-        for (Block block : event.getBlocks()) {
-            movedBlock = block.getRelative(direction);
-            mcMMO.getPlaceStore().setTrue(movedBlock);
-        }
+        // The direction is the one the pulled blocks move in
+        PistonMoveJournal.record(event.getBlock().getWorld(), event.getBlocks(), event.getDirection());
     }
 
     /**
@@ -258,8 +244,12 @@ public class BlockListener implements Listener {
         }
 
         /* ALCHEMY - Cancel any brew in progress for that BrewingStand */
-        if (blockState instanceof BrewingStand && Alchemy.brewingStandMap.containsKey(location)) {
-            Alchemy.brewingStandMap.get(location).cancelBrew();
+        if (blockState instanceof BrewingStand) {
+            AlchemyBrew brew = AlchemyBrewScheduler.getBrew(location);
+
+            if (brew != null) {
+                brew.cancelBrew();
+            }
         }
 
         Player player = event.getPlayer();
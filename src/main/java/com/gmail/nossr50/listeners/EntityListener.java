@@ -4,7 +4,6 @@ import com.gmail.nossr50.config.AdvancedConfig;
 import com.gmail.nossr50.config.Config;
 import com.gmail.nossr50.config.WorldBlacklist;
 import com.gmail.nossr50.config.experience.ExperienceConfig;
-import com.gmail.nossr50.datatypes.meta.OldName;
 import com.gmail.nossr50.datatypes.player.McMMOPlayer;
 import com.gmail.nossr50.datatypes.skills.SubSkillType;
 import com.gmail.nossr50.datatypes.skills.subskills.interfaces.InteractType;
@@ -17,10 +16,13 @@ import com.gmail.nossr50.skills.archery.Archery;
 import com.gmail.nossr50.skills.fishing.Fishing;
 import com.gmail.nossr50.skills.mining.BlastMining;
 import com.gmail.nossr50.skills.mining.MiningManager;
+import com.gmail.nossr50.skills.taming.SummonRegistry;
 import com.gmail.nossr50.skills.taming.Taming;
 import com.gmail.nossr50.skills.taming.TamingManager;
 import com.gmail.nossr50.util.BlockUtils;
+import com.gmail.nossr50.util.EntityFlags;
 import com.gmail.nossr50.util.Misc;
+import com.gmail.nossr50.util.MobHealthbarUtils;
 import com.gmail.nossr50.util.Permissions;
 import com.gmail.nossr50.util.player.UserManager;
 import com.gmail.nossr50.util.skills.CombatUtils;
@@ -40,13 +42,10 @@ import org.bukkit.event.entity.EntityDamageEvent.DamageModifier;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.PotionMeta;
 import org.bukkit.metadata.FixedMetadataValue;
-import org.bukkit.metadata.MetadataValue;
 import org.bukkit.potion.PotionEffect;
 import org.bukkit.potion.PotionEffectType;
 import org.bukkit.projectiles.ProjectileSource;
 
-import java.util.List;
-
 public class EntityListener implements Listener {
     private final mcMMO plugin;
 
@@ -63,8 +62,7 @@ public class EntityListener implements Listener {
         //Prevent entities from giving XP if they target endermite
         if(event.getTarget() instanceof Endermite)
         {
-            if(event.getEntity().getMetadata(mcMMO.entityMetadataKey) == null || event.getEntity().getMetadata(mcMMO.entityMetadataKey).size() <= 0)
-                event.getEntity().setMetadata(mcMMO.entityMetadataKey, mcMMO.metadataValue);
+            EntityFlags.setFlag(event.getEntity(), EntityFlags.SPAWNED);
         }
     }
 
@@ -154,11 +152,11 @@ public class EntityListener implements Listener {
         Entity entity = event.getEntity();
 
         if (entity instanceof FallingBlock || entity instanceof Enderman) {
-            boolean isTracked = entity.hasMetadata(mcMMO.entityMetadataKey);
+            boolean isTracked = EntityFlags.hasFlag(entity, EntityFlags.SPAWNED);
 
             if (mcMMO.getPlaceStore().isTrue(block) && !isTracked) {
                 mcMMO.getPlaceStore().setFalse(block);
-                entity.setMetadata(mcMMO.entityMetadataKey, mcMMO.metadataValue);
+                EntityFlags.setFlag(entity, EntityFlags.SPAWNED);
             }
             else if (isTracked) {
                 mcMMO.getPlaceStore().setTrue(block);
@@ -193,7 +191,7 @@ public class EntityListener implements Listener {
             return;
         }
         
-        if (event.getDamager().hasMetadata(mcMMO.funfettiMetadataKey))
+        if (EntityFlags.hasFlag(event.getDamager(), EntityFlags.FUNFETTI))
         {
             event.setCancelled(true);
             return;
@@ -309,17 +307,7 @@ public class EntityListener implements Listener {
         {
             if(event.getFinalDamage() >= ((LivingEntity) defender).getHealth())
             {
-                List<MetadataValue> metadataValue = attacker.getMetadata("mcMMO_oldName");
-
-                if(metadataValue.size() <= 0)
-                    return;
-
-                if(metadataValue != null)
-                {
-                    OldName oldName = (OldName) metadataValue.get(0);
-                    attacker.setCustomName(oldName.asString());
-                    attacker.setCustomNameVisible(false);
-                }
+                MobHealthbarUtils.restoreName(attacker);
             }
         }
     }
@@ -508,19 +496,8 @@ public class EntityListener implements Listener {
             return;
         }
 
-        if (entity.hasMetadata(mcMMO.customNameKey)) {
-            entity.setCustomName(entity.getMetadata(mcMMO.customNameKey).get(0).asString());
-            entity.removeMetadata(mcMMO.customNameKey, plugin);
-        }
-
-        if (entity.hasMetadata(mcMMO.customVisibleKey)) {
-            entity.setCustomNameVisible(entity.getMetadata(mcMMO.customVisibleKey).get(0).asBoolean());
-            entity.removeMetadata(mcMMO.customVisibleKey, plugin);
-        }
-
-        if (entity.hasMetadata(mcMMO.entityMetadataKey)) {
-            entity.removeMetadata(mcMMO.entityMetadataKey, plugin);
-        }
+        MobHealthbarUtils.restoreName(entity);
+        EntityFlags.remove(entity);
     }
 
     /**
@@ -531,6 +508,8 @@ public class EntityListener implements Listener {
      */
     @EventHandler(priority = EventPriority.MONITOR)
     public void onEntityDeath(EntityDeathEvent event) {
+        SummonRegistry.remove(event.getEntity());
+
         /* WORLD BLACKLIST CHECK */
         if(WorldBlacklist.isWorldBlacklisted(event.getEntity().getWorld()))
             return;
@@ -562,17 +541,17 @@ public class EntityListener implements Listener {
             case NETHER_PORTAL:
             case SPAWNER:
             case SPAWNER_EGG:
-                entity.setMetadata(mcMMO.entityMetadataKey, mcMMO.metadataValue);
+                EntityFlags.setFlag(entity, EntityFlags.SPAWNED);
 
                 Entity passenger = entity.getPassenger();
 
                 if (passenger != null) {
-                    passenger.setMetadata(mcMMO.entityMetadataKey, mcMMO.metadataValue);
+                    EntityFlags.setFlag(passenger, EntityFlags.SPAWNED);
                 }
                 return;
 
             case BREEDING:
-                entity.setMetadata(mcMMO.bredMetadataKey, mcMMO.metadataValue);
+                EntityFlags.setFlag(entity, EntityFlags.BRED);
                 return;
 
             default:
@@ -813,11 +792,11 @@ public class EntityListener implements Listener {
 
         LivingEntity entity = event.getEntity();
 
-        if (!UserManager.hasPlayerDataKey(player) || Misc.isNPCEntity(entity) || entity.hasMetadata(mcMMO.entityMetadataKey)) {
+        if (!UserManager.hasPlayerDataKey(player) || Misc.isNPCEntity(entity) || EntityFlags.hasFlag(entity, EntityFlags.SPAWNED)) {
             return;
         }
 
-        entity.setMetadata(mcMMO.entityMetadataKey, mcMMO.metadataValue);
+        EntityFlags.setFlag(entity, EntityFlags.SPAWNED);
         UserManager.getPlayer(player).getTamingManager().awardTamingXP(entity);
     }
 
@@ -894,8 +873,8 @@ public class EntityListener implements Listener {
         if(WorldBlacklist.isWorldBlacklisted(event.getEntity().getWorld()))
             return;
 
-        if (event.getEntity().hasMetadata(mcMMO.entityMetadataKey)) {
-            event.getPigZombie().setMetadata(mcMMO.entityMetadataKey, mcMMO.metadataValue);
+        if (EntityFlags.hasFlag(event.getEntity(), EntityFlags.SPAWNED)) {
+            EntityFlags.setFlag(event.getPigZombie(), EntityFlags.SPAWNED);
         }
     }
 }
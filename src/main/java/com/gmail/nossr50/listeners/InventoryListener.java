@@ -8,6 +8,8 @@ import com.gmail.nossr50.events.fake.FakeBrewEvent;
 import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.runnables.player.PlayerUpdateInventoryTask;
 import com.gmail.nossr50.skills.alchemy.Alchemy;
+import com.gmail.nossr50.skills.alchemy.AlchemyBrew;
+import com.gmail.nossr50.skills.alchemy.AlchemyBrewScheduler;
 import com.gmail.nossr50.skills.alchemy.AlchemyPotionBrewer;
 import com.gmail.nossr50.util.ItemUtils;
 import com.gmail.nossr50.util.Permissions;
@@ -358,8 +360,10 @@ public class InventoryListener implements Listener {
         if (event instanceof FakeBrewEvent)
             return;
         Location location = event.getBlock().getLocation();
-        if (Alchemy.brewingStandMap.containsKey(location)) {
-            Alchemy.brewingStandMap.get(location).finishImmediately();
+        AlchemyBrew brew = AlchemyBrewScheduler.getBrew(location);
+
+        if (brew != null) {
+            brew.finishImmediately();
             event.setCancelled(true);
         }
     }
@@ -420,7 +424,7 @@ public class InventoryListener implements Listener {
 
         final HumanEntity whoClicked = event.getWhoClicked();
 
-        if (!whoClicked.hasMetadata(mcMMO.playerDataKey)) {
+        if (!UserManager.hasPlayerDataKey(whoClicked)) {
             return;
         }
 
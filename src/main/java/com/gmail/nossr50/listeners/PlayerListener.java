@@ -13,7 +13,6 @@ import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
 import com.gmail.nossr50.locale.LocaleLoader;
 import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.party.ShareHandler;
-import com.gmail.nossr50.runnables.player.PlayerProfileLoadingTask;
 import com.gmail.nossr50.skills.fishing.FishingManager;
 import com.gmail.nossr50.skills.herbalism.HerbalismManager;
 import com.gmail.nossr50.skills.mining.MiningManager;
@@ -22,7 +21,10 @@ import com.gmail.nossr50.skills.repair.RepairManager;
 import com.gmail.nossr50.skills.salvage.Salvage;
 import com.gmail.nossr50.skills.salvage.SalvageManager;
 import com.gmail.nossr50.skills.taming.TamingManager;
+import com.gmail.nossr50.skills.woodcutting.TreeFellerRemoval;
 import com.gmail.nossr50.util.*;
+import com.gmail.nossr50.util.player.OfflineProfileManager;
+import com.gmail.nossr50.util.player.ProfileLoadingManager;
 import com.gmail.nossr50.util.player.UserManager;
 import com.gmail.nossr50.util.skills.SkillUtils;
 import com.gmail.nossr50.util.sounds.SoundManager;
@@ -138,7 +140,7 @@ public class PlayerListener implements Listener {
 
         Player killedPlayer = event.getEntity();
 
-        if (!killedPlayer.hasMetadata(mcMMO.playerDataKey) || Permissions.hardcoreBypass(killedPlayer)) {
+        if (!UserManager.hasPlayerDataKey(killedPlayer) || Permissions.hardcoreBypass(killedPlayer)) {
             return;
         }
 
@@ -171,7 +173,8 @@ public class PlayerListener implements Listener {
      * <p>
      * These events are monitored for the purpose of removing god mode or
      * player parties if they are not allowed on the world the player has
-     * changed to.
+     * changed to, and of re-checking which skills count towards the power
+     * level.
      *
      * @param event The event to monitor
      */
@@ -187,6 +190,7 @@ public class PlayerListener implements Listener {
 
         mcMMOPlayer.checkGodMode();
         mcMMOPlayer.checkParty();
+        mcMMOPlayer.updatePowerLevelPermissions();
     }
 
     /**
@@ -428,14 +432,37 @@ public class PlayerListener implements Listener {
     public void onPlayerQuit(PlayerQuitEvent event) {
         Player player = event.getPlayer();
 
+        ProfileLoadingManager.logout(player.getUniqueId());
+        OfflineProfileManager.invalidate(player.getName()); // Anything cached before or during their session is outdated now
+
         if (!UserManager.hasPlayerDataKey(player)) {
             return;
         }
 
+        TreeFellerRemoval.finishAll(player); // Fell the rest of their trees, so the XP makes it into the save
+
         McMMOPlayer mcMMOPlayer = UserManager.getPlayer(player);
         mcMMOPlayer.logout(false);
     }
 
+    /**
+     * Monitor AsyncPlayerPreLoginEvents.
+     * <p>
+     * These events are monitored for the purpose of loading the player's
+     * profile while they are still logging in, so it is ready by the time
+     * they join.
+     *
+     * @param event The event to monitor
+     */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerPreLogin(AsyncPlayerPreLoginEvent event) {
+        if (event.getLoginResult() != AsyncPlayerPreLoginEvent.Result.ALLOWED) {
+            return;
+        }
+
+        ProfileLoadingManager.prefetch(event.getName(), event.getUniqueId());
+    }
+
     /**
      * Monitor PlayerJoinEvents.
      * <p>
@@ -453,7 +480,8 @@ public class PlayerListener implements Listener {
             return;
         }
 
-        new PlayerProfileLoadingTask(player).runTaskLaterAsynchronously(mcMMO.p, 1); // 1 Tick delay to ensure the player is marked as online before we begin loading
+        OfflineProfileManager.invalidate(player.getName()); // Their live profile takes over from any cached offline copy
+        ProfileLoadingManager.load(player);
 
         if (Config.getInstance().getMOTDEnabled() && Permissions.motd(player)) {
             Motd.displayAll(player);
@@ -749,8 +777,6 @@ public class PlayerListener implements Listener {
             return;
         }
 
-        ChatManager chatManager = null;
-
         if (mcMMOPlayer.isChatEnabled(ChatMode.PARTY)) {
             Party party = mcMMOPlayer.getParty();
 
@@ -760,14 +786,12 @@ public class PlayerListener implements Listener {
                 return;
             }
 
-            chatManager = ChatManagerFactory.getChatManager(plugin, ChatMode.PARTY);
-            ((PartyChatManager) chatManager).setParty(party);
+            PartyChatManager chatManager = (PartyChatManager) ChatManagerFactory.getChatManager(plugin, ChatMode.PARTY);
+            chatManager.handleChat(party, player.getName(), player.getDisplayName(), event.getMessage(), event.isAsynchronous());
+            event.setCancelled(true);
         }
         else if (mcMMOPlayer.isChatEnabled(ChatMode.ADMIN)) {
-            chatManager = ChatManagerFactory.getChatManager(plugin, ChatMode.ADMIN);
-        }
-
-        if (chatManager != null) {
+            ChatManager chatManager = ChatManagerFactory.getChatManager(plugin, ChatMode.ADMIN);
             chatManager.handleChat(player, event.getMessage(), event.isAsynchronous());
             event.setCancelled(true);
         }
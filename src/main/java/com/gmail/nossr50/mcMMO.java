@@ -17,13 +17,20 @@ import com.gmail.nossr50.datatypes.skills.subskills.acrobatics.Roll;
 import com.gmail.nossr50.listeners.*;
 import com.gmail.nossr50.party.PartyManager;
 import com.gmail.nossr50.runnables.CheckDateTask;
+import com.gmail.nossr50.runnables.EntityFlagSweepTask;
+import com.gmail.nossr50.runnables.MobHealthbarTask;
+import com.gmail.nossr50.runnables.PistonMoveJournalTask;
 import com.gmail.nossr50.runnables.SaveTimerTask;
 import com.gmail.nossr50.runnables.backups.CleanBackupsTask;
 import com.gmail.nossr50.runnables.database.UserPurgeTask;
 import com.gmail.nossr50.runnables.party.PartyAutoKickTask;
+import com.gmail.nossr50.runnables.party.PartyPositionCacheTask;
 import com.gmail.nossr50.runnables.player.ClearRegisteredXPGainTask;
-import com.gmail.nossr50.runnables.player.PlayerProfileLoadingTask;
+import com.gmail.nossr50.runnables.player.PowerLevelPermissionTask;
 import com.gmail.nossr50.runnables.player.PowerLevelUpdatingTask;
+import com.gmail.nossr50.runnables.skills.AlchemyBrewTickTask;
+import com.gmail.nossr50.runnables.skills.ArcheryTrackerSweepTask;
+import com.gmail.nossr50.runnables.skills.SummonExpiryTask;
 import com.gmail.nossr50.runnables.skills.BleedTimerTask;
 import com.gmail.nossr50.skills.alchemy.Alchemy;
 import com.gmail.nossr50.skills.child.ChildConfig;
@@ -33,11 +40,15 @@ import com.gmail.nossr50.skills.repair.repairables.SimpleRepairableManager;
 import com.gmail.nossr50.skills.salvage.salvageables.Salvageable;
 import com.gmail.nossr50.skills.salvage.salvageables.SalvageableManager;
 import com.gmail.nossr50.skills.salvage.salvageables.SimpleSalvageableManager;
+import com.gmail.nossr50.skills.woodcutting.TreeFellerRemoval;
 import com.gmail.nossr50.util.*;
+import com.gmail.nossr50.util.blockmeta.PistonMoveJournal;
 import com.gmail.nossr50.util.blockmeta.chunkmeta.ChunkManager;
 import com.gmail.nossr50.util.blockmeta.chunkmeta.ChunkManagerFactory;
 import com.gmail.nossr50.util.commands.CommandRegistrationManager;
 import com.gmail.nossr50.util.experience.FormulaManager;
+import com.gmail.nossr50.util.player.OfflineProfileManager;
+import com.gmail.nossr50.util.player.ProfileLoadingManager;
 import com.gmail.nossr50.util.player.UserManager;
 import com.gmail.nossr50.util.scoreboards.ScoreboardManager;
 import com.gmail.nossr50.util.skills.RankUtils;
@@ -96,14 +107,9 @@ public class mcMMO extends JavaPlugin {
     private static boolean isRetroModeEnabled;
 
     /* Metadata Values */
-    public final static String entityMetadataKey   = "mcMMO: Spawned Entity";
-    public final static String blockMetadataKey    = "mcMMO: Piston Tracking";
     public final static String furnaceMetadataKey  = "mcMMO: Tracked Furnace";
     public final static String tntMetadataKey      = "mcMMO: Tracked TNT";
-    public final static String funfettiMetadataKey = "mcMMO: Funfetti";
     public final static String tntsafeMetadataKey  = "mcMMO: Safe TNT";
-    public final static String customNameKey       = "mcMMO: Custom Name";
-    public final static String customVisibleKey    = "mcMMO: Name Visibility";
     public final static String droppedItemKey      = "mcMMO: Tracked Item";
     public final static String infiniteArrowKey    = "mcMMO: Infinite Arrow";
     public final static String bowForceKey         = "mcMMO: Bow Force";
@@ -113,7 +119,22 @@ public class mcMMO extends JavaPlugin {
     public final static String playerDataKey       = "mcMMO: Player Data";
     public final static String greenThumbDataKey   = "mcMMO: Green Thumb";
     public final static String databaseCommandKey  = "mcMMO: Processing Database Command";
+
+    /** @deprecated Tracked by {@link EntityFlags#SPAWNED}, the metadata is still set for other plugins */
+    @Deprecated
+    public final static String entityMetadataKey   = "mcMMO: Spawned Entity";
+    /** @deprecated Tracked by {@link EntityFlags#BRED}, the metadata is still set for other plugins */
+    @Deprecated
     public final static String bredMetadataKey     = "mcMMO: Bred Animal";
+    /** @deprecated Tracked by {@link EntityFlags#FUNFETTI}, the metadata is no longer set */
+    @Deprecated
+    public final static String funfettiMetadataKey = "mcMMO: Funfetti";
+    /** @deprecated Original names are kept by {@link MobHealthbarUtils}, the metadata is no longer set */
+    @Deprecated
+    public final static String customNameKey       = "mcMMO: Custom Name";
+    /** @deprecated Original names are kept by {@link MobHealthbarUtils}, the metadata is no longer set */
+    @Deprecated
+    public final static String customVisibleKey    = "mcMMO: Name Visibility";
 
     public static FixedMetadataValue metadataValue;
 
@@ -159,8 +180,10 @@ public class mcMMO extends JavaPlugin {
             }
 
             databaseManager = DatabaseManagerFactory.getDatabaseManager();
+            ProfileLoadingManager.startup();
 
             registerEvents();
+            EntityFlags.restoreLoadedChunks(getServer().getWorlds()); // Chunks loaded before the listener was registered
             registerCoreSkills();
             registerCustomRecipes();
 
@@ -170,7 +193,7 @@ public class mcMMO extends JavaPlugin {
             holidayManager = new HolidayManager();
 
             for (Player player : getServer().getOnlinePlayers()) {
-                new PlayerProfileLoadingTask(player).runTaskLaterAsynchronously(mcMMO.p, 1); // 1 Tick delay to ensure the player is marked as online before we begin loading
+                ProfileLoadingManager.load(player);
             }
 
             debug("Version " + getDescription().getVersion() + " is enabled!");
@@ -231,10 +254,13 @@ public class mcMMO extends JavaPlugin {
     @Override
     public void onDisable() {
         try {
-            Alchemy.finishAllBrews();   // Finish all partially complete AlchemyBrewTasks to prevent vanilla brewing continuation on restart
+            Alchemy.finishAllBrews();   // Finish all partially complete Alchemy brews to prevent vanilla brewing continuation on restart
+            TreeFellerRemoval.finishAll(); // Fell the rest of trees still coming down, before their XP would miss the save
             UserManager.saveAll();      // Make sure to save player information if the server shuts down
             UserManager.clearAll();
-            PartyManager.saveParties(); // Save our parties
+            OfflineProfileManager.clearAll();
+            ProfileLoadingManager.shutdown();
+            PartyManager.shutdown();    // Save our parties
 
             //TODO: Needed?
             if(Config.getInstance().getScoreboardsEnabled())
@@ -242,6 +268,8 @@ public class mcMMO extends JavaPlugin {
 
             formulaManager.saveFormula();
             holidayManager.saveAnniversaryFiles();
+            PistonMoveJournal.flush();  // Apply piston moves of the last tick
+            MobHealthbarUtils.restoreAll(); // Don't leave healthbars as mob names
             placeStore.saveAll();       // Save our metadata
             placeStore.cleanUp();       // Cleanup empty metadata stores
         }
@@ -524,6 +552,30 @@ public class mcMMO extends JavaPlugin {
             new PartyAutoKickTask().runTaskTimer(this, kickIntervalTicks, kickIntervalTicks);
         }
 
+        // Invalidate cached party member positions every tick
+        new PartyPositionCacheTask().runTaskTimer(this, 1, 1);
+
+        // Drive all active Alchemy brews
+        new AlchemyBrewTickTask().runTaskTimer(this, 1, 1);
+
+        // Move placed-block flags along with blocks pushed by pistons
+        new PistonMoveJournalTask().runTaskTimer(this, 1, 1);
+
+        // Forget arrows stuck in entities that despawned, every 10 minutes
+        new ArcheryTrackerSweepTask().runTaskTimer(this, 12000, 12000);
+
+        // Apply mob healthbar updates and restore timed out mob names
+        new MobHealthbarTask().runTaskTimer(this, 1, 1);
+
+        // Dismiss Call of the Wild summons whose time is up
+        new SummonExpiryTask().runTaskTimer(this, 1, 1);
+
+        // Forget flags of entities that were removed without dying, every 10 minutes
+        new EntityFlagSweepTask().runTaskTimer(this, 12000, 12000);
+
+        // Pick up permission changes that affect power levels, every 30 seconds
+        new PowerLevelPermissionTask().runTaskTimer(this, 30 * Misc.TICK_CONVERSION_FACTOR, 30 * Misc.TICK_CONVERSION_FACTOR);
+
         // Update power level tag scoreboards
         new PowerLevelUpdatingTask().runTaskTimer(this, 2 * Misc.TICK_CONVERSION_FACTOR, 2 * Misc.TICK_CONVERSION_FACTOR);
 
@@ -1,6 +1,8 @@
 package com.gmail.nossr50.party;
 
 import com.gmail.nossr50.config.Config;
+import com.gmail.nossr50.database.SQLDatabaseManager;
+import com.gmail.nossr50.database.SQLPartyStorage;
 import com.gmail.nossr50.datatypes.chat.ChatMode;
 import com.gmail.nossr50.datatypes.database.UpgradeType;
 import com.gmail.nossr50.datatypes.interactions.NotificationType;
@@ -15,7 +17,6 @@ import com.gmail.nossr50.events.party.McMMOPartyChangeEvent;
 import com.gmail.nossr50.events.party.McMMOPartyChangeEvent.EventReason;
 import com.gmail.nossr50.locale.LocaleLoader;
 import com.gmail.nossr50.mcMMO;
-import com.gmail.nossr50.util.Misc;
 import com.gmail.nossr50.util.Permissions;
 import com.gmail.nossr50.util.player.NotificationManager;
 import com.gmail.nossr50.util.player.UserManager;
@@ -27,14 +28,28 @@ import org.bukkit.entity.Player;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map.Entry;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 public final class PartyManager {
     private static String partiesFilePath = mcMMO.getFlatFileDirectory() + "parties.yml";
-    private static List<Party> parties = new ArrayList<Party>();
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30L;
+
+    private static final PartyRegistry registry = new PartyRegistry();
+    private static PartyStorage storage;
+    private static ExecutorService saveExecutor;
+
+    // Changes that are not in the storage yet, only touched by the party saving thread
+    private static final Map<String, PartySnapshot> unsavedChanges = new LinkedHashMap<String, PartySnapshot>();
+    private static final Set<String> unsavedRemovals = new LinkedHashSet<String>();
     private static File partyFile = new File(partiesFilePath);
 
     private PartyManager() {}
@@ -126,44 +141,31 @@ public final class PartyManager {
      * @return the near party members
      */
     public static List<Player> getNearMembers(McMMOPlayer mcMMOPlayer) {
-        List<Player> nearMembers = new ArrayList<Player>();
         Party party = mcMMOPlayer.getParty();
 
-        if (party != null) {
-            Player player = mcMMOPlayer.getPlayer();
-            double range = Config.getInstance().getPartyShareRange();
-
-            for (Player member : party.getOnlineMembers()) {
-                if (!player.equals(member) && member.isValid() && Misc.isNear(player.getLocation(), member.getLocation(), range)) {
-                    nearMembers.add(member);
-                }
-            }
+        if (party == null) {
+            return new ArrayList<Player>();
         }
 
-        return nearMembers;
+        return PartyPositionCache.getNearMembers(mcMMOPlayer.getPlayer(), party, Config.getInstance().getPartyShareRange());
     }
 
+    /**
+     * Get the near party members that the player can see.
+     *
+     * @param mcMMOPlayer The player to check
+     * @return the near, visible party members
+     */
     public static List<Player> getNearVisibleMembers(McMMOPlayer mcMMOPlayer) {
-        List<Player> nearMembers = new ArrayList<Player>();
         Party party = mcMMOPlayer.getParty();
 
-        if (party != null) {
-            Player player = mcMMOPlayer.getPlayer();
-            double range = Config.getInstance().getPartyShareRange();
-
-            for (Player member : party.getVisibleMembers(player)) {
-                if (!player.equals(member)
-                        && member.isValid()
-                        && Misc.isNear(player.getLocation(), member.getLocation(), range)) {
-                    nearMembers.add(member);
-                }
-            }
+        if (party == null) {
+            return new ArrayList<Player>();
         }
 
-        return nearMembers;
+        return PartyPositionCache.getNearVisibleMembers(mcMMOPlayer.getPlayer(), party, Config.getInstance().getPartyShareRange());
     }
 
-
     /**
      * Get a list of all players in this player's party.
      *
@@ -207,13 +209,7 @@ public final class PartyManager {
      * @return the existing party, null otherwise
      */
     public static Party getParty(String partyName) {
-        for (Party party : parties) {
-            if (party.getName().equalsIgnoreCase(partyName)) {
-                return party;
-            }
-        }
-
-        return null;
+        return registry.getByName(partyName);
     }
 
     /**
@@ -224,13 +220,7 @@ public final class PartyManager {
      */
     @Deprecated
     public static Party getPlayerParty(String playerName) {
-        for (Party party : parties) {
-            if (party.getMembers().keySet().contains(playerName)) {
-                return party;
-            }
-        }
-
-        return null;
+        return registry.getByMemberName(playerName);
     }
 
     /**
@@ -240,20 +230,22 @@ public final class PartyManager {
      * @return the existing party, null otherwise
      */
     public static Party getPlayerParty(String playerName, UUID uuid) {
-        for (Party party : parties) {
-            LinkedHashMap<UUID, String> members = party.getMembers();
-            if (members.keySet().contains(uuid) || members.values().contains(playerName)) {
+        Party party = registry.getByMember(uuid);
 
-                // Name changes
-                if (members.get(uuid) == null || !members.get(uuid).equals(playerName)) {
-                    members.put(uuid, playerName);
-                }
+        if (party == null) {
+            party = registry.getByMemberName(playerName);
+        }
+
+        if (party != null) {
+            String memberName = party.getMembers().get(uuid);
 
-                return party;
+            // Name changes
+            if (memberName == null || !memberName.equals(playerName)) {
+                registry.addMember(party, uuid, playerName);
             }
         }
 
-        return null;
+        return party;
     }
 
     /**
@@ -271,10 +263,10 @@ public final class PartyManager {
     /**
      * Get a list of all current parties.
      *
-     * @return the list of parties.
+     * @return a read-only list of parties.
      */
     public static List<Party> getParties() {
-        return parties;
+        return registry.getParties();
     }
 
     /**
@@ -287,14 +279,15 @@ public final class PartyManager {
         LinkedHashMap<UUID, String> members = party.getMembers();
         String playerName = player.getName();
 
-        members.remove(player.getUniqueId());
+        registry.removeMember(party, player.getUniqueId());
+        PartyPositionCache.invalidate();
 
         if (player.isOnline()) {
             party.getOnlineMembers().remove(player.getPlayer());
         }
 
         if (members.isEmpty()) {
-            parties.remove(party);
+            registry.unregister(party);
         }
         else {
             // If the leaving player was the party leader, appoint a new leader from the party members
@@ -331,7 +324,8 @@ public final class PartyManager {
             party.getAlly().setAlly(null);
         }
 
-        parties.remove(party);
+        registry.unregister(party);
+        PartyPositionCache.invalidate();
     }
 
     /**
@@ -350,7 +344,7 @@ public final class PartyManager {
             player.sendMessage(LocaleLoader.getString("Party.Password.Set", password));
         }
 
-        parties.add(party);
+        registry.register(party);
 
         player.sendMessage(LocaleLoader.getString("Commands.Party.Create", party.getName()));
         addToParty(mcMMOPlayer, party);
@@ -396,7 +390,7 @@ public final class PartyManager {
         Party invite = mcMMOPlayer.getPartyInvite();
 
         // Check if the party still exists, it might have been disbanded
-        if (!parties.contains(invite)) {
+        if (!registry.contains(invite)) {
             NotificationManager.sendPlayerInformation(mcMMOPlayer.getPlayer(), NotificationType.PARTY_MESSAGE, "Party.Disband");
             return;
         }
@@ -425,7 +419,7 @@ public final class PartyManager {
         Player player = mcMMOPlayer.getPlayer();
 
         // Check if the party still exists, it might have been disbanded
-        if (!parties.contains(invite)) {
+        if (!registry.contains(invite)) {
             player.sendMessage(LocaleLoader.getString("Party.Disband"));
             return;
         }
@@ -487,8 +481,19 @@ public final class PartyManager {
 
         informPartyMembersJoin(party, playerName);
         mcMMOPlayer.setParty(party);
-        party.getMembers().put(player.getUniqueId(), player.getName());
+        registry.addMember(party, player.getUniqueId(), player.getName());
         party.getOnlineMembers().add(player);
+        PartyPositionCache.invalidate();
+    }
+
+    /**
+     * Rename a party.
+     *
+     * @param party The party to rename
+     * @param newPartyName The new name of the party
+     */
+    public static void renameParty(Party party, String newPartyName) {
+        registry.rename(party, newPartyName);
     }
 
     /**
@@ -542,109 +547,152 @@ public final class PartyManager {
     }
 
     /**
-     * Load party file.
+     * Load parties from the configured party storage.
      */
     public static void loadParties() {
-        if (!partyFile.exists()) {
-            return;
-        }
-
-        if (mcMMO.getUpgradeManager().shouldUpgrade(UpgradeType.ADD_UUIDS_PARTY)) {
+        storage = createStorage();
+        saveExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "mcMMO Party Saver");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (partyFile.exists() && mcMMO.getUpgradeManager().shouldUpgrade(UpgradeType.ADD_UUIDS_PARTY)) {
             loadAndUpgradeParties();
             return;
         }
 
-        YamlConfiguration partiesFile = YamlConfiguration.loadConfiguration(partyFile);
+        List<PartySnapshot> snapshots = storage.load();
+        boolean unsavedImport = false;
 
-        ArrayList<Party> hasAlly = new ArrayList<Party>();
+        // First start with the database storage enabled, bring over the existing parties
+        if (snapshots.isEmpty() && storage instanceof SQLPartyStorage && partyFile.exists() && ((SQLPartyStorage) storage).isEmpty()) {
+            snapshots = new YamlPartyStorage(partyFile).load();
 
-        for (String partyName : partiesFile.getConfigurationSection("").getKeys(false)) {
-            Party party = new Party(partyName);
+            mcMMO.p.getLogger().info("Copying " + snapshots.size() + " parties from parties.yml to the database...");
 
-            String[] leaderSplit = partiesFile.getString(partyName + ".Leader").split("[|]");
-            party.setLeader(new PartyLeader(UUID.fromString(leaderSplit[0]), leaderSplit[1]));
-            party.setPassword(partiesFile.getString(partyName + ".Password"));
-            party.setLocked(partiesFile.getBoolean(partyName + ".Locked"));
-            party.setLevel(partiesFile.getInt(partyName + ".Level"));
-            party.setXp(partiesFile.getInt(partyName + ".Xp"));
+            // Only retire parties.yml once the database really holds the parties
+            try {
+                storage.save(snapshots, Collections.<String>emptyList());
 
-            if (partiesFile.getString(partyName + ".Ally") != null) {
-                hasAlly.add(party);
+                if (!partyFile.renameTo(new File(partiesFilePath + ".imported"))) {
+                    mcMMO.p.getLogger().warning("Could not rename parties.yml to parties.yml.imported!");
+                }
+            }
+            catch (Exception e) {
+                mcMMO.p.getLogger().warning("Could not copy the parties to the database, will retry on the next save and keep parties.yml: " + e.toString());
+                unsavedImport = true;
             }
+        }
 
-            party.setXpShareMode(ShareMode.getShareMode(partiesFile.getString(partyName + ".ExpShareMode", "NONE")));
-            party.setItemShareMode(ShareMode.getShareMode(partiesFile.getString(partyName + ".ItemShareMode", "NONE")));
+        for (PartySnapshot snapshot : snapshots) {
+            registry.register(snapshot.toParty());
+        }
 
-            for (ItemShareType itemShareType : ItemShareType.values()) {
-                party.setSharingDrops(itemShareType, partiesFile.getBoolean(partyName + ".ItemShareType." + itemShareType.toString(), true));
-            }
+        for (PartySnapshot snapshot : snapshots) {
+            Party party = getParty(snapshot.getName());
 
-            LinkedHashMap<UUID, String> members = party.getMembers();
+            if (party == null) {
+                continue;
+            }
 
-            for (String memberEntry : partiesFile.getStringList(partyName + ".Members")) {
-                String[] memberSplit = memberEntry.split("[|]");
-                members.put(UUID.fromString(memberSplit[0]), memberSplit[1]);
+            if (snapshot.getAllyName() != null) {
+                party.setAlly(getParty(snapshot.getAllyName()));
             }
 
-            parties.add(party);
+            party.setDirty(unsavedImport);
         }
-        mcMMO.p.debug("Loaded (" + parties.size() + ") Parties...");
 
-        for (Party party : hasAlly) {
-            party.setAlly(PartyManager.getParty(partiesFile.getString(party.getName() + ".Ally")));
-        }
+        registry.drainRemovedNames();
+        mcMMO.p.debug("Loaded (" + registry.size() + ") Parties...");
     }
 
     /**
-     * Save party file.
+     * Hand all parties changed since the last save to the party saving thread.
+     * The main thread only copies the changed parties, serializing and writing happens off-thread.
      */
     public static void saveParties() {
-        if (partyFile.exists()) {
-            if (!partyFile.delete()) {
-                mcMMO.p.getLogger().warning("Could not delete party file. Party saving failed!");
-                return;
+        if (storage == null) {
+            return;
+        }
+
+        final List<PartySnapshot> changed = new ArrayList<PartySnapshot>();
+        final Set<String> removedNames = registry.drainRemovedNames();
+
+        for (Party party : registry.getParties()) {
+            if (party.isDirty()) {
+                changed.add(PartySnapshot.of(party));
+                party.setDirty(false);
             }
         }
 
-        YamlConfiguration partiesFile = new YamlConfiguration();
+        if (changed.isEmpty() && removedNames.isEmpty()) {
+            return;
+        }
+
+        mcMMO.p.debug("Saving Parties... (" + changed.size() + " changed, " + removedNames.size() + " removed)");
+        saveExecutor.execute(() -> writeChanges(changed, removedNames));
+    }
 
-        mcMMO.p.debug("Saving Parties... (" + parties.size() + ")");
-        for (Party party : parties) {
-            String partyName = party.getName();
-            PartyLeader leader = party.getLeader();
+    /**
+     * Save all changed parties and wait for the party saving thread to finish.
+     */
+    public static void shutdown() {
+        if (storage == null) {
+            return;
+        }
 
-            partiesFile.set(partyName + ".Leader", leader.getUniqueId().toString() + "|" + leader.getPlayerName());
-            partiesFile.set(partyName + ".Password", party.getPassword());
-            partiesFile.set(partyName + ".Locked", party.isLocked());
-            partiesFile.set(partyName + ".Level", party.getLevel());
-            partiesFile.set(partyName + ".Xp", (int) party.getXp());
-            partiesFile.set(partyName + ".Ally", (party.getAlly() != null) ? party.getAlly().getName() : "");
-            partiesFile.set(partyName + ".ExpShareMode", party.getXpShareMode().toString());
-            partiesFile.set(partyName + ".ItemShareMode", party.getItemShareMode().toString());
+        saveParties();
+        saveExecutor.shutdown();
 
-            for (ItemShareType itemShareType : ItemShareType.values()) {
-                partiesFile.set(partyName + ".ItemShareType." + itemShareType.toString(), party.sharingDrops(itemShareType));
+        try {
+            if (!saveExecutor.awaitTermination(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                mcMMO.p.getLogger().severe("Timed out while saving parties, recent party changes may be lost!");
             }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-            List<String> members = new ArrayList<String>();
+        if (!unsavedChanges.isEmpty() || !unsavedRemovals.isEmpty()) {
+            mcMMO.p.getLogger().severe("Could not save " + (unsavedChanges.size() + unsavedRemovals.size()) + " party changes!");
+        }
 
-            for (Entry<UUID, String> memberEntry : party.getMembers().entrySet()) {
-                String memberUniqueId = memberEntry.getKey() == null ? "" : memberEntry.getKey().toString();
-                String memberName = memberEntry.getValue();
+        storage = null;
+    }
 
-                if (!members.contains(memberName)) {
-                    members.add(memberUniqueId + "|" + memberName);
-                }
+    private static PartyStorage createStorage() {
+        if (Config.getInstance().getPartyUseMySQL()) {
+            if (mcMMO.getDatabaseManager() instanceof SQLDatabaseManager) {
+                return new SQLPartyStorage((SQLDatabaseManager) mcMMO.getDatabaseManager());
             }
 
-            partiesFile.set(partyName + ".Members", members);
+            mcMMO.p.getLogger().warning("Party.Use_MySQL is enabled but MySQL is not in use, parties will be stored in parties.yml");
+        }
+
+        return new YamlPartyStorage(partyFile);
+    }
+
+    // Runs on the party saving thread
+    private static void writeChanges(List<PartySnapshot> changed, Set<String> removedNames) {
+        // Fold this batch into whatever failed to save before, newer state wins
+        for (String partyName : removedNames) {
+            unsavedChanges.remove(partyName);
+        }
+
+        unsavedRemovals.addAll(removedNames);
+
+        for (PartySnapshot snapshot : changed) {
+            unsavedChanges.put(snapshot.getName(), snapshot);
         }
 
         try {
-            partiesFile.save(partyFile);
+            storage.save(unsavedChanges.values(), unsavedRemovals);
+            unsavedChanges.clear();
+            unsavedRemovals.clear();
         }
         catch (Exception e) {
-            e.printStackTrace();
+            mcMMO.p.getLogger().warning("Party saving failed, will retry on the next save: " + e.toString());
         }
     }
 
@@ -703,10 +751,10 @@ public final class PartyManager {
                 members.put(memberUniqueId, memberName);
             }
 
-            parties.add(party);
+            registry.register(party);
         }
 
-        mcMMO.p.debug("Loaded (" + parties.size() + ") Parties...");
+        mcMMO.p.debug("Loaded (" + registry.size() + ") Parties...");
 
         for (Party party : hasAlly) {
             party.setAlly(PartyManager.getParty(partiesFile.getString(party.getName() + ".Ally")));
@@ -0,0 +1,182 @@
+package com.gmail.nossr50.party;
+
+import com.gmail.nossr50.datatypes.party.Party;
+import com.gmail.nossr50.mcMMO;
+import org.bukkit.Location;
+import org.bukkit.World;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Per-tick cache of party member positions and near member lookups.
+ * <p>
+ * Positions are copied into primitive fields the first time a member is looked at in a tick, and
+ * the near members of a player are remembered for the rest of the tick, so a party gaining XP many
+ * times per tick only measures the distances once. Main thread only.
+ */
+public final class PartyPositionCache {
+    private static final int EVICTION_INTERVAL_TICKS = 20;
+
+    private static final Map<UUID, MemberPosition> positions = new HashMap<UUID, MemberPosition>();
+    private static final Map<UUID, NearMembers> nearMembers = new HashMap<UUID, NearMembers>();
+    private static final Location scratch = new Location(null, 0, 0, 0);
+
+    private static long currentTick;
+
+    private PartyPositionCache() {}
+
+    /**
+     * Advance to the next tick, invalidating all cached positions and lookups.
+     */
+    public static void tick() {
+        currentTick++;
+        nearMembers.clear();
+
+        // Forget players that have not been looked at for a while
+        if (currentTick % EVICTION_INTERVAL_TICKS == 0) {
+            Iterator<MemberPosition> iterator = positions.values().iterator();
+
+            while (iterator.hasNext()) {
+                if (currentTick - iterator.next().tick > EVICTION_INTERVAL_TICKS) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Drop all remembered lookups, for instance because party membership changed.
+     */
+    public static void invalidate() {
+        nearMembers.clear();
+    }
+
+    static List<Player> getNearMembers(Player player, Party party, double range) {
+        if (!mcMMO.p.getServer().isPrimaryThread()) {
+            return findNearMembers(player, party.getOnlineMembers(), range, false);
+        }
+
+        NearMembers cached = getCachedLookup(player, range);
+
+        if (cached.all == null) {
+            cached.all = findNearMembers(player, party.getOnlineMembers(), range, false);
+        }
+
+        // Callers are free to modify the returned list
+        return new ArrayList<Player>(cached.all);
+    }
+
+    static List<Player> getNearVisibleMembers(Player player, Party party, double range) {
+        if (!mcMMO.p.getServer().isPrimaryThread()) {
+            return findNearMembers(player, party.getOnlineMembers(), range, true);
+        }
+
+        NearMembers cached = getCachedLookup(player, range);
+
+        if (cached.visible == null) {
+            cached.visible = findNearMembers(player, party.getOnlineMembers(), range, true);
+        }
+
+        return new ArrayList<Player>(cached.visible);
+    }
+
+    private static NearMembers getCachedLookup(Player player, double range) {
+        NearMembers cached = nearMembers.get(player.getUniqueId());
+
+        if (cached == null || cached.range != range) {
+            cached = new NearMembers(range);
+            nearMembers.put(player.getUniqueId(), cached);
+        }
+
+        return cached;
+    }
+
+    private static List<Player> findNearMembers(Player player, List<Player> members, double range, boolean visibleOnly) {
+        List<Player> near = new ArrayList<Player>();
+        MemberPosition origin = getPosition(player);
+        double rangeSquared = range * range;
+
+        for (Player member : members) {
+            if (player.equals(member) || (visibleOnly && !player.canSee(member))) {
+                continue;
+            }
+
+            MemberPosition position = getPosition(member);
+
+            if (!position.valid || position.world != origin.world) {
+                continue;
+            }
+
+            if (range == 0 || origin.distanceSquared(position) < rangeSquared) {
+                near.add(member);
+            }
+        }
+
+        return near;
+    }
+
+    private static MemberPosition getPosition(Player player) {
+        boolean primaryThread = mcMMO.p.getServer().isPrimaryThread();
+        MemberPosition position = primaryThread ? positions.get(player.getUniqueId()) : null;
+
+        if (position == null) {
+            position = new MemberPosition();
+
+            if (primaryThread) {
+                positions.put(player.getUniqueId(), position);
+            }
+        }
+        else if (position.tick == currentTick) {
+            return position;
+        }
+
+        Location location = primaryThread ? player.getLocation(scratch) : player.getLocation();
+
+        position.tick = currentTick;
+        position.world = location.getWorld();
+        position.x = location.getX();
+        position.y = location.getY();
+        position.z = location.getZ();
+        position.valid = player.isValid();
+
+        if (primaryThread) {
+            // Don't keep the world alive through the scratch location
+            scratch.setWorld(null);
+        }
+
+        return position;
+    }
+
+    private static class MemberPosition {
+        private long tick;
+        private World world;
+        private double x;
+        private double y;
+        private double z;
+        private boolean valid;
+
+        private double distanceSquared(MemberPosition other) {
+            double dx = x - other.x;
+            double dy = y - other.y;
+            double dz = z - other.z;
+
+            return dx * dx + dy * dy + dz * dz;
+        }
+    }
+
+    private static class NearMembers {
+        private final double range;
+        private List<Player> all;
+        private List<Player> visible;
+
+        private NearMembers(double range) {
+            this.range = range;
+        }
+    }
+}
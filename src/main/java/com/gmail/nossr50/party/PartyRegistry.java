@@ -0,0 +1,171 @@
+package com.gmail.nossr50.party;
+
+import com.gmail.nossr50.datatypes.party.Party;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Holds every loaded party together with lookup indexes by party name and by member.
+ * <p>
+ * All membership and naming changes must go through this registry so the indexes stay in
+ * sync with {@link Party#getMembers()}. Main thread only.
+ */
+final class PartyRegistry {
+    private final List<Party> parties = new ArrayList<Party>();
+    private final List<Party> partiesView = Collections.unmodifiableList(parties);
+
+    private final Map<String, Party> partiesByName = new HashMap<String, Party>();
+    private final Map<UUID, Party> partiesByMember = new HashMap<UUID, Party>();
+    private final Map<String, Party> partiesByMemberName = new HashMap<String, Party>();
+
+    // Names of parties that were disbanded or renamed since the last save
+    private final Set<String> removedNames = new HashSet<String>();
+
+    /**
+     * @return a read-only view of all registered parties
+     */
+    List<Party> getParties() {
+        return partiesView;
+    }
+
+    int size() {
+        return parties.size();
+    }
+
+    boolean contains(Party party) {
+        return party != null && partiesByName.get(key(party.getName())) == party;
+    }
+
+    /**
+     * Look up a party by name, ignoring case.
+     */
+    Party getByName(String partyName) {
+        return partyName == null ? null : partiesByName.get(key(partyName));
+    }
+
+    Party getByMember(UUID uuid) {
+        return uuid == null ? null : partiesByMember.get(uuid);
+    }
+
+    /**
+     * Look up a party by the exact name a member is stored under.
+     */
+    Party getByMemberName(String playerName) {
+        return playerName == null ? null : partiesByMemberName.get(playerName);
+    }
+
+    /**
+     * Register a party along with all of its current members.
+     */
+    void register(Party party) {
+        parties.add(party);
+        partiesByName.put(key(party.getName()), party);
+        removedNames.remove(party.getName());
+
+        for (Map.Entry<UUID, String> member : party.getMembers().entrySet()) {
+            index(party, member.getKey(), member.getValue());
+        }
+    }
+
+    /**
+     * Remove a party and drop all of its members from the member indexes.
+     */
+    void unregister(Party party) {
+        if (!parties.remove(party)) {
+            return;
+        }
+
+        partiesByName.remove(key(party.getName()), party);
+        removedNames.add(party.getName());
+
+        for (Map.Entry<UUID, String> member : party.getMembers().entrySet()) {
+            unindex(party, member.getKey(), member.getValue());
+        }
+    }
+
+    void rename(Party party, String newName) {
+        boolean registered = contains(party);
+
+        if (registered) {
+            partiesByName.remove(key(party.getName()));
+            removedNames.add(party.getName());
+        }
+
+        party.setName(newName);
+
+        if (registered) {
+            partiesByName.put(key(newName), party);
+            removedNames.remove(newName);
+        }
+
+        // The ally stores our name
+        if (party.getAlly() != null) {
+            party.getAlly().setDirty(true);
+        }
+    }
+
+    void addMember(Party party, UUID uuid, String playerName) {
+        String oldName = party.getMembers().put(uuid, playerName);
+        party.setDirty(true);
+
+        if (oldName != null && !oldName.equals(playerName)) {
+            partiesByMemberName.remove(oldName, party);
+        }
+
+        if (contains(party)) {
+            index(party, uuid, playerName);
+        }
+    }
+
+    void removeMember(Party party, UUID uuid) {
+        String playerName = party.getMembers().remove(uuid);
+
+        if (playerName != null) {
+            unindex(party, uuid, playerName);
+            party.setDirty(true);
+        }
+    }
+
+    /**
+     * Take the names of all parties removed since the last call.
+     *
+     * @return the removed party names
+     */
+    Set<String> drainRemovedNames() {
+        Set<String> names = new HashSet<String>(removedNames);
+        removedNames.clear();
+        return names;
+    }
+
+    private void index(Party party, UUID uuid, String playerName) {
+        if (uuid != null) {
+            partiesByMember.put(uuid, party);
+        }
+
+        if (playerName != null) {
+            partiesByMemberName.put(playerName, party);
+        }
+    }
+
+    private void unindex(Party party, UUID uuid, String playerName) {
+        if (uuid != null) {
+            partiesByMember.remove(uuid, party);
+        }
+
+        if (playerName != null) {
+            partiesByMemberName.remove(playerName, party);
+        }
+    }
+
+    private static String key(String partyName) {
+        return partyName.toLowerCase(Locale.ENGLISH);
+    }
+}
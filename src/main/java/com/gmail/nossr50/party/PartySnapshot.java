@@ -0,0 +1,133 @@
+package com.gmail.nossr50.party;
+
+import com.gmail.nossr50.datatypes.party.ItemShareType;
+import com.gmail.nossr50.datatypes.party.Party;
+import com.gmail.nossr50.datatypes.party.PartyLeader;
+import com.gmail.nossr50.datatypes.party.ShareMode;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable copy of the persistent state of a {@link Party}, safe to hand to the party storage thread.
+ */
+public final class PartySnapshot {
+    private final String name;
+    private final UUID leaderUniqueId;
+    private final String leaderName;
+    private final String password;
+    private final boolean locked;
+    private final int level;
+    private final int xp;
+    private final String allyName;
+    private final ShareMode xpShareMode;
+    private final ShareMode itemShareMode;
+    private final Set<ItemShareType> sharedItemTypes;
+    private final Map<UUID, String> members;
+
+    public PartySnapshot(String name, UUID leaderUniqueId, String leaderName, String password, boolean locked, int level, int xp, String allyName,
+                         ShareMode xpShareMode, ShareMode itemShareMode, Set<ItemShareType> sharedItemTypes, Map<UUID, String> members) {
+        this.name = name;
+        this.leaderUniqueId = leaderUniqueId;
+        this.leaderName = leaderName;
+        this.password = password;
+        this.locked = locked;
+        this.level = level;
+        this.xp = xp;
+        this.allyName = allyName;
+        this.xpShareMode = xpShareMode == null ? ShareMode.NONE : xpShareMode;
+        this.itemShareMode = itemShareMode == null ? ShareMode.NONE : itemShareMode;
+        this.sharedItemTypes = Collections.unmodifiableSet(sharedItemTypes.isEmpty() ? EnumSet.noneOf(ItemShareType.class) : EnumSet.copyOf(sharedItemTypes));
+        this.members = Collections.unmodifiableMap(new LinkedHashMap<UUID, String>(members));
+    }
+
+    public static PartySnapshot of(Party party) {
+        PartyLeader leader = party.getLeader();
+        Set<ItemShareType> sharedItemTypes = EnumSet.noneOf(ItemShareType.class);
+
+        for (ItemShareType itemShareType : ItemShareType.values()) {
+            if (party.sharingDrops(itemShareType)) {
+                sharedItemTypes.add(itemShareType);
+            }
+        }
+
+        return new PartySnapshot(party.getName(), leader.getUniqueId(), leader.getPlayerName(), party.getPassword(), party.isLocked(), party.getLevel(), (int) party.getXp(),
+                party.getAlly() == null ? null : party.getAlly().getName(), party.getXpShareMode(), party.getItemShareMode(), sharedItemTypes, party.getMembers());
+    }
+
+    /**
+     * Create a new party from this snapshot. The ally is not resolved, see {@link #getAllyName()}.
+     *
+     * @return the new, unregistered party
+     */
+    public Party toParty() {
+        Party party = new Party(name);
+
+        party.setLeader(new PartyLeader(leaderUniqueId, leaderName));
+        party.setPassword(password);
+        party.setLocked(locked);
+        party.setLevel(level);
+        party.setXp(xp);
+        party.setXpShareMode(xpShareMode);
+        party.setItemShareMode(itemShareMode);
+
+        for (ItemShareType itemShareType : ItemShareType.values()) {
+            party.setSharingDrops(itemShareType, sharedItemTypes.contains(itemShareType));
+        }
+
+        party.getMembers().putAll(members);
+        return party;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public UUID getLeaderUniqueId() {
+        return leaderUniqueId;
+    }
+
+    public String getLeaderName() {
+        return leaderName;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public boolean isLocked() {
+        return locked;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public int getXp() {
+        return xp;
+    }
+
+    public String getAllyName() {
+        return allyName;
+    }
+
+    public ShareMode getXpShareMode() {
+        return xpShareMode;
+    }
+
+    public ShareMode getItemShareMode() {
+        return itemShareMode;
+    }
+
+    public boolean isSharing(ItemShareType itemShareType) {
+        return sharedItemTypes.contains(itemShareType);
+    }
+
+    public Map<UUID, String> getMembers() {
+        return members;
+    }
+}
@@ -0,0 +1,30 @@
+package com.gmail.nossr50.party;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Backend that persists parties.
+ * <p>
+ * {@link #load()} is called once from the main thread during startup, followed by at most one
+ * {@link #save(Collection, Collection)} there when parties are imported. Every other call is made
+ * from the single party saving thread, so implementations need no locking of their own.
+ */
+public interface PartyStorage {
+    /**
+     * Load all stored parties.
+     *
+     * @return the stored parties, allies are referenced by name only
+     */
+    List<PartySnapshot> load();
+
+    /**
+     * Write a batch of changes. Removals are applied before the changed parties are written,
+     * so a party that was removed and re-created under the same name ends up stored.
+     *
+     * @param changed Parties that were created or modified since the last save
+     * @param removedNames Names of parties that were disbanded or renamed since the last save
+     * @throws Exception if the changes could not be stored, the whole batch is retried on the next save
+     */
+    void save(Collection<PartySnapshot> changed, Collection<String> removedNames) throws Exception;
+}
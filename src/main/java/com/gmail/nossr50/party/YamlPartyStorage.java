@@ -0,0 +1,146 @@
+package com.gmail.nossr50.party;
+
+import com.gmail.nossr50.datatypes.party.ItemShareType;
+import com.gmail.nossr50.datatypes.party.ShareMode;
+import com.gmail.nossr50.mcMMO;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Stores parties in parties.yml.
+ * <p>
+ * The parsed file is kept in memory, so a save only re-serializes the parties that changed before
+ * the whole document is written to a temporary file and moved over the old one. A crash mid-save
+ * leaves the previous file intact.
+ */
+public class YamlPartyStorage implements PartyStorage {
+    private final File partyFile;
+    private final File tempFile;
+
+    // Only touched by the saving thread after load
+    private YamlConfiguration contents = new YamlConfiguration();
+
+    public YamlPartyStorage(File partyFile) {
+        this.partyFile = partyFile;
+        this.tempFile = new File(partyFile.getPath() + ".tmp");
+    }
+
+    @Override
+    public List<PartySnapshot> load() {
+        List<PartySnapshot> parties = new ArrayList<PartySnapshot>();
+
+        if (!partyFile.exists()) {
+            return parties;
+        }
+
+        contents = YamlConfiguration.loadConfiguration(partyFile);
+
+        for (String partyName : contents.getKeys(false)) {
+            try {
+                parties.add(read(partyName));
+            }
+            catch (Exception e) {
+                mcMMO.p.getLogger().warning("Could not load party " + partyName + " from " + partyFile.getName() + ": " + e.toString());
+            }
+        }
+
+        return parties;
+    }
+
+    @Override
+    public void save(Collection<PartySnapshot> changed, Collection<String> removedNames) throws IOException {
+        for (String partyName : removedNames) {
+            contents.set(partyName, null);
+        }
+
+        for (PartySnapshot party : changed) {
+            write(party);
+        }
+
+        Files.write(tempFile.toPath(), contents.saveToString().getBytes(StandardCharsets.UTF_8));
+
+        try {
+            Files.move(tempFile.toPath(), partyFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile.toPath(), partyFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private PartySnapshot read(String partyName) {
+        String[] leaderSplit = contents.getString(partyName + ".Leader").split("[|]");
+        String allyName = contents.getString(partyName + ".Ally");
+        Set<ItemShareType> sharedItemTypes = EnumSet.noneOf(ItemShareType.class);
+        Map<UUID, String> members = new LinkedHashMap<UUID, String>();
+
+        for (ItemShareType itemShareType : ItemShareType.values()) {
+            if (contents.getBoolean(partyName + ".ItemShareType." + itemShareType.toString(), true)) {
+                sharedItemTypes.add(itemShareType);
+            }
+        }
+
+        for (String memberEntry : contents.getStringList(partyName + ".Members")) {
+            String[] memberSplit = memberEntry.split("[|]");
+
+            if (memberSplit.length < 2 || memberSplit[0].isEmpty()) {
+                continue;
+            }
+
+            members.put(UUID.fromString(memberSplit[0]), memberSplit[1]);
+        }
+
+        return new PartySnapshot(partyName, UUID.fromString(leaderSplit[0]), leaderSplit[1],
+                contents.getString(partyName + ".Password"),
+                contents.getBoolean(partyName + ".Locked"),
+                contents.getInt(partyName + ".Level"),
+                contents.getInt(partyName + ".Xp"),
+                allyName == null || allyName.isEmpty() ? null : allyName,
+                ShareMode.getShareMode(contents.getString(partyName + ".ExpShareMode", "NONE")),
+                ShareMode.getShareMode(contents.getString(partyName + ".ItemShareMode", "NONE")),
+                sharedItemTypes, members);
+    }
+
+    private void write(PartySnapshot party) {
+        String partyName = party.getName();
+
+        // Start from a clean section so stale keys do not survive
+        contents.set(partyName, null);
+
+        contents.set(partyName + ".Leader", party.getLeaderUniqueId().toString() + "|" + party.getLeaderName());
+        contents.set(partyName + ".Password", party.getPassword());
+        contents.set(partyName + ".Locked", party.isLocked());
+        contents.set(partyName + ".Level", party.getLevel());
+        contents.set(partyName + ".Xp", party.getXp());
+        contents.set(partyName + ".Ally", party.getAllyName() != null ? party.getAllyName() : "");
+        contents.set(partyName + ".ExpShareMode", party.getXpShareMode().toString());
+        contents.set(partyName + ".ItemShareMode", party.getItemShareMode().toString());
+
+        for (ItemShareType itemShareType : ItemShareType.values()) {
+            contents.set(partyName + ".ItemShareType." + itemShareType.toString(), party.isSharing(itemShareType));
+        }
+
+        List<String> members = new ArrayList<String>();
+
+        for (Entry<UUID, String> memberEntry : party.getMembers().entrySet()) {
+            String memberUniqueId = memberEntry.getKey() == null ? "" : memberEntry.getKey().toString();
+            members.add(memberUniqueId + "|" + memberEntry.getValue());
+        }
+
+        contents.set(partyName + ".Members", members);
+    }
+}
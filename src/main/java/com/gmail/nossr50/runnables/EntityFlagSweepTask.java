@@ -0,0 +1,12 @@
+package com.gmail.nossr50.runnables;
+
+import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.util.EntityFlags;
+import org.bukkit.scheduler.BukkitRunnable;
+
+public class EntityFlagSweepTask extends BukkitRunnable {
+    @Override
+    public void run() {
+        EntityFlags.removeInvalidEntities(mcMMO.p.getServer().getWorlds());
+    }
+}
@@ -1,29 +1,24 @@
 package com.gmail.nossr50.runnables;
 
-import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.util.MobHealthbarUtils;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.scheduler.BukkitRunnable;
 
+/**
+ * @deprecated Healthbars time out on their own, use {@link MobHealthbarUtils#restoreName(org.bukkit.entity.Entity)} to restore a name early
+ */
+@Deprecated
 public class MobHealthDisplayUpdaterTask extends BukkitRunnable {
     private LivingEntity target;
-    private String oldName;
-    private boolean oldNameVisible;
 
     public MobHealthDisplayUpdaterTask(LivingEntity target) {
-        if (target.isValid()) {
-            this.target = target;
-            this.oldName = target.getMetadata(mcMMO.customNameKey).get(0).asString();
-            this.oldNameVisible = target.getMetadata(mcMMO.customVisibleKey).get(0).asBoolean();
-        }
+        this.target = target;
     }
 
     @Override
     public void run() {
-        if (target != null && target.isValid()) {
-            target.setCustomNameVisible(oldNameVisible);
-            target.setCustomName(oldName);
-            target.removeMetadata(mcMMO.customNameKey, mcMMO.p);
-            target.removeMetadata(mcMMO.customVisibleKey, mcMMO.p);
+        if (target.isValid()) {
+            MobHealthbarUtils.restoreName(target);
         }
     }
 }
@@ -0,0 +1,11 @@
+package com.gmail.nossr50.runnables;
+
+import com.gmail.nossr50.util.MobHealthbarUtils;
+import org.bukkit.scheduler.BukkitRunnable;
+
+public class MobHealthbarTask extends BukkitRunnable {
+    @Override
+    public void run() {
+        MobHealthbarUtils.tick();
+    }
+}
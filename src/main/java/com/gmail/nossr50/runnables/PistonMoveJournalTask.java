@@ -0,0 +1,11 @@
+package com.gmail.nossr50.runnables;
+
+import com.gmail.nossr50.util.blockmeta.PistonMoveJournal;
+import org.bukkit.scheduler.BukkitRunnable;
+
+public class PistonMoveJournalTask extends BukkitRunnable {
+    @Override
+    public void run() {
+        PistonMoveJournal.flush();
+    }
+}
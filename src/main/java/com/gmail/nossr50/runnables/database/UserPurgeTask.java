@@ -1,21 +1,53 @@
 package com.gmail.nossr50.runnables.database;
 
 import com.gmail.nossr50.config.Config;
+import com.gmail.nossr50.locale.LocaleLoader;
 import com.gmail.nossr50.mcMMO;
+import org.bukkit.command.CommandSender;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.concurrent.locks.ReentrantLock;
 
 public class UserPurgeTask extends BukkitRunnable {
-    private ReentrantLock lock = new ReentrantLock();
+    // Shared so a purge started by command never overlaps the scheduled one
+    private static final ReentrantLock lock = new ReentrantLock();
+    private final CommandSender sender;
+
+    public UserPurgeTask() {
+        this(null);
+    }
+
+    /**
+     * @param sender Who to tell when the purge is done, or null
+     */
+    public UserPurgeTask(CommandSender sender) {
+        this.sender = sender;
+    }
+
     @Override
     public void run() {
         lock.lock();
-        mcMMO.getDatabaseManager().purgePowerlessUsers();
 
-        if (Config.getInstance().getOldUsersCutoff() != -1) {
-            mcMMO.getDatabaseManager().purgeOldUsers();
+        try {
+            mcMMO.getDatabaseManager().purgePowerlessUsers();
+
+            if (Config.getInstance().getOldUsersCutoff() != -1) {
+                mcMMO.getDatabaseManager().purgeOldUsers();
+            }
+        }
+        finally {
+            lock.unlock();
         }
-        lock.unlock();
+
+        if (sender == null) {
+            return;
+        }
+
+        mcMMO.p.getServer().getScheduler().runTask(mcMMO.p, new Runnable() {
+            @Override
+            public void run() {
+                sender.sendMessage(LocaleLoader.getString("Commands.mcpurge.Success"));
+            }
+        });
     }
 }
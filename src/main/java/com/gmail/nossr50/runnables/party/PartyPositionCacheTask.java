@@ -0,0 +1,11 @@
+package com.gmail.nossr50.runnables.party;
+
+import com.gmail.nossr50.party.PartyPositionCache;
+import org.bukkit.scheduler.BukkitRunnable;
+
+public class PartyPositionCacheTask extends BukkitRunnable {
+    @Override
+    public void run() {
+        PartyPositionCache.tick();
+    }
+}
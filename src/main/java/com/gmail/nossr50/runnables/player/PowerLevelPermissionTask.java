@@ -0,0 +1,14 @@
+package com.gmail.nossr50.runnables.player;
+
+import com.gmail.nossr50.datatypes.player.McMMOPlayer;
+import com.gmail.nossr50.util.player.UserManager;
+import org.bukkit.scheduler.BukkitRunnable;
+
+public class PowerLevelPermissionTask extends BukkitRunnable {
+    @Override
+    public void run() {
+        for (McMMOPlayer mcMMOPlayer : UserManager.getPlayers()) {
+            mcMMOPlayer.updatePowerLevelPermissions();
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.gmail.nossr50.runnables.skills;
 
 import com.gmail.nossr50.skills.alchemy.Alchemy;
+import com.gmail.nossr50.skills.alchemy.AlchemyBrew;
+import com.gmail.nossr50.skills.alchemy.AlchemyBrewScheduler;
 import com.gmail.nossr50.skills.alchemy.AlchemyPotionBrewer;
 import org.bukkit.Location;
 import org.bukkit.block.BrewingStand;
@@ -27,13 +29,15 @@ public class AlchemyBrewCheckTask extends BukkitRunnable {
         ItemStack[] newInventory = Arrays.copyOfRange(brewingStand.getInventory().getContents(), 0, 4);
         boolean validBrew = brewingStand.getFuelLevel() > 0 && AlchemyPotionBrewer.isValidBrew(player, newInventory);
 
-        if (Alchemy.brewingStandMap.containsKey(location)) {
+        AlchemyBrew brew = AlchemyBrewScheduler.getBrew(location);
+
+        if (brew != null) {
             if (oldInventory[Alchemy.INGREDIENT_SLOT] == null || newInventory[Alchemy.INGREDIENT_SLOT] == null || !oldInventory[Alchemy.INGREDIENT_SLOT].isSimilar(newInventory[Alchemy.INGREDIENT_SLOT]) || !validBrew) {
-                Alchemy.brewingStandMap.get(location).cancelBrew();
+                brew.cancelBrew();
             }
         }
         else if (validBrew) {
-            Alchemy.brewingStandMap.put(location, new AlchemyBrewTask(brewingStand, player));
+            AlchemyBrewScheduler.startBrew(brewingStand, player);
         }
     }
 }
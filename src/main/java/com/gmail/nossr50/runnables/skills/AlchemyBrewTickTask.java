@@ -0,0 +1,11 @@
+package com.gmail.nossr50.runnables.skills;
+
+import com.gmail.nossr50.skills.alchemy.AlchemyBrewScheduler;
+import org.bukkit.scheduler.BukkitRunnable;
+
+public class AlchemyBrewTickTask extends BukkitRunnable {
+    @Override
+    public void run() {
+        AlchemyBrewScheduler.tick();
+    }
+}
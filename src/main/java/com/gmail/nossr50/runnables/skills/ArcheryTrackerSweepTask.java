@@ -0,0 +1,11 @@
+package com.gmail.nossr50.runnables.skills;
+
+import com.gmail.nossr50.skills.archery.Archery;
+import org.bukkit.scheduler.BukkitRunnable;
+
+public class ArcheryTrackerSweepTask extends BukkitRunnable {
+    @Override
+    public void run() {
+        Archery.removeInvalidTrackedEntities();
+    }
+}
@@ -2,7 +2,6 @@ package com.gmail.nossr50.runnables.skills;
 
 import com.gmail.nossr50.config.AdvancedConfig;
 import com.gmail.nossr50.datatypes.interactions.NotificationType;
-import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.util.MobHealthbarUtils;
 import com.gmail.nossr50.util.player.NotificationManager;
 import com.gmail.nossr50.util.skills.CombatUtils;
@@ -60,7 +59,7 @@ public class BleedTimerTask extends BukkitRunnable {
                     damage = damage * 1.5;
 
 
-                MobHealthbarUtils.handleMobHealthbars(target, damage, mcMMO.p); //Update health bars
+                MobHealthbarUtils.handleMobHealthbars(target); //Update health bars
             }
 
             CombatUtils.dealNoInvulnerabilityTickDamage(target, damage, containerEntry.getValue().damageSource);
@@ -0,0 +1,11 @@
+package com.gmail.nossr50.runnables.skills;
+
+import com.gmail.nossr50.skills.taming.SummonRegistry;
+import org.bukkit.scheduler.BukkitRunnable;
+
+public class SummonExpiryTask extends BukkitRunnable {
+    @Override
+    public void run() {
+        SummonRegistry.tick();
+    }
+}
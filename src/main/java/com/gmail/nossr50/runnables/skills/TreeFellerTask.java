@@ -0,0 +1,23 @@
+package com.gmail.nossr50.runnables.skills;
+
+import com.gmail.nossr50.config.Config;
+import com.gmail.nossr50.skills.woodcutting.TreeFellerRemoval;
+import org.bukkit.scheduler.BukkitRunnable;
+
+public class TreeFellerTask extends BukkitRunnable {
+    private final TreeFellerRemoval removal;
+    private final int blocksPerTick;
+
+    public TreeFellerTask(TreeFellerRemoval removal) {
+        this.removal = removal;
+        this.blocksPerTick = Config.getInstance().getTreeFellerBlocksPerTick();
+    }
+
+    @Override
+    public void run() {
+        if (removal.removeBlocks(blocksPerTick)) {
+            removal.finish();
+            cancel();
+        }
+    }
+}
@@ -2,15 +2,7 @@ package com.gmail.nossr50.skills.alchemy;
 
 import com.gmail.nossr50.config.AdvancedConfig;
 import com.gmail.nossr50.datatypes.skills.SubSkillType;
-import com.gmail.nossr50.mcMMO;
-import com.gmail.nossr50.runnables.skills.AlchemyBrewTask;
 import com.gmail.nossr50.util.skills.RankUtils;
-import org.bukkit.Location;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 public final class Alchemy {
     /*public enum Tier {
@@ -54,22 +46,12 @@ public final class Alchemy {
     public static double catalysisMinSpeed      = AdvancedConfig.getInstance().getCatalysisMinSpeed();
     public static double catalysisMaxSpeed      = AdvancedConfig.getInstance().getCatalysisMaxSpeed();
 
-    public static Map<Location, AlchemyBrewTask> brewingStandMap = new HashMap<Location, AlchemyBrewTask>();
-
     private Alchemy() {}
 
     /**
      * Finish all active brews.  Used upon Disable to prevent vanilla potions from being brewed upon next Enable.
      */
     public static void finishAllBrews() {
-        mcMMO.p.debug("Completing " + brewingStandMap.size() + " unfinished Alchemy brews.");
-
-        List<AlchemyBrewTask> toFinish = new ArrayList<AlchemyBrewTask>();
-
-        toFinish.addAll(brewingStandMap.values());
-
-        for (AlchemyBrewTask alchemyBrewTask : toFinish) {
-            alchemyBrewTask.finishImmediately();
-        }
+        AlchemyBrewScheduler.finishAll();
     }
 }
\ No newline at end of file
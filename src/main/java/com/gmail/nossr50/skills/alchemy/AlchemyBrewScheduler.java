@@ -0,0 +1,215 @@
+package com.gmail.nossr50.skills.alchemy;
+
+import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.util.BlockUtils;
+import com.gmail.nossr50.util.LatencyHistogram;
+import com.gmail.nossr50.util.LongObjectHashMap;
+import com.gmail.nossr50.util.TimerWheel;
+import org.bukkit.Location;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Player;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Drives all active Alchemy brews from a single task.
+ * <p>
+ * Brews are indexed by world and packed block coordinates. Completion deadlines sit in a timer
+ * wheel, so a tick only looks at the brews that are due, and the brewing stands' progress and
+ * ingredients are refreshed for all brews together every few ticks. Main thread only.
+ */
+public final class AlchemyBrewScheduler {
+    private static final int PROGRESS_UPDATE_INTERVAL = 5;
+
+    private static final Map<UUID, LongObjectHashMap<AlchemyBrew>> brews = new HashMap<UUID, LongObjectHashMap<AlchemyBrew>>();
+    private static final TimerWheel<AlchemyBrew> wheel = new TimerWheel<AlchemyBrew>();
+    private static final List<AlchemyBrew> starting = new ArrayList<AlchemyBrew>();
+    private static final List<AlchemyBrew> due = new ArrayList<AlchemyBrew>();
+    private static final List<AlchemyBrew> scratch = new ArrayList<AlchemyBrew>();
+
+    private static final LatencyHistogram tickLatency = new LatencyHistogram();
+
+    private static int activeBrews;
+    private static long completedBrews;
+
+    private AlchemyBrewScheduler() {}
+
+    /**
+     * Start a brew at the given brewing stand, replacing any brew already running there.
+     *
+     * @param brewingStand The brewing stand to brew in
+     * @param player The player who started the brew
+     */
+    public static void startBrew(BlockState brewingStand, Player player) {
+        AlchemyBrew existing = getBrew(brewingStand.getLocation());
+
+        if (existing != null) {
+            remove(existing);
+        }
+
+        AlchemyBrew brew = new AlchemyBrew(brewingStand, player);
+
+        brew.startTick = wheel.getCurrentTick();
+        brew.timer = wheel.schedule(brew, brew.getDurationTicks());
+        brew.active = true;
+
+        getTable(brew.getWorldId(), true).put(brew.getKey(), brew);
+        starting.add(brew);
+        activeBrews++;
+    }
+
+    /**
+     * Get the brew running at the given location.
+     *
+     * @param location The location of the brewing stand
+     * @return the brew, or null if there is none
+     */
+    public static AlchemyBrew getBrew(Location location) {
+        LongObjectHashMap<AlchemyBrew> table = getTable(location.getWorld().getUID(), false);
+
+        if (table == null) {
+            return null;
+        }
+
+        return table.get(BlockUtils.packCoordinates(location.getBlockX(), location.getBlockY(), location.getBlockZ()));
+    }
+
+    /**
+     * Stop tracking a brew. Its timer wheel entry is dropped lazily when it comes up.
+     */
+    static void remove(AlchemyBrew brew) {
+        if (!brew.active) {
+            return;
+        }
+
+        brew.active = false;
+        brew.timer.cancel();
+        activeBrews--;
+
+        LongObjectHashMap<AlchemyBrew> table = getTable(brew.getWorldId(), false);
+
+        if (table != null && table.get(brew.getKey()) == brew) {
+            table.remove(brew.getKey());
+
+            if (table.isEmpty()) {
+                brews.remove(brew.getWorldId());
+            }
+        }
+    }
+
+    /**
+     * Advance all brews by one tick.
+     */
+    public static void tick() {
+        long startTime = System.nanoTime();
+
+        // Due brews are collected first, those that go away in the meantime are skipped below
+        wheel.tick(due);
+
+        // Fuel is applied a tick late, after vanilla has handled the inventory change
+        if (!starting.isEmpty()) {
+            scratch.addAll(starting);
+            starting.clear();
+
+            for (AlchemyBrew brew : scratch) {
+                if (brew.active) {
+                    brew.start();
+                }
+            }
+
+            scratch.clear();
+        }
+
+        if (wheel.getCurrentTick() % PROGRESS_UPDATE_INTERVAL == 0) {
+            updateProgress();
+        }
+
+        if (!due.isEmpty()) {
+            for (AlchemyBrew brew : due) {
+                if (!brew.active) {
+                    continue;
+                }
+
+                boolean valid = brew.isValid();
+
+                remove(brew);
+
+                if (valid) {
+                    brew.finish();
+                    completedBrews++;
+                }
+            }
+
+            due.clear();
+        }
+
+        if (activeBrews > 0) {
+            tickLatency.recordSince(startTime);
+        }
+    }
+
+    /**
+     * Finish all active brews. Used upon Disable to prevent vanilla potions from being brewed upon next Enable.
+     */
+    public static void finishAll() {
+        mcMMO.p.debug("Completing " + activeBrews + " unfinished Alchemy brews.");
+
+        for (LongObjectHashMap<AlchemyBrew> table : brews.values()) {
+            table.copyValuesTo(scratch);
+        }
+
+        for (AlchemyBrew brew : scratch) {
+            brew.finishImmediately();
+        }
+
+        scratch.clear();
+    }
+
+    // Cancel brews that lost their player or ingredient and push the progress to the brewing stands
+    private static void updateProgress() {
+        for (LongObjectHashMap<AlchemyBrew> table : brews.values()) {
+            table.copyValuesTo(scratch);
+        }
+
+        for (AlchemyBrew brew : scratch) {
+            if (!brew.isValid()) {
+                remove(brew);
+                continue;
+            }
+
+            brew.updateProgress(wheel.getCurrentTick());
+        }
+
+        scratch.clear();
+    }
+
+    private static LongObjectHashMap<AlchemyBrew> getTable(UUID worldId, boolean create) {
+        LongObjectHashMap<AlchemyBrew> table = brews.get(worldId);
+
+        if (table == null && create) {
+            table = new LongObjectHashMap<AlchemyBrew>();
+            brews.put(worldId, table);
+        }
+
+        return table;
+    }
+
+    public static int getActiveBrews() {
+        return activeBrews;
+    }
+
+    public static long getCompletedBrews() {
+        return completedBrews;
+    }
+
+    /**
+     * @return Time spent per tick driving the brews, only ticks with active brews are recorded
+     */
+    public static LatencyHistogram getTickLatency() {
+        return tickLatency;
+    }
+}
@@ -113,11 +113,16 @@ public final class AlchemyPotionBrewer {
         for (int i = 0; i < 3; i++) {
             ItemStack item = inventory.getItem(i);
 
-            if (isEmpty(item) || item.getType() == Material.GLASS_BOTTLE || !PotionConfig.getInstance().isValidPotion(item)) {
+            if (isEmpty(item) || item.getType() == Material.GLASS_BOTTLE) {
                 continue;
             }
 
             AlchemyPotion input = PotionConfig.getInstance().getPotion(item);
+
+            if (input == null) {
+                continue;
+            }
+
             AlchemyPotion output = input.getChild(ingredient);
 
             inputList.add(input);
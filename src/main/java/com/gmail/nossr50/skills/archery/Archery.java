@@ -3,6 +3,7 @@ package com.gmail.nossr50.skills.archery;
 import com.gmail.nossr50.config.AdvancedConfig;
 import com.gmail.nossr50.config.experience.ExperienceConfig;
 import com.gmail.nossr50.datatypes.skills.SubSkillType;
+import com.gmail.nossr50.util.LongObjectHashMap;
 import com.gmail.nossr50.util.Misc;
 import com.gmail.nossr50.util.skills.RankUtils;
 import org.bukkit.Material;
@@ -11,11 +12,12 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
 public class Archery {
-    private static List<TrackedEntity> trackedEntities = new ArrayList<TrackedEntity>();
+    // Keyed by entity id, which is never reused while the server runs
+    private static final LongObjectHashMap<TrackedEntity> trackedEntities = new LongObjectHashMap<TrackedEntity>();
+    private static final List<TrackedEntity> sweepScratch = new ArrayList<TrackedEntity>();
 
     public static double skillShotMaxBonusDamage     = AdvancedConfig.getInstance().getSkillShotDamageMax();
 
@@ -24,25 +26,21 @@ public class Archery {
     public static final double DISTANCE_XP_MULTIPLIER = ExperienceConfig.getInstance().getArcheryDistanceMultiplier();
 
     protected static void incrementTrackerValue(LivingEntity livingEntity) {
-        for (TrackedEntity trackedEntity : trackedEntities) {
-            if (trackedEntity.getLivingEntity().getEntityId() == livingEntity.getEntityId()) {
-                trackedEntity.incrementArrowCount();
-                return;
-            }
+        TrackedEntity trackedEntity = trackedEntities.get(livingEntity.getEntityId());
+
+        if (trackedEntity == null) {
+            addToTracker(livingEntity); // If the entity isn't tracked yet
+            return;
         }
 
-        addToTracker(livingEntity); // If the entity isn't tracked yet
+        trackedEntity.incrementArrowCount();
     }
 
     protected static void addToTracker(LivingEntity livingEntity) {
         TrackedEntity trackedEntity = new TrackedEntity(livingEntity);
 
         trackedEntity.incrementArrowCount();
-        trackedEntities.add(trackedEntity);
-    }
-
-    protected static void removeFromTracker(TrackedEntity trackedEntity) {
-        trackedEntities.remove(trackedEntity);
+        trackedEntities.put(livingEntity.getEntityId(), trackedEntity);
     }
 
     /**
@@ -51,15 +49,30 @@ public class Archery {
      * @param livingEntity The entity hit by the arrows
      */
     public static void arrowRetrievalCheck(LivingEntity livingEntity) {
-        for (Iterator<TrackedEntity> entityIterator = trackedEntities.iterator(); entityIterator.hasNext();) {
-            TrackedEntity trackedEntity = entityIterator.next();
+        TrackedEntity trackedEntity = trackedEntities.remove(livingEntity.getEntityId());
+
+        if (trackedEntity != null) {
+            Misc.dropItems(livingEntity.getLocation(), new ItemStack(Material.ARROW), trackedEntity.getArrowCount());
+        }
+    }
+
+    /**
+     * Stop tracking entities that are no longer valid, for instance because they despawned.
+     */
+    public static void removeInvalidTrackedEntities() {
+        trackedEntities.copyValuesTo(sweepScratch);
 
-            if (trackedEntity.getID() == livingEntity.getUniqueId()) {
-                Misc.dropItems(livingEntity.getLocation(), new ItemStack(Material.ARROW), trackedEntity.getArrowCount());
-                entityIterator.remove();
-                return;
+        for (TrackedEntity trackedEntity : sweepScratch) {
+            if (!trackedEntity.getLivingEntity().isValid()) {
+                trackedEntities.remove(trackedEntity.getLivingEntity().getEntityId());
             }
         }
+
+        sweepScratch.clear();
+    }
+
+    public static int getTrackedEntityCount() {
+        return trackedEntities.size();
     }
 
     public static double getSkillShotBonusDamage(Player player, double oldDamage)
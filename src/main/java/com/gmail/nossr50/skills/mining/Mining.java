@@ -3,6 +3,7 @@ package com.gmail.nossr50.skills.mining;
 import com.gmail.nossr50.config.experience.ExperienceConfig;
 import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
 import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.util.DropAggregator;
 import com.gmail.nossr50.util.Misc;
 import org.bukkit.Material;
 import org.bukkit.block.BlockState;
@@ -29,8 +30,9 @@ public class Mining {
      * Handle double drops when using Silk Touch.
      *
      * @param blockState The {@link BlockState} to check ability activation for
+     * @param drops The aggregator collecting the drops
      */
-    protected static void handleSilkTouchDrops(BlockState blockState) {
+    protected static void handleSilkTouchDrops(BlockState blockState, DropAggregator drops) {
         Material blockType = blockState.getType();
 
         switch (blockType) {
@@ -74,7 +76,7 @@ public class Mining {
             case WHITE_TERRACOTTA:
             case YELLOW_GLAZED_TERRACOTTA:
             case YELLOW_TERRACOTTA:
-                handleMiningDrops(blockState);
+                handleMiningDrops(blockState, drops);
                 return;
 
             case COAL_ORE:
@@ -87,12 +89,12 @@ public class Mining {
             case REDSTONE_ORE:
             case STONE:
             case PRISMARINE:
-                Misc.dropItem(Misc.getBlockCenter(blockState), new ItemStack(blockState.getType()));
+                drops.add(Misc.getBlockCenter(blockState), new ItemStack(blockState.getType()));
                 return;
 
             default:
                 if (mcMMO.getModManager().isCustomMiningBlock(blockState)) {
-                    Misc.dropItem(Misc.getBlockCenter(blockState), new ItemStack(blockState.getType()));
+                    drops.add(Misc.getBlockCenter(blockState), new ItemStack(blockState.getType()));
                 }
                 return;
         }
@@ -102,8 +104,9 @@ public class Mining {
      * Handle double drops from Mining & Blast Mining.
      *
      * @param blockState The {@link BlockState} to check ability activation for
+     * @param drops The aggregator collecting the drops
      */
-    protected static void handleMiningDrops(BlockState blockState) {
+    protected static void handleMiningDrops(BlockState blockState, DropAggregator drops) {
         switch (blockState.getType()) {
             case COAL_ORE:
             case DIAMOND_ORE:
@@ -154,12 +157,12 @@ public class Mining {
             case YELLOW_TERRACOTTA:
             case STONE:
             case NETHER_QUARTZ_ORE:
-                Misc.dropItems(Misc.getBlockCenter(blockState), blockState.getBlock().getDrops());
+                drops.add(Misc.getBlockCenter(blockState), blockState.getBlock().getDrops());
                 return;
 
             default:
                 if (mcMMO.getModManager().isCustomMiningBlock(blockState)) {
-                    Misc.dropItems(Misc.getBlockCenter(blockState), blockState.getBlock().getDrops());
+                    drops.add(Misc.getBlockCenter(blockState), blockState.getBlock().getDrops());
                 }
                 return;
         }
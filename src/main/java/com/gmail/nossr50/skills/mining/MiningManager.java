@@ -12,6 +12,7 @@ import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.runnables.skills.AbilityCooldownTask;
 import com.gmail.nossr50.skills.SkillManager;
 import com.gmail.nossr50.util.BlockUtils;
+import com.gmail.nossr50.util.DropAggregator;
 import com.gmail.nossr50.util.EventUtils;
 import com.gmail.nossr50.util.Misc;
 import com.gmail.nossr50.util.Permissions;
@@ -32,6 +33,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class MiningManager extends SkillManager {
+    // Blast Mining drops within cubes of this size are merged
+    private static final double BLAST_DROP_CLUSTER_SIZE = 4;
+
     public MiningManager(McMMOPlayer mcMMOPlayer) {
         super(mcMMOPlayer, PrimarySkillType.MINING);
     }
@@ -86,18 +90,21 @@ public class MiningManager extends SkillManager {
         }
 
         boolean silkTouch = player.getInventory().getItemInMainHand().containsEnchantment(Enchantment.SILK_TOUCH);
+        DropAggregator drops = new DropAggregator(1);
 
         //TODO: Make this readable
         for (int i = mcMMOPlayer.getAbilityMode(skill.getAbility()) ? 2 : 1; i != 0; i--) {
             if (RandomChanceUtil.isActivationSuccessful(SkillActivationType.RANDOM_LINEAR_100_SCALE_WITH_CAP, SubSkillType.MINING_DOUBLE_DROPS, player)) {
                 if (silkTouch) {
-                    Mining.handleSilkTouchDrops(blockState);
+                    Mining.handleSilkTouchDrops(blockState, drops);
                 }
                 else {
-                    Mining.handleMiningDrops(blockState);
+                    Mining.handleMiningDrops(blockState, drops);
                 }
             }
         }
+
+        drops.spawn();
     }
 
     /**
@@ -137,6 +144,7 @@ public class MiningManager extends SkillManager {
         List<BlockState> ores = new ArrayList<BlockState>();
         List<BlockState> debris = new ArrayList<BlockState>();
         int xp = 0;
+        DropAggregator drops = new DropAggregator(BLAST_DROP_CLUSTER_SIZE);
 
         float oreBonus = (float) (getOreBonus() / 100);
         float debrisReduction = (float) (getDebrisReduction() / 100);
@@ -161,11 +169,11 @@ public class MiningManager extends SkillManager {
                     xp += Mining.getBlockXp(blockState);
                 }
 
-                Misc.dropItem(Misc.getBlockCenter(blockState), new ItemStack(blockState.getType())); // Initial block that would have been dropped
+                drops.add(Misc.getBlockCenter(blockState), new ItemStack(blockState.getType())); // Initial block that would have been dropped
 
                 if (!mcMMO.getPlaceStore().isTrue(blockState)) {
                     for (int i = 1; i < dropMultiplier; i++) {
-                        Mining.handleSilkTouchDrops(blockState); // Bonus drops - should drop the block & not the items
+                        Mining.handleSilkTouchDrops(blockState, drops); // Bonus drops - should drop the block & not the items
                     }
                 }
             }
@@ -174,11 +182,12 @@ public class MiningManager extends SkillManager {
         if (debrisYield > 0) {
             for (BlockState blockState : debris) {
                 if (Misc.getRandom().nextFloat() < debrisYield) {
-                    Misc.dropItems(Misc.getBlockCenter(blockState), blockState.getBlock().getDrops());
+                    drops.add(Misc.getBlockCenter(blockState), blockState.getBlock().getDrops());
                 }
             }
         }
 
+        drops.spawn();
         applyXpGain(xp, XPGainReason.PVE);
     }
 
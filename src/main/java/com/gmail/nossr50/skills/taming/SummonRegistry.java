@@ -0,0 +1,161 @@
+package com.gmail.nossr50.skills.taming;
+
+import com.gmail.nossr50.util.LongObjectHashMap;
+import com.gmail.nossr50.util.TimerWheel;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Tracks Call of the Wild summons per owner and entity type.
+ * <p>
+ * Every summon remembers its slot in its owner's list, so it is removed by swapping the last
+ * summon into its place. Summons with a limited lifespan sit in a timer wheel driven by a single
+ * task, so a tick only looks at the summons that are due. Main thread only.
+ */
+public final class SummonRegistry {
+    private static final Map<UUID, EnumMap<EntityType, List<TrackedTamingEntity>>> summons = new HashMap<UUID, EnumMap<EntityType, List<TrackedTamingEntity>>>();
+    private static final LongObjectHashMap<TrackedTamingEntity> summonsByEntityId = new LongObjectHashMap<TrackedTamingEntity>();
+    private static final TimerWheel<TrackedTamingEntity> wheel = new TimerWheel<TrackedTamingEntity>();
+    private static final List<TrackedTamingEntity> scratch = new ArrayList<TrackedTamingEntity>();
+
+    private static int activeSummons;
+
+    private SummonRegistry() {}
+
+    /**
+     * Start tracking a summon.
+     *
+     * @param livingEntity The summoned entity
+     * @param ownerId The player who summoned it
+     * @param lifespanTicks Ticks until the summon is dismissed, or 0 to keep it
+     */
+    static void add(LivingEntity livingEntity, UUID ownerId, int lifespanTicks) {
+        TrackedTamingEntity trackedEntity = new TrackedTamingEntity(livingEntity, ownerId);
+        List<TrackedTamingEntity> ownerSummons = getSummons(ownerId, livingEntity.getType(), true);
+
+        trackedEntity.index = ownerSummons.size();
+        trackedEntity.active = true;
+        ownerSummons.add(trackedEntity);
+        summonsByEntityId.put(livingEntity.getEntityId(), trackedEntity);
+        activeSummons++;
+
+        if (lifespanTicks > 0) {
+            trackedEntity.expiryTimer = wheel.schedule(trackedEntity, lifespanTicks);
+        }
+    }
+
+    /**
+     * Stop tracking a summon that died or otherwise went away.
+     *
+     * @param entity The entity to stop tracking, ignored if it isn't a summon
+     */
+    public static void remove(Entity entity) {
+        TrackedTamingEntity trackedEntity = summonsByEntityId.get(entity.getEntityId());
+
+        if (trackedEntity != null && trackedEntity.getLivingEntity() == entity) {
+            remove(trackedEntity);
+        }
+    }
+
+    /**
+     * Amount of summons of a type a player currently has.
+     */
+    static int getSummonCount(UUID ownerId, EntityType type) {
+        List<TrackedTamingEntity> ownerSummons = getSummons(ownerId, type, false);
+        return ownerSummons == null ? 0 : ownerSummons.size();
+    }
+
+    /**
+     * Dismiss the summons whose lifespan ended this tick.
+     */
+    public static void tick() {
+        wheel.tick(scratch);
+
+        if (scratch.isEmpty()) {
+            return;
+        }
+
+        for (TrackedTamingEntity trackedEntity : scratch) {
+            remove(trackedEntity);
+            trackedEntity.expire();
+        }
+
+        scratch.clear();
+    }
+
+    private static void remove(TrackedTamingEntity trackedEntity) {
+        if (!trackedEntity.active) {
+            return;
+        }
+
+        trackedEntity.active = false;
+        activeSummons--;
+
+        if (trackedEntity.expiryTimer != null) {
+            trackedEntity.expiryTimer.cancel();
+        }
+
+        long entityId = trackedEntity.getLivingEntity().getEntityId();
+
+        if (summonsByEntityId.get(entityId) == trackedEntity) {
+            summonsByEntityId.remove(entityId);
+        }
+
+        EntityType type = trackedEntity.getLivingEntity().getType();
+        EnumMap<EntityType, List<TrackedTamingEntity>> ownerTypes = summons.get(trackedEntity.getOwnerId());
+        List<TrackedTamingEntity> ownerSummons = ownerTypes.get(type);
+
+        // Swap the last summon into the freed slot
+        TrackedTamingEntity last = ownerSummons.remove(ownerSummons.size() - 1);
+
+        if (last != trackedEntity) {
+            ownerSummons.set(trackedEntity.index, last);
+            last.index = trackedEntity.index;
+        }
+
+        if (ownerSummons.isEmpty()) {
+            ownerTypes.remove(type);
+
+            if (ownerTypes.isEmpty()) {
+                summons.remove(trackedEntity.getOwnerId());
+            }
+        }
+    }
+
+    private static List<TrackedTamingEntity> getSummons(UUID ownerId, EntityType type, boolean create) {
+        EnumMap<EntityType, List<TrackedTamingEntity>> ownerTypes = summons.get(ownerId);
+
+        if (ownerTypes == null) {
+            if (!create) {
+                return null;
+            }
+
+            ownerTypes = new EnumMap<EntityType, List<TrackedTamingEntity>>(EntityType.class);
+            summons.put(ownerId, ownerTypes);
+        }
+
+        List<TrackedTamingEntity> ownerSummons = ownerTypes.get(type);
+
+        if (ownerSummons == null && create) {
+            ownerSummons = new ArrayList<TrackedTamingEntity>();
+            ownerTypes.put(type, ownerSummons);
+        }
+
+        return ownerSummons;
+    }
+
+    /**
+     * @return Amount of Call of the Wild summons currently tracked
+     */
+    public static int getActiveSummons() {
+        return activeSummons;
+    }
+}
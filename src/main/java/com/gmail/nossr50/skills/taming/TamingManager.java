@@ -13,6 +13,7 @@ import com.gmail.nossr50.locale.LocaleLoader;
 import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.runnables.skills.BleedTimerTask;
 import com.gmail.nossr50.skills.SkillManager;
+import com.gmail.nossr50.util.EntityFlags;
 import com.gmail.nossr50.util.Misc;
 import com.gmail.nossr50.util.Permissions;
 import com.gmail.nossr50.util.StringUtils;
@@ -28,17 +29,11 @@ import org.bukkit.Sound;
 import org.bukkit.entity.*;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-
 public class TamingManager extends SkillManager {
     public TamingManager(McMMOPlayer mcMMOPlayer) {
         super(mcMMOPlayer, PrimarySkillType.TAMING);
     }
 
-    private static HashMap<EntityType, List<TrackedTamingEntity>> summonedEntities = new HashMap<EntityType, List<TrackedTamingEntity>>();
-
     public boolean canUseThickFur() {
         return RankUtils.hasUnlockedSubskill(getPlayer(), SubSkillType.TAMING_THICK_FUR)
                 && Permissions.isSubSkillEnabled(getPlayer(), SubSkillType.TAMING_THICK_FUR);
@@ -291,11 +286,11 @@ public class TamingManager extends SkillManager {
                 continue;
             }
 
-            entity.setMetadata(mcMMO.entityMetadataKey, mcMMO.metadataValue);
+            EntityFlags.setFlag(entity, EntityFlags.SPAWNED);
             ((Tameable) entity).setOwner(player);
             entity.setRemoveWhenFarAway(false);
 
-            addToTracker(entity);
+            SummonRegistry.add(entity, player.getUniqueId(), tamingCOTWLength * Misc.TICK_CONVERSION_FACTOR);
 
             switch (type) {
                 case OCELOT:
@@ -369,8 +364,7 @@ public class TamingManager extends SkillManager {
             return true;
         }
 
-        List<TrackedTamingEntity> trackedEntities = getTrackedEntities(entityType);
-        int summonAmount = trackedEntities == null ? 0 : trackedEntities.size();
+        int summonAmount = SummonRegistry.getSummonCount(player.getUniqueId(), entityType);
 
         if (summonAmount >= maxAmountSummons) {
             NotificationManager.sendPlayerInformation(player, NotificationType.SUBSKILL_MESSAGE_FAILED, "Taming.Summon.Fail.TooMany", String.valueOf(maxAmountSummons));
@@ -379,22 +373,4 @@ public class TamingManager extends SkillManager {
 
         return true;
     }
-
-    protected static void addToTracker(LivingEntity livingEntity) {
-        TrackedTamingEntity trackedEntity = new TrackedTamingEntity(livingEntity);
-
-        if (!summonedEntities.containsKey(livingEntity.getType())) {
-            summonedEntities.put(livingEntity.getType(), new ArrayList<TrackedTamingEntity>());
-        }
-
-        summonedEntities.get(livingEntity.getType()).add(trackedEntity);
-    }
-
-    protected static List<TrackedTamingEntity> getTrackedEntities(EntityType entityType) {
-        return summonedEntities.get(entityType);
-    }
-
-    protected static void removeFromTracker(TrackedTamingEntity trackedEntity) {
-        summonedEntities.get(trackedEntity.getLivingEntity().getType()).remove(trackedEntity);
-    }
 }
@@ -1,53 +1,49 @@
 package com.gmail.nossr50.skills.taming;
 
-import com.gmail.nossr50.config.Config;
-import com.gmail.nossr50.mcMMO;
-import com.gmail.nossr50.util.Misc;
+import com.gmail.nossr50.util.TimerWheel;
 import com.gmail.nossr50.util.skills.CombatUtils;
 import com.gmail.nossr50.util.skills.ParticleEffectUtils;
 import org.bukkit.Location;
 import org.bukkit.Sound;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.util.UUID;
 
-public class TrackedTamingEntity extends BukkitRunnable {
-    private LivingEntity livingEntity;
-    private UUID id;
-    private int length;
+/**
+ * A Call of the Wild summon, tracked by the {@link SummonRegistry}.
+ */
+public class TrackedTamingEntity {
+    private final LivingEntity livingEntity;
+    private final UUID ownerId;
 
-    protected TrackedTamingEntity(LivingEntity livingEntity) {
-        this.livingEntity = livingEntity;
-        this.id = livingEntity.getUniqueId();
-
-        int tamingCOTWLength = Config.getInstance().getTamingCOTWLength(livingEntity.getType());
+    // Registry state
+    TimerWheel.Timer<TrackedTamingEntity> expiryTimer;
+    int index;
+    boolean active;
 
-        if (tamingCOTWLength > 0) {
-            this.length = tamingCOTWLength * Misc.TICK_CONVERSION_FACTOR;
-            this.runTaskLater(mcMMO.p, length);
-        }
+    TrackedTamingEntity(LivingEntity livingEntity, UUID ownerId) {
+        this.livingEntity = livingEntity;
+        this.ownerId = ownerId;
     }
 
-    @Override
-    public void run() {
+    /**
+     * Dismiss the summon once its time is up.
+     */
+    void expire() {
         if (livingEntity.isValid()) {
             Location location = livingEntity.getLocation();
             location.getWorld().playSound(location, Sound.BLOCK_FIRE_EXTINGUISH, 0.8F, 0.8F);
             ParticleEffectUtils.playCallOfTheWildEffect(livingEntity);
             CombatUtils.dealDamage(livingEntity, livingEntity.getMaxHealth(), DamageCause.SUICIDE, livingEntity);
         }
-
-        TamingManager.removeFromTracker(this);
-        this.cancel();
     }
 
-    protected LivingEntity getLivingEntity() {
+    LivingEntity getLivingEntity() {
         return livingEntity;
     }
 
-    protected UUID getID() {
-        return id;
+    UUID getOwnerId() {
+        return ownerId;
     }
 }
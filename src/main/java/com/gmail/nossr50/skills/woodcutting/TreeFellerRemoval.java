@@ -0,0 +1,251 @@
+package com.gmail.nossr50.skills.woodcutting;
+
+import com.gmail.nossr50.datatypes.experience.XPGainReason;
+import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.skills.woodcutting.Woodcutting.ExperienceGainMethod;
+import com.gmail.nossr50.util.BlockUtils;
+import com.gmail.nossr50.util.DropAggregator;
+import com.gmail.nossr50.util.EventUtils;
+import com.gmail.nossr50.util.Misc;
+import com.gmail.nossr50.util.player.UserManager;
+import org.bukkit.Material;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Removes the blocks of a felled tree, from the top down, in batches.
+ * <p>
+ * Drops are not spawned per block but collected in a {@link DropAggregator} and spawned as full
+ * stacks, per cluster of nearby blocks, once the whole tree is gone. Removals still running when
+ * the plugin is disabled, or when the player logs out, are completed at once by {@link #finishAll()}
+ * and {@link #finishAll(Player)}. Harvest Lumber is rolled for every block when the tree is scanned,
+ * so blocks can still be removed with their drops once the player is gone. Main thread only.
+ */
+public final class TreeFellerRemoval {
+    // Tree Feller drops within cubes of this size are merged
+    private static final double DROP_CLUSTER_SIZE = 4;
+
+    // Counters over all removals since startup
+    private static long blocksProcessed;
+    private static long batchesProcessed;
+    private static int maxBlocksPerBatch;
+
+    private static final Set<TreeFellerRemoval> activeRemovals = new LinkedHashSet<TreeFellerRemoval>();
+
+    private final WoodcuttingManager woodcuttingManager;
+    private final List<BlockState> blocks;
+    private final boolean[] doubleDrops;
+    private final DropAggregator drops = new DropAggregator(DROP_CLUSTER_SIZE);
+
+    private int index;
+    private int xp;
+    private boolean done;
+
+    TreeFellerRemoval(WoodcuttingManager woodcuttingManager, Collection<BlockState> treeFellerBlocks) {
+        this.woodcuttingManager = woodcuttingManager;
+        this.blocks = new ArrayList<BlockState>(treeFellerBlocks);
+
+        // Stable, so blocks on the same layer keep the order they were found in
+        Collections.sort(blocks, new Comparator<BlockState>() {
+            @Override
+            public int compare(BlockState first, BlockState second) {
+                return Integer.compare(second.getY(), first.getY());
+            }
+        });
+
+        doubleDrops = new boolean[blocks.size()];
+
+        for (int i = 0; i < doubleDrops.length; i++) {
+            BlockState blockState = blocks.get(i);
+
+            if (BlockUtils.isLog(blockState) || mcMMO.getModManager().isCustomLog(blockState)) {
+                doubleDrops[i] = woodcuttingManager.canGetDoubleDrops();
+            }
+        }
+
+        activeRemovals.add(this);
+    }
+
+    /**
+     * Remove the next batch of blocks.
+     *
+     * @param budget Maximum amount of blocks to remove
+     * @return true if the tree is fully removed or removal was aborted
+     */
+    public boolean removeBlocks(int budget) {
+        if (done) {
+            return true;
+        }
+
+        Player player = woodcuttingManager.getPlayer();
+        // Without the player there is nobody to break the blocks as, the rest of the tree just comes down
+        boolean online = player.isOnline();
+        int processed = 0;
+
+        while (index < blocks.size() && processed < budget) {
+            int blockIndex = index++;
+            BlockState blockState = blocks.get(blockIndex);
+            Block block = blockState.getBlock();
+
+            // Something else changed the block since the tree was scanned
+            if (block.getType() != blockState.getType()) {
+                continue;
+            }
+
+            processed++;
+
+            if (online && !EventUtils.simulateBlockBreak(block, player, true)) {
+                index = blocks.size();
+                break;
+            }
+
+            removeBlock(blockState, block, doubleDrops[blockIndex]);
+        }
+
+        recordBatch(processed);
+        return index >= blocks.size();
+    }
+
+    /**
+     * Spawn the collected drops and award the experience. Only the first call has any effect.
+     */
+    public void finish() {
+        if (done) {
+            return;
+        }
+
+        done = true;
+        activeRemovals.remove(this);
+
+        drops.spawn();
+
+        // Nothing to award once the player's profile has been saved and unloaded
+        if (UserManager.hasPlayerDataKey(woodcuttingManager.getPlayer())) {
+            woodcuttingManager.applyXpGain(xp, XPGainReason.PVE);
+        }
+    }
+
+    public int getRemainingBlocks() {
+        return blocks.size() - index;
+    }
+
+    private void removeBlock(BlockState blockState, Block block, boolean doubleDrop) {
+        Material material = blockState.getType();
+
+        if (material == Material.BROWN_MUSHROOM_BLOCK || material == Material.RED_MUSHROOM_BLOCK) {
+            xp += Woodcutting.getExperienceFromLog(blockState, ExperienceGainMethod.TREE_FELLER);
+            addDrops(blockState, block.getDrops());
+        }
+        else if (mcMMO.getModManager().isCustomLog(blockState)) {
+            if (doubleDrop) {
+                addDrops(blockState, Woodcutting.getDoubleDrops(blockState));
+            }
+
+            xp += mcMMO.getModManager().getBlock(blockState).getXpGain();
+            addDrops(blockState, block.getDrops());
+        }
+        else if (mcMMO.getModManager().isCustomLeaf(blockState)) {
+            addDrops(blockState, block.getDrops());
+        }
+        else {
+            if (BlockUtils.isLog(blockState)) {
+                if (doubleDrop) {
+                    addDrops(blockState, Woodcutting.getDoubleDrops(blockState));
+                }
+
+                xp += Woodcutting.getExperienceFromLog(blockState, ExperienceGainMethod.TREE_FELLER);
+                addDrops(blockState, block.getDrops());
+            }
+
+            if (BlockUtils.isLeaves(blockState)) {
+                addDrops(blockState, block.getDrops());
+            }
+        }
+
+        blockState.setType(Material.AIR);
+        blockState.update(true);
+    }
+
+    private void addDrops(BlockState blockState, Collection<ItemStack> itemStacks) {
+        drops.add(Misc.getBlockCenter(blockState), itemStacks);
+    }
+
+    /**
+     * Remove the rest of every tree that is still being felled, then spawn the drops and award the
+     * experience, for when the plugin is disabled and the removal tasks will not run anymore.
+     */
+    public static void finishAll() {
+        for (TreeFellerRemoval removal : new ArrayList<TreeFellerRemoval>(activeRemovals)) {
+            removal.removeBlocks(Integer.MAX_VALUE);
+            removal.finish();
+        }
+    }
+
+    /**
+     * Remove the rest of every tree the player is still felling, then spawn the drops and award the
+     * experience, for when the player logs out and their profile is about to be saved.
+     *
+     * @param player The player logging out
+     */
+    public static void finishAll(Player player) {
+        for (TreeFellerRemoval removal : new ArrayList<TreeFellerRemoval>(activeRemovals)) {
+            if (!removal.woodcuttingManager.getPlayer().getUniqueId().equals(player.getUniqueId())) {
+                continue;
+            }
+
+            removal.removeBlocks(Integer.MAX_VALUE);
+            removal.finish();
+        }
+    }
+
+    private static void recordBatch(int processed) {
+        blocksProcessed += processed;
+        batchesProcessed++;
+        maxBlocksPerBatch = Math.max(maxBlocksPerBatch, processed);
+    }
+
+    /**
+     * @return Total amount of Tree Feller blocks removed since startup
+     */
+    public static long getBlocksProcessed() {
+        return blocksProcessed;
+    }
+
+    /**
+     * @return Total amount of batches (one per tick and tree) run since startup
+     */
+    public static long getBatchesProcessed() {
+        return batchesProcessed;
+    }
+
+    /**
+     * @return Average amount of blocks removed per tick and tree
+     */
+    public static double getAverageBlocksPerBatch() {
+        return batchesProcessed == 0 ? 0 : (double) blocksProcessed / batchesProcessed;
+    }
+
+    /**
+     * @return Largest amount of blocks removed by a single tree in one tick
+     */
+    public static int getMaxBlocksPerBatch() {
+        return maxBlocksPerBatch;
+    }
+
+    /**
+     * @return Amount of trees that are currently being removed
+     */
+    public static int getActiveRemovals() {
+        return activeRemovals.size();
+    }
+}
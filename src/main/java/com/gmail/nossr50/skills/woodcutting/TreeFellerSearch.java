@@ -0,0 +1,283 @@
+package com.gmail.nossr50.skills.woodcutting;
+
+import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.util.BlockUtils;
+import com.gmail.nossr50.util.LongHashSet;
+import com.gmail.nossr50.util.blockmeta.chunkmeta.ChunkStore;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.World;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.data.BlockData;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Finds the blocks of a tree for Tree Feller.
+ * <p>
+ * Blocks are addressed by packed long coordinates and read from chunk snapshots, and only the
+ * logs and leaves that end up in the tree are ever turned into {@link BlockState}s. Each chunk's
+ * placed-block store is fetched once per search instead of once per block.
+ */
+/*
+ * Algorithm: An int[][] of X/Z directions is created on static class
+ * initialization, representing a cylinder with radius of about 2 - the
+ * (0,0) center and all (+-2, +-2) corners are omitted.
+ *
+ * handleBlock() returns whether a new log was found, which is used for the
+ * sole purpose of switching between these two behaviors:
+ *
+ * (Call the center block "this log" for the below explanation.)
+ *
+ *  [A] There is another log above this log (TRUNK)
+ *    Only the flat cylinder in the directions array is searched.
+ *  [B] There is not another log above this log (BRANCH AND TOP)
+ *    The cylinder in the directions array is extended up and down by 1
+ *    block in the Y-axis, and the block below this log is checked as
+ *    well. Due to the fact that the directions array will catch all
+ *    blocks on a red mushroom, the special method for it is eliminated.
+ *
+ * Which of the two applies depends on whether the log above was already
+ * found, so logs are expanded depth-first in the same order the old
+ * recursive implementation used, with an explicit stack instead of the call
+ * stack. This keeps the resulting set of blocks identical.
+ */
+final class TreeFellerSearch {
+    /**
+     * The x/z differences to the blocks in a flat cylinder around the center
+     * block, which is excluded.
+     */
+    private static final int[][] directions = {
+                            new int[] {-2, -1}, new int[] {-2, 0}, new int[] {-2, 1},
+        new int[] {-1, -2}, new int[] {-1, -1}, new int[] {-1, 0}, new int[] {-1, 1}, new int[] {-1, 2},
+        new int[] { 0, -2}, new int[] { 0, -1},                    new int[] { 0, 1}, new int[] { 0, 2},
+        new int[] { 1, -2}, new int[] { 1, -1}, new int[] { 1, 0}, new int[] { 1, 1}, new int[] { 1, 2},
+                            new int[] { 2, -1}, new int[] { 2, 0}, new int[] { 2, 1},
+    };
+
+    private static final int NOT_LOG = 0;
+    private static final int NEW_LOG = 1;
+    private static final int THRESHOLD_REACHED = 2;
+
+    private static final byte OTHER = 0;
+    private static final byte LOG = 1;
+    private static final byte LEAVES = 2;
+
+    private final World world;
+    private final int maxHeight;
+    private final int threshold;
+    private final Set<BlockState> treeFellerBlocks;
+
+    private final LongHashSet found = new LongHashSet(256);
+    private final Map<Long, ChunkView> chunks = new HashMap<Long, ChunkView>();
+    private final Map<BlockData, Byte> blockTypes = new HashMap<BlockData, Byte>();
+    private ChunkView lastChunk;
+
+    TreeFellerSearch(World world, int threshold, Set<BlockState> treeFellerBlocks) {
+        this.world = world;
+        this.maxHeight = world.getMaxHeight();
+        this.threshold = threshold;
+        this.treeFellerBlocks = treeFellerBlocks;
+    }
+
+    /**
+     * Collect the tree around the given block into the result set.
+     *
+     * @return false if the tree is larger than the Tree Feller threshold
+     */
+    boolean search(int x, int y, int z) {
+        Deque<Frame> stack = new ArrayDeque<Frame>();
+        Frame root = new Frame();
+
+        if (!expand(x, y, z, root)) {
+            return false;
+        }
+
+        stack.push(root);
+
+        while (!stack.isEmpty()) {
+            Frame frame = stack.peek();
+
+            if (frame.index >= frame.size) {
+                stack.pop();
+                continue;
+            }
+
+            long center = frame.logs[frame.index++];
+            Frame child = new Frame();
+
+            if (!expand(BlockUtils.unpackX(center), BlockUtils.unpackY(center), BlockUtils.unpackZ(center), child)) {
+                return false;
+            }
+
+            if (child.size > 0) {
+                stack.push(child);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Look at the blocks around one log, collecting newly found logs into the frame.
+     *
+     * @return false if the threshold was reached
+     */
+    private boolean expand(int x, int y, int z, Frame frame) {
+        int result = handleBlock(x, y + 1, z, frame);
+
+        if (result == THRESHOLD_REACHED) {
+            return false;
+        }
+
+        // Check the block up and take different behavior (smaller search) if it's a log
+        if (result == NEW_LOG) {
+            for (int[] dir : directions) {
+                if (handleBlock(x + dir[0], y, z + dir[1], frame) == THRESHOLD_REACHED) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        // Cover DOWN
+        if (handleBlock(x, y - 1, z, frame) == THRESHOLD_REACHED) {
+            return false;
+        }
+
+        // Search in a cube
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int[] dir : directions) {
+                if (handleBlock(x + dir[0], y + dy, z + dir[1], frame) == THRESHOLD_REACHED) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    private int handleBlock(int x, int y, int z, Frame frame) {
+        long key = BlockUtils.packCoordinates(x, y, z);
+
+        if (found.contains(key)) {
+            return NOT_LOG;
+        }
+
+        ChunkView chunk = getChunk(x >> 4, z >> 4);
+
+        if (y >= 0 && y < maxHeight && chunk.isPlaced(x, y, z)) {
+            return NOT_LOG;
+        }
+
+        // Without this check Tree Feller propagates through leaves until the threshold is hit
+        if (found.size() > threshold) {
+            return THRESHOLD_REACHED;
+        }
+
+        switch (getType(chunk, x, y, z)) {
+            case LOG:
+                add(key, x, y, z);
+                frame.add(key);
+                return NEW_LOG;
+
+            case LEAVES:
+                add(key, x, y, z);
+                return NOT_LOG;
+
+            default:
+                return NOT_LOG;
+        }
+    }
+
+    private void add(long key, int x, int y, int z) {
+        found.add(key);
+        treeFellerBlocks.add(world.getBlockAt(x, y, z).getState());
+    }
+
+    private byte getType(ChunkView chunk, int x, int y, int z) {
+        if (y < 0 || y >= maxHeight) {
+            return OTHER;
+        }
+
+        switch (chunk.snapshot.getBlockType(x & 15, y, z & 15)) {
+            case AIR:
+            case CAVE_AIR:
+            case VOID_AIR:
+                return OTHER;
+
+            default:
+                break;
+        }
+
+        BlockData blockData = chunk.snapshot.getBlockData(x & 15, y, z & 15);
+        Byte type = blockTypes.get(blockData);
+
+        if (type == null) {
+            type = BlockUtils.isLog(blockData) ? LOG : BlockUtils.isLeaves(blockData.getMaterial()) ? LEAVES : OTHER;
+            blockTypes.put(blockData, type);
+        }
+
+        return type;
+    }
+
+    private ChunkView getChunk(int cx, int cz) {
+        if (lastChunk != null && lastChunk.cx == cx && lastChunk.cz == cz) {
+            return lastChunk;
+        }
+
+        Long chunkKey = ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+        ChunkView chunk = chunks.get(chunkKey);
+
+        if (chunk == null) {
+            chunk = new ChunkView(cx, cz, world.getChunkAt(cx, cz).getChunkSnapshot(false, false, false), mcMMO.getPlaceStore().getChunkStore(world, cx, cz));
+            chunks.put(chunkKey, chunk);
+        }
+
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    private static class ChunkView {
+        private final int cx;
+        private final int cz;
+        private final ChunkSnapshot snapshot;
+        private final ChunkStore placeStore;
+
+        private ChunkView(int cx, int cz, ChunkSnapshot snapshot, ChunkStore placeStore) {
+            this.cx = cx;
+            this.cz = cz;
+            this.snapshot = snapshot;
+            this.placeStore = placeStore;
+        }
+
+        private boolean isPlaced(int x, int y, int z) {
+            if (placeStore == null) {
+                return false;
+            }
+
+            // Same indexing as ChunkManager#isTrue
+            return placeStore.isTrue(Math.abs(x) % 16, y, Math.abs(z) % 16);
+        }
+    }
+
+    // Logs found around one center, in the order they were found
+    private static class Frame {
+        private long[] logs = new long[8];
+        private int size;
+        private int index;
+
+        private void add(long log) {
+            if (size == logs.length) {
+                logs = Arrays.copyOf(logs, size * 2);
+            }
+
+            logs[size++] = log;
+        }
+    }
+}
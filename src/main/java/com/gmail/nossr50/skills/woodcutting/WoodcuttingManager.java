@@ -1,13 +1,14 @@
 package com.gmail.nossr50.skills.woodcutting;
 
+import com.gmail.nossr50.config.Config;
 import com.gmail.nossr50.datatypes.experience.XPGainReason;
 import com.gmail.nossr50.datatypes.interactions.NotificationType;
-import com.gmail.nossr50.datatypes.mods.CustomBlock;
 import com.gmail.nossr50.datatypes.player.McMMOPlayer;
 import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
 import com.gmail.nossr50.datatypes.skills.SubSkillType;
 import com.gmail.nossr50.datatypes.skills.SuperAbilityType;
 import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.runnables.skills.TreeFellerTask;
 import com.gmail.nossr50.skills.SkillManager;
 import com.gmail.nossr50.skills.woodcutting.Woodcutting.ExperienceGainMethod;
 import com.gmail.nossr50.util.*;
@@ -16,13 +17,11 @@ import com.gmail.nossr50.util.random.RandomChanceUtil;
 import com.gmail.nossr50.util.skills.CombatUtils;
 import com.gmail.nossr50.util.skills.RankUtils;
 import com.gmail.nossr50.util.skills.SkillActivationType;
-import org.bukkit.Material;
-import org.bukkit.block.Block;
 import org.bukkit.block.BlockState;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
 
 public class WoodcuttingManager extends SkillManager {
@@ -77,16 +76,10 @@ public class WoodcuttingManager extends SkillManager {
      */
     public void processTreeFeller(BlockState blockState) {
         Player player = getPlayer();
-        Set<BlockState> treeFellerBlocks = new HashSet<BlockState>();
-
-        Woodcutting.treeFellerReachedThreshold = false;
-
-        Woodcutting.processTree(blockState, treeFellerBlocks);
+        Set<BlockState> treeFellerBlocks = new LinkedHashSet<BlockState>();
 
         // If the player is trying to break too many blocks
-        if (Woodcutting.treeFellerReachedThreshold) {
-            Woodcutting.treeFellerReachedThreshold = false;
-
+        if (!Woodcutting.processTree(blockState, treeFellerBlocks)) {
             NotificationManager.sendPlayerInformation(player, NotificationType.SUBSKILL_MESSAGE_FAILED, "Woodcutting.Skills.TreeFeller.Threshold");
             return;
         }
@@ -104,63 +97,16 @@ public class WoodcuttingManager extends SkillManager {
             return;
         }
 
-        dropBlocks(treeFellerBlocks);
-        Woodcutting.treeFellerReachedThreshold = false; // Reset the value after we're done with Tree Feller each time.
-    }
-
-    /**
-     * Handles the dropping of blocks
-     *
-     * @param treeFellerBlocks List of blocks to be dropped
-     */
-    private void dropBlocks(Set<BlockState> treeFellerBlocks) {
-        Player player = getPlayer();
-        int xp = 0;
-
-        for (BlockState blockState : treeFellerBlocks) {
-            Block block = blockState.getBlock();
-
-            if (!EventUtils.simulateBlockBreak(block, player, true)) {
-                break; // TODO: Shouldn't we use continue instead?
-            }
-
-            Material material = blockState.getType();
+        TreeFellerRemoval removal = new TreeFellerRemoval(this, treeFellerBlocks);
 
-            if (material == Material.BROWN_MUSHROOM_BLOCK || material == Material.RED_MUSHROOM_BLOCK) {
-                xp += Woodcutting.getExperienceFromLog(blockState, ExperienceGainMethod.TREE_FELLER);
-                Misc.dropItems(Misc.getBlockCenter(blockState), block.getDrops());
-            }
-            else if (mcMMO.getModManager().isCustomLog(blockState)) {
-                if (canGetDoubleDrops()) {
-                    Woodcutting.checkForDoubleDrop(blockState);
-                }
+        // Small trees go at once, larger ones from the top down over the next ticks
+        int budget = treeFellerBlocks.size() <= Config.getInstance().getTreeFellerInstantRemovalThreshold() ? Integer.MAX_VALUE : Config.getInstance().getTreeFellerBlocksPerTick();
 
-                CustomBlock customBlock = mcMMO.getModManager().getBlock(blockState);
-                xp = customBlock.getXpGain();
-
-                Misc.dropItems(Misc.getBlockCenter(blockState), block.getDrops());
-            }
-            else if (mcMMO.getModManager().isCustomLeaf(blockState)) {
-                Misc.dropItems(Misc.getBlockCenter(blockState), block.getDrops());
-            }
-            else {
-
-                if (BlockUtils.isLog(blockState)) {
-                    if (canGetDoubleDrops()) {
-                        Woodcutting.checkForDoubleDrop(blockState);
-                    }
-                    xp += Woodcutting.getExperienceFromLog(blockState, ExperienceGainMethod.TREE_FELLER);
-                    Misc.dropItems(Misc.getBlockCenter(blockState), block.getDrops());
-                }
-                if (BlockUtils.isLeaves(blockState)) {
-                    Misc.dropItems(Misc.getBlockCenter(blockState), block.getDrops());
-                }
-            }
-
-            blockState.setType(Material.AIR);
-            blockState.update(true);
+        if (removal.removeBlocks(budget)) {
+            removal.finish();
+            return;
         }
 
-        applyXpGain(xp, XPGainReason.PVE);
+        new TreeFellerTask(removal).runTaskTimer(mcMMO.p, 1, 1);
     }
 }
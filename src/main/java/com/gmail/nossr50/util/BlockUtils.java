@@ -342,9 +342,20 @@ public final class BlockUtils {
      * @return true if the block is a log, false otherwise
      */
     public static boolean isLog(BlockState blockState) {
-        if (ExperienceConfig.getInstance().doesBlockGiveSkillXP(PrimarySkillType.WOODCUTTING, blockState.getBlockData()))
+        return isLog(blockState.getBlockData());
+    }
+
+    /**
+     * Check if the given block data is a log
+     *
+     * @param blockData
+     *            The {@link BlockData} of the block to check
+     * @return true if the block is a log, false otherwise
+     */
+    public static boolean isLog(BlockData blockData) {
+        if (ExperienceConfig.getInstance().doesBlockGiveSkillXP(PrimarySkillType.WOODCUTTING, blockData))
             return true;
-        return mcMMO.getModManager().isCustomLog(blockState);
+        return mcMMO.getModManager().isCustomLog(blockData.getMaterial());
     }
 
     /**
@@ -355,7 +366,18 @@ public final class BlockUtils {
      * @return true if the block is a leaf, false otherwise
      */
     public static boolean isLeaves(BlockState blockState) {
-        switch (blockState.getType()) {
+        return isLeaves(blockState.getType());
+    }
+
+    /**
+     * Check if a given material is a leaf
+     *
+     * @param material
+     *            The {@link Material} of the block to check
+     * @return true if the block is a leaf, false otherwise
+     */
+    public static boolean isLeaves(Material material) {
+        switch (material) {
             case OAK_LEAVES:
             case ACACIA_LEAVES:
             case BIRCH_LEAVES:
@@ -365,7 +387,7 @@ public final class BlockUtils {
                 return true;
 
             default :
-                return mcMMO.getModManager().isCustomLeaf(blockState);
+                return mcMMO.getModManager().isCustomLeaf(material);
         }
     }
 
@@ -492,4 +514,25 @@ public final class BlockUtils {
         }
         return true;
     }
+
+    /**
+     * Pack block coordinates into a single long, 26 bits each for x and z and 12 bits for y.
+     *
+     * @return the packed coordinates
+     */
+    public static long packCoordinates(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFFL) << 38 | ((long) z & 0x3FFFFFFL) << 12 | (y & 0xFFFL);
+    }
+
+    public static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    public static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    public static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
 }
@@ -0,0 +1,201 @@
+package com.gmail.nossr50.util;
+
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.inventory.ItemStack;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Collects the drops of an operation that breaks many blocks at once and spawns them merged.
+ * <p>
+ * Drops are grouped into clusters, cubes of a configurable size, and merged per item type within a
+ * cluster. {@link #spawn()} then drops full stacks at the center of each cluster instead of one item
+ * entity per drop. Spawning goes through {@link Misc#dropItem(Location, ItemStack)}, so the merged
+ * stacks are shared with the party on pickup like any other drop. Main thread only.
+ */
+public class DropAggregator {
+    // Item entities that were not spawned thanks to merging, over all aggregators since startup
+    private static long entitiesAvoided;
+    private static long entitiesSpawned;
+
+    private final double clusterSize;
+    private final Map<ClusterKey, Cluster> clusters = new LinkedHashMap<ClusterKey, Cluster>();
+
+    private int pendingEntities;
+
+    /**
+     * @param clusterSize Edge length of a cluster in blocks, drops further apart than this are not merged
+     */
+    public DropAggregator(double clusterSize) {
+        this.clusterSize = clusterSize;
+    }
+
+    /**
+     * Add a drop.
+     *
+     * @param location The location the item would have been dropped at
+     * @param itemStack The item to drop
+     */
+    public void add(Location location, ItemStack itemStack) {
+        add(location, itemStack, 1);
+    }
+
+    /**
+     * Add a drop several times.
+     *
+     * @param location The location the items would have been dropped at
+     * @param itemStack The item to drop
+     * @param quantity The amount of times the item would have been dropped
+     */
+    public void add(Location location, ItemStack itemStack, int quantity) {
+        if (itemStack == null || itemStack.getType() == Material.AIR || itemStack.getAmount() <= 0 || quantity <= 0) {
+            return;
+        }
+
+        ClusterKey key = new ClusterKey(location.getWorld(), cell(location.getX()), cell(location.getY()), cell(location.getZ()));
+        Cluster cluster = clusters.get(key);
+
+        if (cluster == null) {
+            cluster = new Cluster(location.getWorld());
+            clusters.put(key, cluster);
+        }
+
+        cluster.add(location, itemStack, quantity);
+        pendingEntities += quantity;
+    }
+
+    /**
+     * Add a collection of drops.
+     *
+     * @param location The location the items would have been dropped at
+     * @param drops The items to drop
+     */
+    public void add(Location location, Collection<ItemStack> drops) {
+        for (ItemStack drop : drops) {
+            add(location, drop, 1);
+        }
+    }
+
+    public boolean isEmpty() {
+        return clusters.isEmpty();
+    }
+
+    /**
+     * Spawn all collected drops as merged stacks and start over.
+     */
+    public void spawn() {
+        int spawned = 0;
+
+        for (Cluster cluster : clusters.values()) {
+            spawned += cluster.spawn();
+        }
+
+        entitiesSpawned += spawned;
+        entitiesAvoided += Math.max(0, pendingEntities - spawned);
+
+        clusters.clear();
+        pendingEntities = 0;
+    }
+
+    private int cell(double coordinate) {
+        return (int) Math.floor(coordinate / clusterSize);
+    }
+
+    /**
+     * @return Amount of item entities merging has saved since startup
+     */
+    public static long getEntitiesAvoided() {
+        return entitiesAvoided;
+    }
+
+    /**
+     * @return Amount of merged item entities spawned since startup
+     */
+    public static long getEntitiesSpawned() {
+        return entitiesSpawned;
+    }
+
+    private static class ClusterKey {
+        private final World world;
+        private final int x;
+        private final int y;
+        private final int z;
+
+        private ClusterKey(World world, int x, int y, int z) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof ClusterKey)) {
+                return false;
+            }
+
+            ClusterKey other = (ClusterKey) obj;
+            return x == other.x && y == other.y && z == other.z && world == other.world;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * System.identityHashCode(world) + x) + y) + z;
+        }
+    }
+
+    private static class Cluster {
+        private final World world;
+        // Keyed by single items, so stacks that only differ in amount merge
+        private final Map<ItemStack, Integer> amounts = new LinkedHashMap<ItemStack, Integer>();
+
+        private double sumX;
+        private double sumY;
+        private double sumZ;
+        private int locations;
+
+        private Cluster(World world) {
+            this.world = world;
+        }
+
+        private void add(Location location, ItemStack itemStack, int quantity) {
+            ItemStack key = itemStack.clone();
+            key.setAmount(1);
+
+            Integer amount = amounts.get(key);
+            amounts.put(key, (amount == null ? 0 : amount) + itemStack.getAmount() * quantity);
+
+            sumX += location.getX();
+            sumY += location.getY();
+            sumZ += location.getZ();
+            locations++;
+        }
+
+        private int spawn() {
+            Location center = new Location(world, sumX / locations, sumY / locations, sumZ / locations);
+            int spawned = 0;
+
+            for (Entry<ItemStack, Integer> entry : amounts.entrySet()) {
+                ItemStack itemStack = entry.getKey();
+                int maxStackSize = Math.max(1, itemStack.getMaxStackSize());
+                int amount = entry.getValue();
+
+                while (amount > 0) {
+                    ItemStack stack = itemStack.clone();
+                    stack.setAmount(Math.min(amount, maxStackSize));
+                    amount -= stack.getAmount();
+
+                    Misc.dropItem(center, stack);
+                    spawned++;
+                }
+            }
+
+            return spawned;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.gmail.nossr50.util;
+
+import com.gmail.nossr50.mcMMO;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.entity.Entity;
+
+import java.util.Set;
+
+/**
+ * Flags mcMMO keeps on entities, stored as a bit set per entity ID instead of as Bukkit metadata.
+ * <p>
+ * Flags are dropped when the entity dies or its chunk unloads, and stale entries of entities that
+ * were removed otherwise are swept periodically. {@link #SPAWNED} and {@link #BRED} are also written
+ * to the entity's scoreboard tags, which are saved with the entity, and restored when its chunk
+ * loads again or, for chunks that were already loaded, when mcMMO is enabled. Other plugins read the
+ * old metadata, so it is still set alongside those two flags. Main thread only.
+ */
+public final class EntityFlags {
+    /** Mob from a spawner, spawn egg or nether portal, summoned by Call of the Wild, or otherwise not worth full XP */
+    public static final int SPAWNED  = 1;
+    /** Animal born from breeding */
+    public static final int BRED     = 1 << 1;
+    /** Firework launched by mcMMO as a particle effect */
+    public static final int FUNFETTI = 1 << 2;
+
+    private static final int PERSISTENT_FLAGS = SPAWNED | BRED;
+    private static final String SPAWNED_TAG = "mcMMO.Spawned";
+    private static final String BRED_TAG = "mcMMO.Bred";
+
+    private static final IntIntHashMap flags = new IntIntHashMap(256);
+
+    private EntityFlags() {}
+
+    public static boolean hasFlag(Entity entity, int flag) {
+        return (flags.get(entity.getEntityId()) & flag) != 0;
+    }
+
+    public static void setFlag(Entity entity, int flag) {
+        int id = entity.getEntityId();
+        int current = flags.get(id);
+
+        if ((current & flag) == flag) {
+            return;
+        }
+
+        flags.put(id, current | flag);
+
+        if ((flag & SPAWNED) != 0) {
+            entity.addScoreboardTag(SPAWNED_TAG);
+        }
+
+        if ((flag & BRED) != 0) {
+            entity.addScoreboardTag(BRED_TAG);
+        }
+
+        setMetadata(entity, flag);
+    }
+
+    /**
+     * Forget all flags of an entity that is going away, its persisted flags are kept.
+     */
+    @SuppressWarnings("deprecation")
+    public static void remove(Entity entity) {
+        if ((flags.remove(entity.getEntityId()) & SPAWNED) != 0) {
+            entity.removeMetadata(mcMMO.entityMetadataKey, mcMMO.p);
+        }
+    }
+
+    /**
+     * Forget the flags of all entities in an unloading chunk.
+     */
+    public static void chunkUnloaded(Chunk chunk) {
+        if (flags.isEmpty()) {
+            return;
+        }
+
+        for (Entity entity : chunk.getEntities()) {
+            flags.remove(entity.getEntityId());
+        }
+    }
+
+    /**
+     * Restore the persisted flags of all entities in a loaded chunk.
+     */
+    public static void chunkLoaded(Chunk chunk) {
+        for (Entity entity : chunk.getEntities()) {
+            Set<String> tags = entity.getScoreboardTags();
+
+            if (tags.isEmpty()) {
+                continue;
+            }
+
+            int restored = 0;
+
+            if (tags.contains(SPAWNED_TAG)) {
+                restored |= SPAWNED;
+            }
+
+            if (tags.contains(BRED_TAG)) {
+                restored |= BRED;
+            }
+
+            if (restored != 0) {
+                int id = entity.getEntityId();
+                flags.put(id, flags.get(id) | (restored & PERSISTENT_FLAGS));
+                setMetadata(entity, restored);
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static void setMetadata(Entity entity, int flag) {
+        if ((flag & SPAWNED) != 0) {
+            entity.setMetadata(mcMMO.entityMetadataKey, mcMMO.metadataValue);
+        }
+
+        if ((flag & BRED) != 0) {
+            entity.setMetadata(mcMMO.bredMetadataKey, mcMMO.metadataValue);
+        }
+    }
+
+    /**
+     * Restore the persisted flags of all entities in chunks that were loaded before mcMMO was
+     * enabled, such as spawn chunks or the chunks around online players on a reload.
+     *
+     * @param worlds The loaded worlds
+     */
+    public static void restoreLoadedChunks(Iterable<World> worlds) {
+        for (World world : worlds) {
+            for (Chunk chunk : world.getLoadedChunks()) {
+                chunkLoaded(chunk);
+            }
+        }
+    }
+
+    /**
+     * Drop the flags of entities that no longer exist in any loaded world.
+     *
+     * @param worlds The loaded worlds
+     */
+    public static void removeInvalidEntities(Iterable<World> worlds) {
+        if (flags.isEmpty()) {
+            return;
+        }
+
+        IntIntHashMap alive = new IntIntHashMap(flags.size());
+
+        for (World world : worlds) {
+            for (Entity entity : world.getEntities()) {
+                int id = entity.getEntityId();
+                int entityFlags = flags.get(id);
+
+                if (entityFlags != 0) {
+                    alive.put(id, entityFlags);
+                }
+            }
+        }
+
+        for (int id : flags.keys()) {
+            if (alive.get(id) == 0) {
+                flags.remove(id);
+            }
+        }
+    }
+
+    /**
+     * @return Amount of entities with at least one flag set
+     */
+    public static int getFlaggedEntityCount() {
+        return flags.size();
+    }
+}
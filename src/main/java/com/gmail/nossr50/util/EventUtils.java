@@ -39,10 +39,12 @@ import org.bukkit.entity.FishHook;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.player.PlayerFishEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.RegisteredListener;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -175,6 +177,23 @@ public class EventUtils {
         return event;
     }
 
+    /**
+     * Check if a plugin other than mcMMO listens to an event, so firing fake events nobody else
+     * would see can be skipped.
+     *
+     * @param handlers The handler list of the event
+     * @return true if another plugin registered a listener
+     */
+    public static boolean hasExternalListeners(HandlerList handlers) {
+        for (RegisteredListener listener : handlers.getRegisteredListeners()) {
+            if (listener.getPlugin() != mcMMO.p) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
     public static FakePlayerAnimationEvent callFakeArmSwingEvent(Player player) {
         FakePlayerAnimationEvent event = new FakePlayerAnimationEvent(player);
         mcMMO.p.getServer().getPluginManager().callEvent(event);
@@ -0,0 +1,198 @@
+package com.gmail.nossr50.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from primitive ints to primitive ints. A value of 0 means the key is not
+ * mapped, so putting 0 removes the key.
+ * Not thread-safe.
+ */
+public class IntIntHashMap {
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private int[] keys;
+    private int[] values;
+    private int emptyKeyValue;
+    private int size;
+    private int mask;
+
+    public IntIntHashMap() {
+        this(16);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+
+        keys = newTable(capacity);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return the value for the key, or 0 if it is not mapped
+     */
+    public int get(int key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+
+        int index = indexOf(key);
+        return keys[index] == key ? values[index] : 0;
+    }
+
+    /**
+     * @return the previous value for the key, or 0 if there was none
+     */
+    public int put(int key, int value) {
+        if (value == 0) {
+            return remove(key);
+        }
+
+        if (key == EMPTY) {
+            int previous = emptyKeyValue;
+
+            if (previous == 0) {
+                size++;
+            }
+
+            emptyKeyValue = value;
+            return previous;
+        }
+
+        int index = indexOf(key);
+
+        if (keys[index] == key) {
+            int previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+
+        return 0;
+    }
+
+    /**
+     * @return the removed value, or 0 if the key was not mapped
+     */
+    public int remove(int key) {
+        if (key == EMPTY) {
+            int previous = emptyKeyValue;
+
+            if (previous != 0) {
+                emptyKeyValue = 0;
+                size--;
+            }
+
+            return previous;
+        }
+
+        int index = indexOf(key);
+
+        if (keys[index] != key) {
+            return 0;
+        }
+
+        int previous = values[index];
+        size--;
+
+        // Shift later entries of the same probe sequence back, so lookups never stop at the hole
+        int next = (index + 1) & mask;
+
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                keys[index] = keys[next];
+                values[index] = values[next];
+                index = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        keys[index] = EMPTY;
+        values[index] = 0;
+
+        return previous;
+    }
+
+    /**
+     * @return a copy of all mapped keys
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int count = 0;
+
+        if (emptyKeyValue != 0) {
+            result[count++] = EMPTY;
+        }
+
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[count++] = key;
+            }
+        }
+
+        return result;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0);
+        emptyKeyValue = 0;
+        size = 0;
+    }
+
+    // Slot holding the key, or the empty slot where it belongs
+    private int indexOf(int key) {
+        int index = mix(key) & mask;
+
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+
+        return index;
+    }
+
+    private void resize() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+
+        keys = newTable(oldKeys.length * 2);
+        values = new int[keys.length];
+        mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static int[] newTable(int capacity) {
+        int[] table = new int[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int mix(int value) {
+        value *= 0x9E3779B9;
+        return value ^ (value >>> 16);
+    }
+}
@@ -0,0 +1,78 @@
+package com.gmail.nossr50.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with power-of-two microsecond buckets.
+ * Cheap enough to record from any thread on every call.
+ */
+public class LatencyHistogram {
+    private static final int BUCKETS = 32;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    public void record(long elapsedNanos) {
+        long micros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        int bucket = micros <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+
+        buckets.incrementAndGet(bucket);
+    }
+
+    /**
+     * Record the time elapsed since the given {@link System#nanoTime()} value.
+     *
+     * @param startNanos The value of {@link System#nanoTime()} when the timed section started
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        long count = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            count += buckets.get(i);
+        }
+
+        return count;
+    }
+
+    /**
+     * Get the upper bound, in microseconds, of the bucket holding the requested percentile.
+     *
+     * @param percentile The percentile to look up, between 0 and 100
+     * @return the upper bound in microseconds, or 0 if nothing has been recorded
+     */
+    public long getPercentileMicros(double percentile) {
+        long count = getCount();
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(count * (percentile / 100.0D));
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+
+            if (seen >= target) {
+                return 1L << i;
+            }
+        }
+
+        return 1L << (BUCKETS - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + getCount() + ", p50<=" + getPercentileMicros(50) + "us, p95<=" + getPercentileMicros(95) + "us, p99<=" + getPercentileMicros(99) + "us";
+    }
+}
@@ -0,0 +1,113 @@
+package com.gmail.nossr50.util;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash set of primitive longs, for hot paths where boxing every key would dominate.
+ * Not thread-safe.
+ */
+public class LongHashSet {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private boolean containsEmpty;
+    private int size;
+    private int mask;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+
+        keys = newTable(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * @return true if the value was not in the set yet
+     */
+    public boolean add(long value) {
+        if (value == EMPTY) {
+            if (containsEmpty) {
+                return false;
+            }
+
+            containsEmpty = true;
+            size++;
+            return true;
+        }
+
+        int index = indexOf(value);
+
+        if (keys[index] == value) {
+            return false;
+        }
+
+        keys[index] = value;
+
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+
+        return true;
+    }
+
+    public boolean contains(long value) {
+        if (value == EMPTY) {
+            return containsEmpty;
+        }
+
+        return keys[indexOf(value)] == value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        containsEmpty = false;
+        size = 0;
+    }
+
+    // Slot holding the value, or the empty slot where it belongs
+    private int indexOf(long value) {
+        int index = mix(value) & mask;
+
+        while (keys[index] != EMPTY && keys[index] != value) {
+            index = (index + 1) & mask;
+        }
+
+        return index;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+
+        keys = newTable(oldKeys.length * 2);
+        mask = keys.length - 1;
+
+        for (long key : oldKeys) {
+            if (key != EMPTY) {
+                keys[indexOf(key)] = key;
+            }
+        }
+    }
+
+    private static long[] newTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return (int) (value ^ (value >>> 33));
+    }
+}
@@ -0,0 +1,204 @@
+package com.gmail.nossr50.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Open addressing hash map from primitive longs to objects, the map counterpart of {@link LongHashSet}.
+ * Not thread-safe.
+ */
+public class LongObjectHashMap<V> {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private Object[] values;
+    private V emptyKeyValue;
+    private boolean containsEmpty;
+    private int size;
+    private int mask;
+
+    public LongObjectHashMap() {
+        this(16);
+    }
+
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+
+        keys = newTable(capacity);
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == EMPTY) {
+            return emptyKeyValue;
+        }
+
+        int index = indexOf(key);
+        return keys[index] == key ? (V) values[index] : null;
+    }
+
+    public boolean containsKey(long key) {
+        if (key == EMPTY) {
+            return containsEmpty;
+        }
+
+        return keys[indexOf(key)] == key;
+    }
+
+    /**
+     * @return the previous value for the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+
+            if (!containsEmpty) {
+                containsEmpty = true;
+                size++;
+            }
+
+            emptyKeyValue = value;
+            return previous;
+        }
+
+        int index = indexOf(key);
+
+        if (keys[index] == key) {
+            V previous = (V) values[index];
+            values[index] = value;
+            return previous;
+        }
+
+        keys[index] = key;
+        values[index] = value;
+
+        if (++size * 2 > keys.length) {
+            resize();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return the removed value, or null if the key was not mapped
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        if (key == EMPTY) {
+            V previous = emptyKeyValue;
+
+            if (containsEmpty) {
+                containsEmpty = false;
+                emptyKeyValue = null;
+                size--;
+            }
+
+            return previous;
+        }
+
+        int index = indexOf(key);
+
+        if (keys[index] != key) {
+            return null;
+        }
+
+        V previous = (V) values[index];
+        size--;
+
+        // Shift later entries of the same probe sequence back, so lookups never stop at the hole
+        int next = (index + 1) & mask;
+
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                keys[index] = keys[next];
+                values[index] = values[next];
+                index = next;
+            }
+
+            next = (next + 1) & mask;
+        }
+
+        keys[index] = EMPTY;
+        values[index] = null;
+
+        return previous;
+    }
+
+    /**
+     * Copy all values into the given collection, which is not cleared first.
+     *
+     * @param target The collection to add the values to
+     */
+    @SuppressWarnings("unchecked")
+    public void copyValuesTo(Collection<? super V> target) {
+        if (containsEmpty) {
+            target.add(emptyKeyValue);
+        }
+
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                target.add((V) values[i]);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        emptyKeyValue = null;
+        containsEmpty = false;
+        size = 0;
+    }
+
+    // Slot holding the key, or the empty slot where it belongs
+    private int indexOf(long key) {
+        int index = mix(key) & mask;
+
+        while (keys[index] != EMPTY && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+
+        return index;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+
+        keys = newTable(oldKeys.length * 2);
+        values = new Object[keys.length];
+        mask = keys.length - 1;
+
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private static long[] newTable(int capacity) {
+        long[] table = new long[capacity];
+        Arrays.fill(table, EMPTY);
+        return table;
+    }
+
+    private static int mix(long value) {
+        value = (value ^ (value >>> 33)) * 0xFF51AFD7ED558CCDL;
+        return (int) (value ^ (value >>> 33));
+    }
+}
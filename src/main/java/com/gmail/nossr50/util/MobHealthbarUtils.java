@@ -3,17 +3,38 @@ package com.gmail.nossr50.util;
 import com.gmail.nossr50.config.AdvancedConfig;
 import com.gmail.nossr50.config.Config;
 import com.gmail.nossr50.datatypes.MobHealthbarType;
-import com.gmail.nossr50.datatypes.meta.OldName;
 import com.gmail.nossr50.mcMMO;
-import com.gmail.nossr50.runnables.MobHealthDisplayUpdaterTask;
 import org.bukkit.ChatColor;
+import org.bukkit.Chunk;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
-import org.bukkit.metadata.FixedMetadataValue;
 
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shows mob healthbars in place of their names.
+ * <p>
+ * Damage only marks a mob for an update, which is applied once per tick, so a mob hit many times in
+ * a tick is renamed once. The bar strings are cached per style, length and fill, and the original
+ * names are restored from a single timer wheel. Main thread only.
+ */
 public final class MobHealthbarUtils {
+    private static final int MAX_SYMBOLS = 10;
+
+    // Bar colors by the minimum health percentage they are shown at
+    private static final ChatColor[] BAR_COLORS = { ChatColor.DARK_GREEN, ChatColor.GREEN, ChatColor.GOLD, ChatColor.YELLOW, ChatColor.RED, ChatColor.DARK_RED };
+    private static final double[] BAR_THRESHOLDS = { 85, 70, 55, 40, 25 };
+
+    private static final String[] healthbarCache = new String[2 * (MAX_SYMBOLS + 1) * (MAX_SYMBOLS + 1) * BAR_COLORS.length];
+    private static final LongObjectHashMap<HealthbarState> states = new LongObjectHashMap<HealthbarState>();
+    private static final List<HealthbarState> pending = new ArrayList<HealthbarState>();
+    private static final TimerWheel<HealthbarState> restoreWheel = new TimerWheel<HealthbarState>();
+    private static final List<HealthbarState> scratch = new ArrayList<HealthbarState>();
+
     private MobHealthbarUtils() {}
 
     /**
@@ -31,11 +52,11 @@ public final class MobHealthbarUtils {
     }
 
     /**
-     * Handle the creation of mob healthbars.
-     *  @param target the targetted entity
-     * @param damage damage done by the attack triggering this
+     * Show the healthbar of a damaged mob. Updates are applied once per tick, after the damage is dealt.
+     *
+     * @param target the targetted entity
      */
-    public static void handleMobHealthbars(LivingEntity target, double damage, mcMMO plugin) {
+    public static void handleMobHealthbars(LivingEntity target) {
         if (mcMMO.isHealthBarPluginEnabled() || !Config.getInstance().getMobHealthbarEnabled()) {
             return;
         }
@@ -44,107 +65,223 @@ public final class MobHealthbarUtils {
             return;
         }
 
-        String originalName = target.getName();
-        String oldName = target.getCustomName();
+        HealthbarState state = states.get(target.getEntityId());
 
-        /*
-         * Store the name in metadata
-         */
-        if(target.getMetadata("mcMMO_oldName").size() <= 0 && originalName != null)
-            target.setMetadata("mcMMO_oldName", new OldName(originalName, plugin));
+        if (state == null || state.entity != target) {
+            String oldName = target.getCustomName();
 
-        if (oldName == null) {
-            oldName = "";
+            if (oldName != null && oldName.equalsIgnoreCase(AdvancedConfig.getInstance().getKrakenName())) {
+                return;
+            }
+
+            state = new HealthbarState(target, oldName, target.isCustomNameVisible());
+            states.put(target.getEntityId(), state);
         }
-        else if (oldName.equalsIgnoreCase(AdvancedConfig.getInstance().getKrakenName())) {
-            return;
+
+        if (!state.pending) {
+            state.pending = true;
+            pending.add(state);
         }
+    }
 
-        boolean oldNameVisible = target.isCustomNameVisible();
-        String newName = createHealthDisplay(Config.getInstance().getMobHealthbarDefault(), target, damage);
+    /**
+     * @deprecated The damage is read from the entity when the healthbar is updated, use {@link #handleMobHealthbars(LivingEntity)}
+     */
+    @Deprecated
+    public static void handleMobHealthbars(LivingEntity target, double damage, mcMMO plugin) {
+        handleMobHealthbars(target);
+    }
 
-        target.setCustomName(newName);
-        target.setCustomNameVisible(true);
+    /**
+     * Apply the healthbar updates of the last tick and restore the names of mobs whose healthbar timed out.
+     */
+    public static void tick() {
+        if (!pending.isEmpty()) {
+            MobHealthbarType mobHealthbarType = Config.getInstance().getMobHealthbarDefault();
+            int displayTime = Config.getInstance().getMobHealthbarTime();
 
-        int displayTime = Config.getInstance().getMobHealthbarTime();
+            for (HealthbarState state : pending) {
+                state.pending = false;
+                updateHealthbar(state, mobHealthbarType, displayTime);
+            }
+
+            pending.clear();
+        }
+
+        restoreWheel.tick(scratch);
+
+        if (scratch.isEmpty()) {
+            return;
+        }
 
-        if (displayTime != -1) {
-            boolean updateName = !ChatColor.stripColor(oldName).equalsIgnoreCase(ChatColor.stripColor(newName));
+        for (HealthbarState state : scratch) {
+            if (states.get(state.entity.getEntityId()) != state) {
+                continue; // Restored early
+            }
 
-            if (updateName) {
-                target.setMetadata(mcMMO.customNameKey, new FixedMetadataValue(mcMMO.p, oldName));
-                target.setMetadata(mcMMO.customVisibleKey, new FixedMetadataValue(mcMMO.p, oldNameVisible));
+            if (state.entity.isValid()) {
+                restore(state);
             }
-            else if (!target.hasMetadata(mcMMO.customNameKey)) {
-                target.setMetadata(mcMMO.customNameKey, new FixedMetadataValue(mcMMO.p, ""));
-                target.setMetadata(mcMMO.customVisibleKey, new FixedMetadataValue(mcMMO.p, false));
+            else {
+                forget(state);
             }
+        }
+
+        scratch.clear();
+    }
+
+    /**
+     * Give a mob its own name back right away, if it is showing a healthbar.
+     *
+     * @param entity The entity to restore
+     */
+    public static void restoreName(Entity entity) {
+        HealthbarState state = states.get(entity.getEntityId());
+
+        if (state != null && state.entity == entity) {
+            restore(state);
+        }
+    }
+
+    /**
+     * Restore the names of all mobs in an unloading chunk, so no healthbar is saved as their name.
+     */
+    public static void chunkUnloaded(Chunk chunk) {
+        if (states.isEmpty()) {
+            return;
+        }
+
+        for (Entity entity : chunk.getEntities()) {
+            restoreName(entity);
+        }
+    }
+
+    /**
+     * Restore the names of all mobs showing a healthbar. Used upon Disable.
+     */
+    public static void restoreAll() {
+        states.copyValuesTo(scratch);
 
-            new MobHealthDisplayUpdaterTask(target).runTaskLater(mcMMO.p, displayTime * Misc.TICK_CONVERSION_FACTOR); // Clear health display after 3 seconds
+        for (HealthbarState state : scratch) {
+            restore(state);
         }
+
+        scratch.clear();
+        pending.clear();
+    }
+
+    /**
+     * @return Amount of mobs currently showing a healthbar
+     */
+    public static int getActiveHealthbars() {
+        return states.size();
+    }
+
+    private static void updateHealthbar(HealthbarState state, MobHealthbarType mobHealthbarType, int displayTime) {
+        LivingEntity entity = state.entity;
+
+        if (states.get(entity.getEntityId()) != state) {
+            return; // Restored before the update was applied
+        }
+
+        if (!entity.isValid()) {
+            forget(state);
+            return;
+        }
+
+        String healthbar = getHealthbar(mobHealthbarType, entity);
+
+        if (healthbar == null) {
+            restore(state);
+            return;
+        }
+
+        if (!healthbar.equals(entity.getCustomName())) {
+            entity.setCustomName(healthbar);
+        }
+
+        entity.setCustomNameVisible(true);
+
+        if (displayTime == -1) {
+            forget(state);
+            return;
+        }
+
+        state.restoreTimer = restoreWheel.reschedule(state.restoreTimer, state, displayTime * Misc.TICK_CONVERSION_FACTOR);
     }
 
-    private static String createHealthDisplay(MobHealthbarType mobHealthbarType, LivingEntity entity, double damage) {
+    private static void restore(HealthbarState state) {
+        state.entity.setCustomName(state.oldName);
+        state.entity.setCustomNameVisible(state.oldNameVisible);
+        forget(state);
+    }
+
+    private static void forget(HealthbarState state) {
+        if (state.restoreTimer != null) {
+            state.restoreTimer.cancel();
+        }
+
+        if (states.get(state.entity.getEntityId()) == state) {
+            states.remove(state.entity.getEntityId());
+        }
+    }
+
+    private static String getHealthbar(MobHealthbarType mobHealthbarType, LivingEntity entity) {
         double maxHealth = entity.getMaxHealth();
-        double currentHealth = Math.max(entity.getHealth() - damage, 0);
-        double healthPercentage = (currentHealth / maxHealth) * 100.0D;
+        double healthPercentage = (Math.max(entity.getHealth(), 0) / maxHealth) * 100.0D;
 
+        int style;
         int fullDisplay;
-        ChatColor color = ChatColor.BLACK;
-        String symbol;
+        int color;
 
         switch (mobHealthbarType) {
             case HEARTS:
-                fullDisplay = Math.min((int) (maxHealth / 2), 10);
-                color = ChatColor.DARK_RED;
-                symbol = "❤";
+                style = 0;
+                fullDisplay = Math.min((int) (maxHealth / 2), MAX_SYMBOLS);
+                color = 0;
                 break;
 
             case BAR:
-                fullDisplay = 10;
+                style = 1;
+                fullDisplay = MAX_SYMBOLS;
+                color = 0;
 
-                if (healthPercentage >= 85) {
-                    color = ChatColor.DARK_GREEN;
-                }
-                else if (healthPercentage >= 70) {
-                    color = ChatColor.GREEN;
-                }
-                else if (healthPercentage >= 55) {
-                    color = ChatColor.GOLD;
-                }
-                else if (healthPercentage >= 40) {
-                    color = ChatColor.YELLOW;
-                }
-                else if (healthPercentage >= 25) {
-                    color = ChatColor.RED;
-                }
-                else if (healthPercentage >= 0) {
-                    color = ChatColor.DARK_RED;
+                while (color < BAR_THRESHOLDS.length && healthPercentage < BAR_THRESHOLDS[color]) {
+                    color++;
                 }
 
-                symbol = "■";
                 break;
 
             default:
                 return null;
         }
 
-        int coloredDisplay = (int) Math.ceil(fullDisplay * (healthPercentage / 100.0D));
-        int grayDisplay = fullDisplay - coloredDisplay;
+        int coloredDisplay = Math.min((int) Math.ceil(fullDisplay * (healthPercentage / 100.0D)), fullDisplay);
+        int index = ((style * (MAX_SYMBOLS + 1) + fullDisplay) * (MAX_SYMBOLS + 1) + coloredDisplay) * BAR_COLORS.length + color;
+        String healthbar = healthbarCache[index];
 
-        String healthbar = color + "";
+        if (healthbar == null) {
+            healthbar = createHealthDisplay(style == 0 ? ChatColor.DARK_RED : BAR_COLORS[color], style == 0 ? "❤" : "■", fullDisplay, coloredDisplay);
+            healthbarCache[index] = healthbar;
+        }
+
+        return healthbar;
+    }
+
+    private static String createHealthDisplay(ChatColor color, String symbol, int fullDisplay, int coloredDisplay) {
+        StringBuilder healthbar = new StringBuilder().append(color);
 
         for (int i = 0; i < coloredDisplay; i++) {
-            healthbar += symbol;
+            healthbar.append(symbol);
         }
 
-        healthbar += ChatColor.GRAY;
+        healthbar.append(ChatColor.GRAY);
 
-        for (int i = 0; i < grayDisplay; i++) {
-            healthbar += symbol;
+        for (int i = coloredDisplay; i < fullDisplay; i++) {
+            healthbar.append(symbol);
         }
 
-        return healthbar;
+        return healthbar.toString();
     }
 
     /**
@@ -163,4 +300,19 @@ public final class MobHealthbarUtils {
                 return false;
         }
     }
+
+    private static final class HealthbarState {
+        private final LivingEntity entity;
+        private final String oldName;
+        private final boolean oldNameVisible;
+
+        private TimerWheel.Timer<HealthbarState> restoreTimer;
+        private boolean pending;
+
+        private HealthbarState(LivingEntity entity, String oldName, boolean oldNameVisible) {
+            this.entity = entity;
+            this.oldName = oldName;
+            this.oldNameVisible = oldNameVisible;
+        }
+    }
 }
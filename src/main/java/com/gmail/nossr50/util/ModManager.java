@@ -133,11 +133,19 @@ public class ModManager {
     }
 
     public boolean isCustomLog(BlockState state) {
-        return Config.getInstance().getBlockModsEnabled() && customLogs.contains(state.getType());
+        return isCustomLog(state.getType());
+    }
+
+    public boolean isCustomLog(Material material) {
+        return Config.getInstance().getBlockModsEnabled() && customLogs.contains(material);
     }
 
     public boolean isCustomLeaf(BlockState state) {
-        return Config.getInstance().getBlockModsEnabled() && customLeaves.contains(state.getType());
+        return isCustomLeaf(state.getType());
+    }
+
+    public boolean isCustomLeaf(Material material) {
+        return Config.getInstance().getBlockModsEnabled() && customLeaves.contains(material);
     }
 
     public boolean isCustomAbilityBlock(BlockState state) {
@@ -0,0 +1,143 @@
+package com.gmail.nossr50.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A hashed timer wheel counting server ticks.
+ * <p>
+ * Timers are kept in one of 512 slots by their due tick, so a tick only looks at one slot. Timers
+ * due more than a full turn ahead stay in their slot until their round comes. Cancelled timers are
+ * dropped lazily, when their slot comes up. Main thread only.
+ *
+ * @param <T> The type of the scheduled values
+ */
+public final class TimerWheel<T> {
+    private static final int WHEEL_SIZE = 512;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final List<Timer<T>>[] slots;
+
+    private long currentTick;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel() {
+        slots = new List[WHEEL_SIZE];
+
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            slots[i] = new ArrayList<Timer<T>>(0);
+        }
+    }
+
+    /**
+     * Schedule a value to come due.
+     *
+     * @param value The value to schedule
+     * @param delayTicks Ticks from now until the value is due, at least 1
+     * @return the timer, to cancel or reschedule it
+     */
+    public Timer<T> schedule(T value, long delayTicks) {
+        Timer<T> timer = new Timer<T>(value, currentTick + Math.max(delayTicks, 1));
+        slots[slotOf(timer.dueTick)].add(timer);
+        return timer;
+    }
+
+    /**
+     * Move a timer to a new due tick. Pushing a pending timer back keeps it in the wheel and moves
+     * it once its old slot comes up, anything else schedules a new timer.
+     *
+     * @param timer The timer to move, may be null
+     * @param value The value to schedule if a new timer is needed
+     * @param delayTicks Ticks from now until the value is due, at least 1
+     * @return the timer now holding the value
+     */
+    public Timer<T> reschedule(Timer<T> timer, T value, long delayTicks) {
+        long dueTick = currentTick + Math.max(delayTicks, 1);
+
+        if (timer != null && timer.isPending() && dueTick >= timer.dueTick) {
+            timer.dueTick = dueTick;
+            return timer;
+        }
+
+        if (timer != null) {
+            timer.cancel();
+        }
+
+        return schedule(value, delayTicks);
+    }
+
+    /**
+     * Advance the wheel by one tick.
+     *
+     * @param due Collects the values that came due this tick
+     */
+    public void tick(List<T> due) {
+        currentTick++;
+
+        int currentSlot = slotOf(currentTick);
+        List<Timer<T>> slot = slots[currentSlot];
+
+        for (int i = slot.size() - 1; i >= 0; i--) {
+            Timer<T> timer = slot.get(i);
+
+            if (timer.isPending() && timer.dueTick > currentTick) {
+                int dueSlot = slotOf(timer.dueTick);
+
+                if (dueSlot == currentSlot) {
+                    continue; // Due in a later round of the wheel
+                }
+
+                slots[dueSlot].add(timer); // Rescheduled since it was queued
+            }
+            else if (timer.isPending()) {
+                timer.done = true;
+                due.add(timer.value);
+            }
+
+            // Swap the last timer into the freed place
+            slot.set(i, slot.get(slot.size() - 1));
+            slot.remove(slot.size() - 1);
+        }
+    }
+
+    /**
+     * @return Amount of ticks the wheel has advanced
+     */
+    public long getCurrentTick() {
+        return currentTick;
+    }
+
+    private static int slotOf(long tick) {
+        return (int) (tick & WHEEL_MASK);
+    }
+
+    public static final class Timer<T> {
+        private final T value;
+
+        private long dueTick;
+        private boolean done;
+
+        private Timer(T value, long dueTick) {
+            this.value = value;
+            this.dueTick = dueTick;
+        }
+
+        /**
+         * Stop the timer from coming due. It is dropped from the wheel when its slot comes up.
+         */
+        public void cancel() {
+            done = true;
+        }
+
+        /**
+         * @return true if the timer is neither due yet nor cancelled
+         */
+        public boolean isPending() {
+            return !done;
+        }
+
+        public long getDueTick() {
+            return dueTick;
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.gmail.nossr50.util.blockmeta;
+
+import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.util.BlockUtils;
+import com.gmail.nossr50.util.LongObjectHashMap;
+import com.gmail.nossr50.util.blockmeta.chunkmeta.ChunkManager;
+import com.gmail.nossr50.util.blockmeta.chunkmeta.ChunkStore;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Records blocks moved by pistons and shifts their placed-block flags once per tick.
+ * <p>
+ * Piston events only append packed coordinates to a buffer. {@link #flush()} replays the moves in
+ * the order the pistons fired, looking each chunk store up once per flush and moving the flags of
+ * a whole piston push at a time: all sources are read first, then cleared, then the destinations
+ * are set, so blocks pushing into each other's old positions keep their flags. Main thread only.
+ */
+public final class PistonMoveJournal {
+    // Packed coordinates of every moved block
+    private static long[] sources = new long[256];
+    private static int sourceCount;
+
+    // One entry per piston event, covering sources up to groupEnds[i]
+    private static World[] groupWorlds = new World[32];
+    private static BlockFace[] groupDirections = new BlockFace[32];
+    private static int[] groupEnds = new int[32];
+    private static int groupCount;
+
+    // Per flush scratch
+    private static boolean[] placed = new boolean[256];
+    private static final LongObjectHashMap<ChunkStore> chunkStores = new LongObjectHashMap<ChunkStore>();
+    private static final LongObjectHashMap<Boolean> missingChunkStores = new LongObjectHashMap<Boolean>();
+    private static World chunkStoresWorld;
+
+    private static long movesProcessed;
+    private static long flagsMoved;
+
+    private PistonMoveJournal() {}
+
+    /**
+     * Record the blocks of one piston event, each moving one block in the given direction.
+     *
+     * @param world The world of the piston
+     * @param blocks The blocks being moved
+     * @param direction The direction the blocks move in
+     */
+    public static void record(World world, List<Block> blocks, BlockFace direction) {
+        if (blocks.isEmpty()) {
+            return;
+        }
+
+        if (sourceCount + blocks.size() > sources.length) {
+            sources = Arrays.copyOf(sources, Math.max(sources.length * 2, sourceCount + blocks.size()));
+        }
+
+        for (Block block : blocks) {
+            sources[sourceCount++] = BlockUtils.packCoordinates(block.getX(), block.getY(), block.getZ());
+        }
+
+        if (groupCount == groupEnds.length) {
+            int capacity = groupCount * 2;
+
+            groupWorlds = Arrays.copyOf(groupWorlds, capacity);
+            groupDirections = Arrays.copyOf(groupDirections, capacity);
+            groupEnds = Arrays.copyOf(groupEnds, capacity);
+        }
+
+        groupWorlds[groupCount] = world;
+        groupDirections[groupCount] = direction;
+        groupEnds[groupCount] = sourceCount;
+        groupCount++;
+    }
+
+    /**
+     * Apply all recorded moves to the place store.
+     */
+    public static void flush() {
+        if (groupCount == 0) {
+            return;
+        }
+
+        if (placed.length < sources.length) {
+            placed = new boolean[sources.length];
+        }
+
+        ChunkManager placeStore = mcMMO.getPlaceStore();
+        int start = 0;
+
+        for (int group = 0; group < groupCount; group++) {
+            World world = groupWorlds[group];
+            BlockFace direction = groupDirections[group];
+            int end = groupEnds[group];
+
+            if (world != chunkStoresWorld) {
+                clearChunkStores();
+                chunkStoresWorld = world;
+            }
+
+            for (int i = start; i < end; i++) {
+                placed[i] = isTrue(placeStore, world, sources[i]);
+
+                if (placed[i]) {
+                    setValue(placeStore, world, sources[i], 0, 0, 0, false);
+                }
+            }
+
+            for (int i = start; i < end; i++) {
+                if (placed[i]) {
+                    setValue(placeStore, world, sources[i], direction.getModX(), direction.getModY(), direction.getModZ(), true);
+                    flagsMoved++;
+                }
+            }
+
+            movesProcessed += end - start;
+            start = end;
+        }
+
+        Arrays.fill(groupWorlds, 0, groupCount, null);
+        Arrays.fill(groupDirections, 0, groupCount, null);
+        groupCount = 0;
+        sourceCount = 0;
+        clearChunkStores();
+    }
+
+    private static boolean isTrue(ChunkManager placeStore, World world, long packed) {
+        int x = BlockUtils.unpackX(packed);
+        int y = BlockUtils.unpackY(packed);
+        int z = BlockUtils.unpackZ(packed);
+
+        if (y < 0 || y >= world.getMaxHeight()) {
+            return false;
+        }
+
+        ChunkStore chunkStore = getChunkStore(placeStore, world, x >> 4, z >> 4);
+
+        // Same indexing as ChunkManager#isTrue
+        return chunkStore != null && chunkStore.isTrue(Math.abs(x) % 16, y, Math.abs(z) % 16);
+    }
+
+    private static void setValue(ChunkManager placeStore, World world, long packed, int dx, int dy, int dz, boolean value) {
+        int x = BlockUtils.unpackX(packed) + dx;
+        int y = BlockUtils.unpackY(packed) + dy;
+        int z = BlockUtils.unpackZ(packed) + dz;
+
+        if (y < 0 || y >= world.getMaxHeight()) {
+            return;
+        }
+
+        ChunkStore chunkStore = getChunkStore(placeStore, world, x >> 4, z >> 4);
+
+        if (chunkStore != null) {
+            if (value) {
+                chunkStore.setTrue(Math.abs(x) % 16, y, Math.abs(z) % 16);
+            }
+            else {
+                chunkStore.setFalse(Math.abs(x) % 16, y, Math.abs(z) % 16);
+            }
+        }
+        else if (value) {
+            // Let the place store create the chunk's store, then remember it
+            placeStore.setTrue(x, y, z, world);
+            missingChunkStores.remove(chunkKey(x >> 4, z >> 4));
+        }
+    }
+
+    private static ChunkStore getChunkStore(ChunkManager placeStore, World world, int cx, int cz) {
+        long key = chunkKey(cx, cz);
+        ChunkStore chunkStore = chunkStores.get(key);
+
+        if (chunkStore != null || missingChunkStores.containsKey(key)) {
+            return chunkStore;
+        }
+
+        chunkStore = placeStore.getChunkStore(world, cx, cz);
+
+        if (chunkStore == null) {
+            missingChunkStores.put(key, Boolean.TRUE);
+        }
+        else {
+            chunkStores.put(key, chunkStore);
+        }
+
+        return chunkStore;
+    }
+
+    private static void clearChunkStores() {
+        chunkStores.clear();
+        missingChunkStores.clear();
+        chunkStoresWorld = null;
+    }
+
+    private static long chunkKey(int cx, int cz) {
+        return ((long) cx << 32) | (cz & 0xFFFFFFFFL);
+    }
+
+    /**
+     * @return Amount of piston moved blocks processed since startup
+     */
+    public static long getMovesProcessed() {
+        return movesProcessed;
+    }
+
+    /**
+     * @return Amount of placed-block flags moved along with their block since startup
+     */
+    public static long getFlagsMoved() {
+        return flagsMoved;
+    }
+}
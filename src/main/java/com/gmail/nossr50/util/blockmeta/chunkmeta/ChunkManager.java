@@ -125,6 +125,19 @@ public interface ChunkManager {
      */
     public boolean isTrue(int x, int y, int z, World world);
 
+    /**
+     * Get the store of a chunk, loading it if necessary, so many locations in that chunk
+     * can be checked with a single lookup. Locations are indexed within the store the
+     * same way as {@link #isTrue(int, int, int, World)} does, using
+     * {@code Math.abs(x) % 16} and {@code Math.abs(z) % 16}.
+     *
+     * @param world World of the chunk
+     * @param cx Chunk X coordinate
+     * @param cz Chunk Z coordinate
+     * @return the store of the chunk, or null if nothing is stored for it
+     */
+    public ChunkStore getChunkStore(World world, int cx, int cz);
+
     /**
      * Check to see if a given block location is set to true
      *
@@ -304,6 +304,21 @@ public class HashChunkManager implements ChunkManager {
         return check.isTrue(ix, y, iz);
     }
 
+    @Override
+    public synchronized ChunkStore getChunkStore(World world, int cx, int cz) {
+        if (world == null) {
+            return null;
+        }
+
+        String key = world.getName() + "," + cx + "," + cz;
+
+        if (!store.containsKey(key)) {
+            loadChunk(cx, cz, world, null);
+        }
+
+        return store.get(key);
+    }
+
     @Override
     public synchronized boolean isTrue(Block block) {
         if (block == null) {
@@ -69,6 +69,11 @@ public class NullChunkManager implements ChunkManager {
         return false;
     }
 
+    @Override
+    public ChunkStore getChunkStore(World world, int cx, int cz) {
+        return null;
+    }
+
     @Override
     public boolean isTrue(Block block) {
         return false;
@@ -16,6 +16,7 @@ import com.gmail.nossr50.commands.hardcore.VampirismCommand;
 import com.gmail.nossr50.commands.party.PartyCommand;
 import com.gmail.nossr50.commands.party.teleport.PtpCommand;
 import com.gmail.nossr50.commands.player.*;
+import com.gmail.nossr50.commands.server.McmetricsCommand;
 import com.gmail.nossr50.commands.skills.*;
 import com.gmail.nossr50.config.Config;
 import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
@@ -290,6 +291,15 @@ public final class CommandRegistrationManager {
         command.setExecutor(new MmoshowdbCommand());
     }
 
+    private static void registerMcmetricsCommand() {
+        PluginCommand command = mcMMO.p.getCommand("mcmetrics");
+        command.setDescription(LocaleLoader.getString("Commands.Description.mcmetrics"));
+        command.setPermission("mcmmo.commands.mcmetrics");
+        command.setPermissionMessage(permissionsMessage);
+        command.setUsage(LocaleLoader.getString("Commands.Usage.0", "mcmetrics"));
+        command.setExecutor(new McmetricsCommand());
+    }
+
     private static void registerMcconvertCommand() {
         PluginCommand command = mcMMO.p.getCommand("mcconvert");
         command.setDescription(LocaleLoader.getString("Commands.Description.mcconvert"));
@@ -423,6 +433,7 @@ public final class CommandRegistrationManager {
         registerMcremoveCommand();
         registerMmoshowdbCommand();
         registerMcconvertCommand();
+        registerMcmetricsCommand();
 
         // Experience Commands
         registerAddlevelsCommand();
@@ -0,0 +1,162 @@
+package com.gmail.nossr50.util.player;
+
+import com.gmail.nossr50.datatypes.player.PlayerProfile;
+import com.gmail.nossr50.mcMMO;
+import org.bukkit.OfflinePlayer;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Loads profiles of offline players off the main thread for commands.
+ * <p>
+ * Recently viewed profiles are kept in a small LRU cache, and concurrent requests for the same
+ * player share a single database load. Cached profiles are for display only, commands that modify
+ * a profile use {@link #loadProfile(String)}. Returned futures are always completed on the main
+ * thread, so callbacks are free to use the Bukkit API.
+ */
+public final class OfflineProfileManager {
+    private static final int MAX_CACHED_PROFILES = 100;
+    private static final long CACHE_EXPIRY_MILLIS = 60000L; // 1 minute
+
+    // Only ever touched from the main thread
+    private static final Map<String, CachedProfile> cachedProfiles = new LinkedHashMap<String, CachedProfile>(16, 0.75F, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedProfile> eldest) {
+            return size() > MAX_CACHED_PROFILES;
+        }
+    };
+    private static final Map<String, CompletableFuture<PlayerProfile>> pendingLoads = new HashMap<String, CompletableFuture<PlayerProfile>>();
+    // Pending loads that were invalidated while running, their result must not be cached
+    private static final Set<String> invalidatedLoads = new HashSet<String>();
+
+    private OfflineProfileManager() {}
+
+    /**
+     * Get the profile of an offline player for display, loading it asynchronously if it isn't cached.
+     * Must be called from the main thread.
+     * <p>
+     * The returned profile may be unloaded if the player is not in the database, and must not be
+     * modified.
+     *
+     * @param playerName The name of the player
+     * @return a future completed on the main thread with the player's profile
+     */
+    public static CompletableFuture<PlayerProfile> getProfile(final String playerName) {
+        final String key = playerName.toLowerCase(Locale.ENGLISH);
+        CachedProfile cachedProfile = cachedProfiles.get(key);
+
+        if (cachedProfile != null) {
+            if (cachedProfile.expiry > System.currentTimeMillis()) {
+                return CompletableFuture.completedFuture(cachedProfile.profile);
+            }
+
+            cachedProfiles.remove(key);
+        }
+
+        CompletableFuture<PlayerProfile> pendingLoad = pendingLoads.get(key);
+
+        if (pendingLoad != null) {
+            return pendingLoad;
+        }
+
+        final CompletableFuture<PlayerProfile> future = new CompletableFuture<PlayerProfile>();
+        pendingLoads.put(key, future);
+
+        load(playerName, future, loadedProfile -> {
+            pendingLoads.remove(key);
+
+            // Don't cache a copy that went stale while loading, or that an online player's live profile supersedes
+            if (!invalidatedLoads.remove(key) && loadedProfile.isLoaded() && mcMMO.p.getServer().getPlayerExact(playerName) == null) {
+                cachedProfiles.put(key, new CachedProfile(loadedProfile, System.currentTimeMillis() + CACHE_EXPIRY_MILLIS));
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Load the profile of an offline player from the database asynchronously, bypassing the cache.
+     * Must be called from the main thread.
+     * <p>
+     * Use this for profiles that are going to be modified and saved. The returned profile may be
+     * unloaded if the player is not in the database.
+     *
+     * @param playerName The name of the player
+     * @return a future completed on the main thread with the player's profile
+     */
+    public static CompletableFuture<PlayerProfile> loadProfile(final String playerName) {
+        final CompletableFuture<PlayerProfile> future = new CompletableFuture<PlayerProfile>();
+
+        // The cached copy is about to be outdated by the caller's changes
+        load(playerName, future, loadedProfile -> invalidate(playerName));
+
+        return future;
+    }
+
+    private static void load(final String playerName, final CompletableFuture<PlayerProfile> future, final Consumer<PlayerProfile> beforeCompletion) {
+        mcMMO.p.getServer().getScheduler().runTaskAsynchronously(mcMMO.p, () -> {
+            PlayerProfile profile;
+
+            try {
+                // Resolving the uuid by name can block on a web request, so it is done here as well
+                OfflinePlayer player = mcMMO.p.getServer().getOfflinePlayer(playerName);
+                UUID uuid = player == null ? null : player.getUniqueId();
+
+                profile = mcMMO.getDatabaseManager().loadPlayerProfile(playerName, uuid, false);
+            }
+            catch (Exception e) {
+                mcMMO.p.getLogger().warning("Could not load offline profile for " + playerName + ": " + e.toString());
+                profile = new PlayerProfile(playerName, false);
+            }
+
+            final PlayerProfile loadedProfile = profile;
+
+            mcMMO.p.getServer().getScheduler().runTask(mcMMO.p, () -> {
+                beforeCompletion.accept(loadedProfile);
+                future.complete(loadedProfile);
+            });
+        });
+    }
+
+    /**
+     * Forget any cached profile for a player, for instance because they logged in or were removed.
+     * Must be called from the main thread.
+     *
+     * @param playerName The name of the player
+     */
+    public static void invalidate(String playerName) {
+        String key = playerName.toLowerCase(Locale.ENGLISH);
+
+        cachedProfiles.remove(key);
+
+        if (pendingLoads.containsKey(key)) {
+            invalidatedLoads.add(key);
+        }
+    }
+
+    /**
+     * Clear all cached profiles.
+     */
+    public static void clearAll() {
+        cachedProfiles.clear();
+        invalidatedLoads.addAll(pendingLoads.keySet());
+    }
+
+    private static class CachedProfile {
+        private final PlayerProfile profile;
+        private final long expiry;
+
+        private CachedProfile(PlayerProfile profile, long expiry) {
+            this.profile = profile;
+            this.expiry = expiry;
+        }
+    }
+}
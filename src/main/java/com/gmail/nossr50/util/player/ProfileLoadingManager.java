@@ -0,0 +1,276 @@
+package com.gmail.nossr50.util.player;
+
+import com.gmail.nossr50.chat.ChatSpyManager;
+import com.gmail.nossr50.config.Config;
+import com.gmail.nossr50.datatypes.player.McMMOPlayer;
+import com.gmail.nossr50.datatypes.player.PlayerProfile;
+import com.gmail.nossr50.locale.LocaleLoader;
+import com.gmail.nossr50.mcMMO;
+import com.gmail.nossr50.runnables.commands.McScoreboardKeepTask;
+import com.gmail.nossr50.util.LatencyHistogram;
+import com.gmail.nossr50.util.Misc;
+import com.gmail.nossr50.util.scoreboards.ScoreboardManager;
+import org.bukkit.Server;
+import org.bukkit.entity.Player;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Loads player profiles on a small, bounded pool of worker threads.
+ * <p>
+ * Loading starts as early as the pre-login stage, so by the time the player joins their
+ * profile is usually already waiting in the pending cache and can be applied straight away.
+ */
+public final class ProfileLoadingManager {
+    private static final int MAX_TRIES = 5;
+    private static final long JOIN_DELAY_MILLIS = 50L; // 1 tick, to ensure the player is marked as online before we begin loading
+    private static final long RETRY_DELAY_MILLIS = 5000L; // 100 ticks per failed attempt
+    private static final long PENDING_EXPIRY_SECONDS = 30L;
+    private static final long RECENT_LOGOUT_MILLIS = 10000L;
+
+    // Created on enable and dropped on disable, so a reload gets a fresh pool
+    private static volatile ScheduledThreadPoolExecutor workers;
+    private static final Map<UUID, PendingProfile> pendingProfiles = new ConcurrentHashMap<UUID, PendingProfile>();
+    private static final Map<UUID, Long> recentLogouts = new ConcurrentHashMap<UUID, Long>();
+
+    private static final LatencyHistogram databaseLatency = new LatencyHistogram();
+    private static final LatencyHistogram joinLatency = new LatencyHistogram();
+
+    private ProfileLoadingManager() {}
+
+    /**
+     * Start the profile loading threads. Used upon Enable, before any profile is loaded.
+     */
+    public static void startup() {
+        final AtomicInteger threadCount = new AtomicInteger();
+        int threads = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(threads, runnable -> {
+            Thread thread = new Thread(runnable, "mcMMO Profile Loader #" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        workers = executor;
+    }
+
+    /**
+     * Start loading a profile while the player is still logging in.
+     * Safe to call from the async pre-login thread.
+     *
+     * @param playerName The name of the player logging in
+     * @param uuid The uuid of the player logging in
+     */
+    public static void prefetch(final String playerName, final UUID uuid) {
+        ScheduledThreadPoolExecutor executor = workers;
+
+        // Not enabled (yet), the join load will take care of it
+        if (executor == null) {
+            return;
+        }
+
+        Long loggedOut = recentLogouts.get(uuid);
+
+        // Their last session may still be saving, let the join load pick up the saved data instead
+        if (loggedOut != null && System.currentTimeMillis() - loggedOut < RECENT_LOGOUT_MILLIS) {
+            return;
+        }
+
+        final PendingProfile pendingProfile = new PendingProfile(playerName);
+
+        if (pendingProfiles.putIfAbsent(uuid, pendingProfile) != null) {
+            return;
+        }
+
+        // Never create the user here, the login may still be denied, new players are created on join instead
+        executor.execute(() -> pendingProfile.future.complete(loadProfile(playerName, uuid, false)));
+
+        // Drop it again if the login was denied later on and the player never joins
+        executor.schedule(() -> pendingProfiles.remove(uuid, pendingProfile), PENDING_EXPIRY_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Load the profile of a player who just joined, using the pre-fetched profile when there is one.
+     * Must be called from the main thread.
+     *
+     * @param player The player to load
+     */
+    public static void load(final Player player) {
+        final long joinTime = System.nanoTime();
+        PendingProfile pendingProfile = pendingProfiles.remove(player.getUniqueId());
+
+        if (pendingProfile == null || !pendingProfile.playerName.equals(player.getName())) {
+            schedule(player, 0, JOIN_DELAY_MILLIS, joinTime);
+            return;
+        }
+
+        pendingProfile.future.thenAccept(profile -> {
+            if (profile.isLoaded()) {
+                apply(player, profile, joinTime);
+            }
+            else {
+                // Not in the database yet (or the pre-fetch failed), load again creating them this time
+                schedule(player, 0, 0, joinTime);
+            }
+        });
+    }
+
+    /**
+     * Forget pre-fetched data for a player who logged out.
+     *
+     * @param uuid The uuid of the player
+     */
+    public static void logout(final UUID uuid) {
+        ScheduledThreadPoolExecutor executor = workers;
+        final Long logoutTime = System.currentTimeMillis();
+
+        pendingProfiles.remove(uuid);
+
+        if (executor == null) {
+            return;
+        }
+
+        recentLogouts.put(uuid, logoutTime);
+        executor.schedule(() -> recentLogouts.remove(uuid, logoutTime), RECENT_LOGOUT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return how long each database load took
+     */
+    public static LatencyHistogram getDatabaseLatency() {
+        return databaseLatency;
+    }
+
+    /**
+     * @return how long players waited between joining and having their profile applied
+     */
+    public static LatencyHistogram getJoinLatency() {
+        return joinLatency;
+    }
+
+    public static void shutdown() {
+        ScheduledThreadPoolExecutor executor = workers;
+
+        if (executor != null) {
+            workers = null;
+            executor.shutdownNow();
+        }
+
+        pendingProfiles.clear();
+        recentLogouts.clear();
+
+        mcMMO.p.debug("Profile database loads: " + databaseLatency);
+        mcMMO.p.debug("Profile join latency: " + joinLatency);
+    }
+
+    private static void schedule(final Player player, final int attempt, long delayMillis, final long joinTime) {
+        ScheduledThreadPoolExecutor executor = workers;
+
+        // Disabled meanwhile, the profile is loaded again on the next enable
+        if (executor == null) {
+            return;
+        }
+
+        executor.schedule(() -> attemptLoad(player, attempt, joinTime), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // Runs on a worker thread, do not touch the McMMOPlayer from here
+    private static void attemptLoad(final Player player, int attempt, long joinTime) {
+        // Quit if they logged out
+        if (!player.isOnline()) {
+            mcMMO.p.getLogger().info("Aborting profile loading recovery for " + player.getName() + " - player logged out");
+            return;
+        }
+
+        // Increment attempt counter and try
+        attempt++;
+
+        PlayerProfile profile = loadProfile(player.getName(), player.getUniqueId(), true);
+
+        if (profile.isLoaded()) {
+            apply(player, profile, joinTime);
+            return;
+        }
+
+        // If we've failed five times, give up
+        if (attempt >= MAX_TRIES) {
+            mcMMO.p.getServer().getScheduler().runTask(mcMMO.p, () -> {
+                mcMMO.p.getLogger().severe("Giving up on attempting to load the PlayerProfile for " + player.getName());
+                mcMMO.p.getServer().broadcast(LocaleLoader.getString("Profile.Loading.AdminFailureNotice", player.getName()), Server.BROADCAST_CHANNEL_ADMINISTRATIVE);
+                player.sendMessage(LocaleLoader.getString("Profile.Loading.Failure").split("\n"));
+            });
+            return;
+        }
+
+        schedule(player, attempt, RETRY_DELAY_MILLIS * attempt, joinTime);
+    }
+
+    private static PlayerProfile loadProfile(String playerName, UUID uuid, boolean create) {
+        long startTime = System.nanoTime();
+
+        try {
+            return mcMMO.getDatabaseManager().loadPlayerProfile(playerName, uuid, create);
+        }
+        catch (Exception e) {
+            mcMMO.p.getLogger().warning("Exception while loading the PlayerProfile for " + playerName + ": " + e.toString());
+            return new PlayerProfile(playerName, uuid, false);
+        }
+        finally {
+            databaseLatency.recordSince(startTime);
+        }
+    }
+
+    private static void apply(final Player player, PlayerProfile profile, final long joinTime) {
+        final McMMOPlayer mcMMOPlayer = new McMMOPlayer(player, profile);
+
+        if (mcMMO.p.getServer().isPrimaryThread()) {
+            applyLoadedPlayer(player, mcMMOPlayer, joinTime);
+        }
+        else {
+            mcMMO.p.getServer().getScheduler().runTask(mcMMO.p, () -> applyLoadedPlayer(player, mcMMOPlayer, joinTime));
+        }
+    }
+
+    // Main thread only, no database access permitted
+    private static void applyLoadedPlayer(Player player, McMMOPlayer mcMMOPlayer, long joinTime) {
+        if (!player.isOnline()) {
+            mcMMO.p.getLogger().info("Aborting profile loading recovery for " + player.getName() + " - player logged out");
+            return;
+        }
+
+        mcMMOPlayer.setupPartyData();
+        UserManager.track(mcMMOPlayer);
+        ChatSpyManager.update(mcMMOPlayer);
+        mcMMOPlayer.actualizeRespawnATS();
+
+        if (Config.getInstance().getScoreboardsEnabled()) {
+            ScoreboardManager.setupPlayer(player);
+
+            if (Config.getInstance().getShowStatsAfterLogin()) {
+                ScoreboardManager.enablePlayerStatsScoreboard(player);
+                new McScoreboardKeepTask(player).runTaskLater(mcMMO.p, 1 * Misc.TICK_CONVERSION_FACTOR);
+            }
+        }
+
+        if (Config.getInstance().getShowProfileLoadedMessage()) {
+            player.sendMessage(LocaleLoader.getString("Profile.Loading.Success"));
+        }
+
+        joinLatency.recordSince(joinTime);
+    }
+
+    private static class PendingProfile {
+        private final String playerName;
+        private final CompletableFuture<PlayerProfile> future = new CompletableFuture<PlayerProfile>();
+
+        private PendingProfile(String playerName) {
+            this.playerName = playerName;
+        }
+    }
+}
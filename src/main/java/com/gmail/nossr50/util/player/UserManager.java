@@ -10,8 +10,13 @@ import org.bukkit.metadata.FixedMetadataValue;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 public final class UserManager {
+    // Online users by player UUID, the metadata is only set for other plugins that read it
+    private static final Map<UUID, McMMOPlayer> players = new ConcurrentHashMap<UUID, McMMOPlayer>();
 
     private UserManager() {}
 
@@ -21,6 +26,7 @@ public final class UserManager {
      * @param mcMMOPlayer the player profile to start tracking
      */
     public static void track(McMMOPlayer mcMMOPlayer) {
+        players.put(mcMMOPlayer.getPlayer().getUniqueId(), mcMMOPlayer);
         mcMMOPlayer.getPlayer().setMetadata(mcMMO.playerDataKey, new FixedMetadataValue(mcMMO.p, mcMMOPlayer));
     }
 
@@ -30,6 +36,7 @@ public final class UserManager {
      * @param player The Player object
      */
     public static void remove(Player player) {
+        players.remove(player.getUniqueId());
         player.removeMetadata(mcMMO.playerDataKey, mcMMO.p);
     }
 
@@ -38,8 +45,10 @@ public final class UserManager {
      */
     public static void clearAll() {
         for (Player player : mcMMO.p.getServer().getOnlinePlayers()) {
-            remove(player);
+            player.removeMetadata(mcMMO.playerDataKey, mcMMO.p);
         }
+
+        players.clear();
     }
 
     /**
@@ -50,9 +59,15 @@ public final class UserManager {
         mcMMO.p.debug("Saving mcMMOPlayers... (" + onlinePlayers.size() + ")");
 
         for (Player player : onlinePlayers) {
+            McMMOPlayer mcMMOPlayer = getPlayer(player);
+
+            if (mcMMOPlayer == null) {
+                continue;
+            }
+
             try
             {
-                getPlayer(player).getProfile().save();
+                mcMMOPlayer.getProfile().save();
             }
             catch (Exception e)
             {
@@ -62,15 +77,7 @@ public final class UserManager {
     }
 
     public static Collection<McMMOPlayer> getPlayers() {
-        Collection<McMMOPlayer> playerCollection = new ArrayList<McMMOPlayer>();
-
-        for (Player player : mcMMO.p.getServer().getOnlinePlayers()) {
-            if (hasPlayerDataKey(player)) {
-                playerCollection.add(getPlayer(player));
-            }
-        }
-
-        return playerCollection;
+        return new ArrayList<McMMOPlayer>(players.values());
     }
 
     /**
@@ -95,8 +102,14 @@ public final class UserManager {
         return retrieveMcMMOPlayer(playerName, true);
     }
 
+    /**
+     * Get the McMMOPlayer of an online player.
+     *
+     * @param player The player whose McMMOPlayer to retrieve
+     * @return the player's McMMOPlayer object, or null if the player is not loaded (yet)
+     */
     public static McMMOPlayer getPlayer(Player player) {
-        return (McMMOPlayer) player.getMetadata(mcMMO.playerDataKey).get(0).value();
+        return players.get(player.getUniqueId());
     }
 
     private static McMMOPlayer retrieveMcMMOPlayer(String playerName, boolean offlineValid) {
@@ -114,6 +127,6 @@ public final class UserManager {
     }
 
     public static boolean hasPlayerDataKey(Entity entity) {
-        return entity != null && entity.hasMetadata(mcMMO.playerDataKey);
+        return entity instanceof Player && players.containsKey(entity.getUniqueId());
     }
 }
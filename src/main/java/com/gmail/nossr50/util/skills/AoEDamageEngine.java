@@ -0,0 +1,193 @@
+package com.gmail.nossr50.util.skills;
+
+import com.gmail.nossr50.datatypes.interactions.NotificationType;
+import com.gmail.nossr50.datatypes.party.Party;
+import com.gmail.nossr50.datatypes.player.McMMOPlayer;
+import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
+import com.gmail.nossr50.datatypes.skills.SubSkillType;
+import com.gmail.nossr50.runnables.skills.BleedTimerTask;
+import com.gmail.nossr50.util.EventUtils;
+import com.gmail.nossr50.util.Misc;
+import com.gmail.nossr50.util.Permissions;
+import com.gmail.nossr50.util.player.NotificationManager;
+import com.gmail.nossr50.util.player.UserManager;
+import org.bukkit.GameMode;
+import org.bukkit.entity.AnimalTamer;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.entity.Tameable;
+import org.bukkit.event.entity.EntityDamageEvent;
+import org.bukkit.event.entity.EntityDamageEvent.DamageCause;
+import org.bukkit.event.player.PlayerAnimationEvent;
+
+/**
+ * Applies the area of effect of one Serrated Strikes or Skull Splitter swing.
+ * <p>
+ * Everything the eligibility checks need from the attacker (party, friendly fire permission, bleed
+ * rank) is looked up once per swing instead of once per nearby entity, and the fake damage and arm
+ * swing events are only fired when a plugin other than mcMMO listens to them. Without such a
+ * listener those events cannot change the outcome, as mcMMO ignores its own fake events.
+ */
+final class AoEDamageEngine {
+    private final Player attacker;
+    private final PrimarySkillType type;
+    private final double damage;
+    private final Party attackerParty;
+    private final boolean damageListened;
+    private final boolean armSwingListened;
+
+    // Looked up on first use, most swings never hit a player or pet
+    private int attackerFriendlyFire = -1;
+    private int bleedTicks = -1;
+    private int bleedRank;
+
+    private AoEDamageEngine(Player attacker, PrimarySkillType type, double damage) {
+        this.attacker = attacker;
+        this.type = type;
+        this.damage = damage;
+
+        McMMOPlayer mcMMOPlayer = UserManager.getPlayer(attacker);
+
+        attackerParty = mcMMOPlayer == null ? null : mcMMOPlayer.getParty();
+        damageListened = EventUtils.hasExternalListeners(EntityDamageEvent.getHandlerList());
+        armSwingListened = EventUtils.hasExternalListeners(PlayerAnimationEvent.getHandlerList());
+    }
+
+    /**
+     * Damage up to the given amount of entities around the target.
+     *
+     * @param attacker The attacking player
+     * @param target The defending entity
+     * @param damage The damage to deal to each entity
+     * @param type The type of skill being used
+     * @param numberOfTargets The maximum amount of entities to hit
+     */
+    static void apply(Player attacker, LivingEntity target, double damage, PrimarySkillType type, int numberOfTargets) {
+        if (numberOfTargets <= 0) {
+            return;
+        }
+
+        AoEDamageEngine engine = new AoEDamageEngine(attacker, type, damage);
+
+        for (Entity entity : target.getNearbyEntities(2.5, 2.5, 2.5)) {
+            if (!(entity instanceof LivingEntity) || Misc.isNPCEntity(entity) || !engine.shouldBeAffected(entity)) {
+                continue;
+            }
+
+            engine.strike((LivingEntity) entity);
+
+            if (--numberOfTargets <= 0) {
+                break;
+            }
+        }
+    }
+
+    private void strike(LivingEntity livingEntity) {
+        if (armSwingListened) {
+            EventUtils.callFakeArmSwingEvent(attacker);
+        }
+
+        switch (type) {
+            case SWORDS:
+                if (livingEntity instanceof Player) {
+                    NotificationManager.sendPlayerInformation((Player) livingEntity, NotificationType.SUBSKILL_MESSAGE, "Swords.Combat.SS.Struck");
+                }
+
+                if (bleedTicks == -1) {
+                    bleedTicks = UserManager.getPlayer(attacker).getSwordsManager().getRuptureBleedTicks();
+                    bleedRank = RankUtils.getRank(attacker, SubSkillType.SWORDS_RUPTURE);
+                }
+
+                BleedTimerTask.add(livingEntity, attacker, bleedTicks, bleedRank);
+                break;
+
+            case AXES:
+                if (livingEntity instanceof Player) {
+                    NotificationManager.sendPlayerInformation((Player) livingEntity, NotificationType.SUBSKILL_MESSAGE, "Axes.Combat.SS.Struck");
+                }
+
+                break;
+
+            default:
+                break;
+        }
+
+        if (livingEntity.isDead()) {
+            return;
+        }
+
+        livingEntity.damage(damageListened ? CombatUtils.callFakeDamageEvent(attacker, livingEntity, DamageCause.CUSTOM, damage) : damage);
+    }
+
+    private boolean shouldBeAffected(Entity entity) {
+        if (entity instanceof Player) {
+            Player defender = (Player) entity;
+
+            if (!defender.getWorld().getPVP() || defender == attacker) {
+                return false;
+            }
+
+            McMMOPlayer mcMMOPlayer = UserManager.getPlayer(defender);
+
+            if (mcMMOPlayer != null && mcMMOPlayer.getGodMode()) {
+                return false;
+            }
+
+            if (isFriendly(mcMMOPlayer == null ? null : mcMMOPlayer.getParty()) && !(hasFriendlyFire() && Permissions.friendlyFire(defender))) {
+                return false;
+            }
+
+            // Vanished players should not be able to get hit by AoE effects
+            if (!attacker.canSee(defender)) {
+                return false;
+            }
+
+            // Spectators should not be affected
+            if (defender.getGameMode() == GameMode.SPECTATOR) {
+                return false;
+            }
+
+            // Let protection plugins veto the hit, before bleed gets applied
+            if (damageListened && CombatUtils.callFakeDamageEvent(attacker, entity, 1.0) == 0) {
+                return false;
+            }
+        }
+        else if (entity instanceof Tameable) {
+            Tameable pet = (Tameable) entity;
+            AnimalTamer tamer = pet.isTamed() ? pet.getOwner() : null;
+
+            if (tamer instanceof Player) {
+                Player owner = (Player) tamer;
+                McMMOPlayer mcMMOPlayer = owner == attacker ? null : UserManager.getPlayer(owner);
+
+                if ((owner == attacker || isFriendly(mcMMOPlayer == null ? null : mcMMOPlayer.getParty())) && !(hasFriendlyFire() && Permissions.friendlyFire(owner))) {
+                    return false;
+                }
+            }
+        }
+
+        return true;
+    }
+
+    // Same party or allied parties, see PartyManager#inSameParty and PartyManager#areAllies
+    private boolean isFriendly(Party party) {
+        if (attackerParty == null || party == null) {
+            return false;
+        }
+
+        if (attackerParty.equals(party)) {
+            return true;
+        }
+
+        return attackerParty.getAlly() != null && party.getAlly() != null && attackerParty.equals(party.getAlly()) && party.equals(attackerParty.getAlly());
+    }
+
+    private boolean hasFriendlyFire() {
+        if (attackerFriendlyFire == -1) {
+            attackerFriendlyFire = Permissions.friendlyFire(attacker) ? 1 : 0;
+        }
+
+        return attackerFriendlyFire == 1;
+    }
+}
@@ -2,16 +2,13 @@ package com.gmail.nossr50.util.skills;
 
 import com.gmail.nossr50.config.experience.ExperienceConfig;
 import com.gmail.nossr50.datatypes.experience.XPGainReason;
-import com.gmail.nossr50.datatypes.interactions.NotificationType;
 import com.gmail.nossr50.datatypes.player.McMMOPlayer;
 import com.gmail.nossr50.datatypes.skills.PrimarySkillType;
-import com.gmail.nossr50.datatypes.skills.SubSkillType;
 import com.gmail.nossr50.events.fake.FakeEntityDamageByEntityEvent;
 import com.gmail.nossr50.events.fake.FakeEntityDamageEvent;
 import com.gmail.nossr50.mcMMO;
 import com.gmail.nossr50.party.PartyManager;
 import com.gmail.nossr50.runnables.skills.AwardCombatXpTask;
-import com.gmail.nossr50.runnables.skills.BleedTimerTask;
 import com.gmail.nossr50.skills.acrobatics.AcrobaticsManager;
 import com.gmail.nossr50.skills.archery.ArcheryManager;
 import com.gmail.nossr50.skills.axes.AxesManager;
@@ -20,10 +17,7 @@ import com.gmail.nossr50.skills.taming.TamingManager;
 import com.gmail.nossr50.skills.unarmed.Unarmed;
 import com.gmail.nossr50.skills.unarmed.UnarmedManager;
 import com.gmail.nossr50.util.*;
-import com.gmail.nossr50.util.player.NotificationManager;
 import com.gmail.nossr50.util.player.UserManager;
-import com.google.common.collect.ImmutableMap;
-import org.bukkit.GameMode;
 import org.bukkit.Material;
 import org.bukkit.entity.*;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
@@ -33,11 +27,16 @@ import org.bukkit.event.entity.EntityDamageEvent.DamageModifier;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.projectiles.ProjectileSource;
 
+import java.util.Arrays;
 import java.util.EnumMap;
-import java.util.HashMap;
 import java.util.Map;
 
 public final class CombatUtils {
+    // DamageModifier.values() copies the array on every call
+    private static final DamageModifier[] DAMAGE_MODIFIERS = DamageModifier.values();
+    // Scratch for modifier scaling, always turned into a map before an event is fired. Main thread only.
+    private static final double[] modifierScratch = new double[DAMAGE_MODIFIERS.length];
+
     private CombatUtils() {}
 
     private static void processSwordCombat(LivingEntity target, Player player, EntityDamageByEntityEvent event) {
@@ -49,8 +48,6 @@ public final class CombatUtils {
         SwordsManager swordsManager = mcMMOPlayer.getSwordsManager();
         double initialDamage = event.getDamage();
 
-        Map<DamageModifier, Double> modifiers = getModifiers(event);
-
         if (swordsManager.canActivateAbility()) {
             mcMMOPlayer.checkAbilityActivation(PrimarySkillType.SWORDS);
         }
@@ -63,7 +60,7 @@ public final class CombatUtils {
         }
 
         if (swordsManager.canUseSerratedStrike()) {
-            swordsManager.serratedStrikes(target, initialDamage, modifiers);
+            swordsManager.serratedStrikes(target, initialDamage);
         }
 
         startGainXp(mcMMOPlayer, target, PrimarySkillType.SWORDS);
@@ -76,7 +73,6 @@ public final class CombatUtils {
         
         double initialDamage = event.getDamage();
         double finalDamage = initialDamage;
-        Map<DamageModifier, Double> modifiers = getModifiers(event);
 
         McMMOPlayer mcMMOPlayer = UserManager.getPlayer(player);
         AxesManager axesManager = mcMMOPlayer.getAxesManager();
@@ -101,7 +97,7 @@ public final class CombatUtils {
         }
 
         if (axesManager.canUseSkullSplitter(target)) {
-            axesManager.skullSplitterCheck(target, initialDamage, modifiers);
+            axesManager.skullSplitterCheck(target, initialDamage);
         }
 
         applyScaledModifiers(initialDamage, finalDamage, event);
@@ -362,6 +358,18 @@ public final class CombatUtils {
      * @param attacker Player to pass to event as damager
      */
     public static void dealDamage(LivingEntity target, double damage, Map<DamageModifier, Double> modifiers, LivingEntity attacker) {
+        dealDamage(target, damage, toModifierArray(modifiers), attacker);
+    }
+
+    /**
+     * Attempt to damage target for value dmg with reason ENTITY_ATTACK with damager attacker
+     *
+     * @param target LivingEntity which to attempt to damage
+     * @param damage Amount of damage to attempt to do
+     * @param modifiers Modifier multipliers indexed by {@link DamageModifier#ordinal()}, NaN for modifiers that don't apply
+     * @param attacker Player to pass to event as damager
+     */
+    public static void dealDamage(LivingEntity target, double damage, double[] modifiers, LivingEntity attacker) {
         if (target.isDead()) {
             return;
         }
@@ -405,45 +413,19 @@ public final class CombatUtils {
      * @param damage The initial damage amount
      * @param type The type of skill being used
      */
-    public static void applyAbilityAoE(Player attacker, LivingEntity target, double damage, Map<DamageModifier, Double> modifiers, PrimarySkillType type) {
+    public static void applyAbilityAoE(Player attacker, LivingEntity target, double damage, PrimarySkillType type) {
         int numberOfTargets = getTier(attacker.getInventory().getItemInMainHand()); // The higher the weapon tier, the more targets you hit
         double damageAmount = Math.max(damage, 1);
 
-        for (Entity entity : target.getNearbyEntities(2.5, 2.5, 2.5)) {
-            if (numberOfTargets <= 0) {
-                break;
-            }
-
-            if (Misc.isNPCEntity(entity) || !(entity instanceof LivingEntity) || !shouldBeAffected(attacker, entity)) {
-                continue;
-            }
-
-            LivingEntity livingEntity = (LivingEntity) entity;
-            EventUtils.callFakeArmSwingEvent(attacker);
-
-            switch (type) {
-                case SWORDS:
-                    if (entity instanceof Player) {
-                        NotificationManager.sendPlayerInformation((Player)entity, NotificationType.SUBSKILL_MESSAGE, "Swords.Combat.SS.Struck");
-                    }
-
-                    BleedTimerTask.add(livingEntity, attacker, UserManager.getPlayer(attacker).getSwordsManager().getRuptureBleedTicks(), RankUtils.getRank(attacker, SubSkillType.SWORDS_RUPTURE));
-                    break;
-
-                case AXES:
-                    if (entity instanceof Player) {
-                        NotificationManager.sendPlayerInformation((Player)entity, NotificationType.SUBSKILL_MESSAGE, "Axes.Combat.SS.Struck");
-                    }
-
-                    break;
-
-                default:
-                    break;
-            }
+        AoEDamageEngine.apply(attacker, target, damageAmount, type, numberOfTargets);
+    }
 
-            dealDamage(livingEntity, damageAmount, attacker);
-            numberOfTargets--;
-        }
+    /**
+     * @deprecated The modifiers were never used, use {@link #applyAbilityAoE(Player, LivingEntity, double, PrimarySkillType)}
+     */
+    @Deprecated
+    public static void applyAbilityAoE(Player attacker, LivingEntity target, double damage, Map<DamageModifier, Double> modifiers, PrimarySkillType type) {
+        applyAbilityAoE(attacker, target, damage, type);
     }
 
     public static void startGainXp(McMMOPlayer mcMMOPlayer, LivingEntity target, PrimarySkillType primarySkillType) {
@@ -508,11 +490,11 @@ public final class CombatUtils {
                 }
             }
 
-            if (target.hasMetadata(mcMMO.entityMetadataKey)) {
+            if (EntityFlags.hasFlag(target, EntityFlags.SPAWNED)) {
                 baseXP *= ExperienceConfig.getInstance().getSpawnedMobXpMultiplier();
             }
 
-            if (target.hasMetadata(mcMMO.bredMetadataKey)) {
+            if (EntityFlags.hasFlag(target, EntityFlags.BRED)) {
                 baseXP *= ExperienceConfig.getInstance().getBredMobXpMultiplier();
             }
 
@@ -528,54 +510,6 @@ public final class CombatUtils {
         }
     }
 
-    /**
-     * Check to see if the given LivingEntity should be affected by a combat ability.
-     *
-     * @param player The attacking Player
-     * @param entity The defending Entity
-     * @return true if the Entity should be damaged, false otherwise.
-     */
-    private static boolean shouldBeAffected(Player player, Entity entity) {
-        if (entity instanceof Player) {
-            Player defender = (Player) entity;
-
-            if (!defender.getWorld().getPVP() || defender == player || UserManager.getPlayer(defender).getGodMode()) {
-                return false;
-            }
-
-            if ((PartyManager.inSameParty(player, defender) || PartyManager.areAllies(player, defender)) && !(Permissions.friendlyFire(player) && Permissions.friendlyFire(defender))) {
-                return false;
-            }
-
-            // Vanished players should not be able to get hit by AoE effects
-            if (!player.canSee(defender)) {
-                return false;
-            }
-            
-            // Spectators should not be affected 
-            if (defender.getGameMode() == GameMode.SPECTATOR) {
-                return false;
-            }
-
-            // It may seem a bit redundant but we need a check here to prevent bleed from being applied in applyAbilityAoE()
-            if (callFakeDamageEvent(player, entity, 1.0) == 0) {
-                return false;
-            }
-        }
-        else if (entity instanceof Tameable) {
-            if (isFriendlyPet(player, (Tameable) entity)) {
-                // isFriendlyPet ensures that the Tameable is: Tamed, owned by a player, and the owner is in the same party
-                // So we can make some assumptions here, about our casting and our check
-                Player owner = (Player) ((Tameable) entity).getOwner();
-                if (!(Permissions.friendlyFire(player) && Permissions.friendlyFire(owner))) {
-                    return false;
-                }
-            }
-        }
-
-        return true;
-    }
-
     /**
      * Checks to see if an entity is currently invincible.
      *
@@ -614,7 +548,10 @@ public final class CombatUtils {
 
     @Deprecated
     public static double callFakeDamageEvent(Entity attacker, Entity target, double damage) {
-        return callFakeDamageEvent(attacker, target, DamageCause.ENTITY_ATTACK, new EnumMap<DamageModifier, Double>(ImmutableMap.of(DamageModifier.BASE, damage)));
+        Arrays.fill(modifierScratch, Double.NaN);
+        modifierScratch[DamageModifier.BASE.ordinal()] = damage;
+
+        return callFakeDamageEvent(attacker, target, DamageCause.ENTITY_ATTACK, modifierScratch);
     }
 
     @Deprecated
@@ -634,7 +571,7 @@ public final class CombatUtils {
     }
 
     public static double callFakeDamageEvent(Entity attacker, Entity target, double damage, Map<DamageModifier, Double> modifiers) {
-        return callFakeDamageEvent(attacker, target, DamageCause.ENTITY_ATTACK, getScaledModifiers(damage, modifiers));
+        return callFakeDamageEvent(attacker, target, damage, toModifierArray(modifiers));
     }
 
     public static double callFakeDamageEvent(Entity attacker, Entity target, DamageCause cause, Map<DamageModifier, Double> modifiers) {
@@ -648,28 +585,76 @@ public final class CombatUtils {
         return damageEvent.getFinalDamage();
     }
 
-    private static Map<DamageModifier, Double> getModifiers(EntityDamageEvent event) {
-        Map<DamageModifier, Double> modifiers = new HashMap<DamageModifier, Double>();
-        for (DamageModifier modifier : DamageModifier.values()) {
-            modifiers.put(modifier, event.getDamage(modifier));
-        }
+    /**
+     * @param modifiers Modifier amounts indexed by {@link DamageModifier#ordinal()}, NaN for modifiers that don't apply
+     */
+    public static double callFakeDamageEvent(Entity attacker, Entity target, double[] modifiers) {
+        return callFakeDamageEvent(attacker, target, DamageCause.ENTITY_ATTACK, modifiers);
+    }
+
+    /**
+     * @param damage The base damage, the other modifiers are scaled by it
+     * @param modifiers Modifier multipliers indexed by {@link DamageModifier#ordinal()}, NaN for modifiers that don't apply
+     */
+    public static double callFakeDamageEvent(Entity attacker, Entity target, double damage, double[] modifiers) {
+        return callFakeDamageEvent(attacker, target, DamageCause.ENTITY_ATTACK, getScaledModifiers(damage, modifiers));
+    }
 
+    /**
+     * @param modifiers Modifier amounts indexed by {@link DamageModifier#ordinal()}, NaN for modifiers that don't apply
+     */
+    public static double callFakeDamageEvent(Entity attacker, Entity target, DamageCause cause, double[] modifiers) {
+        return callFakeDamageEvent(attacker, target, cause, toModifierMap(modifiers));
+    }
+
+    /**
+     * @return a modifier array, indexed by {@link DamageModifier#ordinal()}, with no modifier applying yet
+     */
+    public static double[] newModifierArray() {
+        double[] modifiers = new double[DAMAGE_MODIFIERS.length];
+        Arrays.fill(modifiers, Double.NaN);
         return modifiers;
     }
 
-    private static Map<DamageModifier, Double> getScaledModifiers(double damage, Map<DamageModifier, Double> modifiers) {
-        Map<DamageModifier, Double> scaledModifiers = new HashMap<DamageModifier, Double>();
+    // Adapts a caller's map into the scratch array, the result is only valid until the next call
+    private static double[] toModifierArray(Map<DamageModifier, Double> modifiers) {
+        Arrays.fill(modifierScratch, Double.NaN);
 
-        for (DamageModifier modifier : modifiers.keySet()) {
-            if (modifier == DamageModifier.BASE) {
-                scaledModifiers.put(modifier, damage);
-                continue;
+        for (Map.Entry<DamageModifier, Double> modifier : modifiers.entrySet()) {
+            modifierScratch[modifier.getKey().ordinal()] = modifier.getValue();
+        }
+
+        return modifierScratch;
+    }
+
+    // Only here, where the Bukkit event needs it, is a map created
+    private static Map<DamageModifier, Double> toModifierMap(double[] modifiers) {
+        Map<DamageModifier, Double> modifierMap = new EnumMap<DamageModifier, Double>(DamageModifier.class);
+
+        for (int i = 0; i < modifiers.length; i++) {
+            if (!Double.isNaN(modifiers[i])) {
+                modifierMap.put(DAMAGE_MODIFIERS[i], modifiers[i]);
             }
+        }
+
+        return modifierMap;
+    }
 
-            scaledModifiers.put(modifier, damage * modifiers.get(modifier));
+    // Scales into the scratch array, which may also be the input. The result is only valid until the next call.
+    private static double[] getScaledModifiers(double damage, double[] modifiers) {
+        for (int i = 0; i < modifiers.length; i++) {
+            if (Double.isNaN(modifiers[i])) {
+                modifierScratch[i] = Double.NaN;
+            }
+            else if (i == DamageModifier.BASE.ordinal()) {
+                modifierScratch[i] = damage;
+            }
+            else {
+                modifierScratch[i] = damage * modifiers[i];
+            }
         }
 
-        return scaledModifiers;
+        return modifierScratch;
     }
 
     public static EntityDamageByEntityEvent applyScaledModifiers(double initialDamage, double finalDamage, EntityDamageByEntityEvent event) {
@@ -678,7 +663,7 @@ public final class CombatUtils {
             return event;
         }
 
-        for (DamageModifier modifier : DamageModifier.values()) {
+        for (DamageModifier modifier : DAMAGE_MODIFIERS) {
             if (!event.isApplicable(modifier)) {
                 continue;
             }
@@ -736,10 +721,10 @@ public final class CombatUtils {
             return;
         }
 
-        if (!player.hasMetadata(mcMMO.playerDataKey)) {
+        if (!UserManager.hasPlayerDataKey(player)) {
             return;
         }
 
-        MobHealthbarUtils.handleMobHealthbars(target, damage, plugin);
+        MobHealthbarUtils.handleMobHealthbars(target);
     }
 }
@@ -15,7 +15,12 @@ import org.bukkit.plugin.Plugin;
 import java.util.HashMap;
 
 public class RankUtils {
-    private static HashMap<String, HashMap<Integer, Integer>> subSkillRanks;
+    // Unlock level of every rank by SubSkillType ordinal, index 0 is unused
+    private static int[][] unlockLevels;
+    // Parent skill by SubSkillType ordinal
+    private static PrimarySkillType[] parentSkills;
+    // Unlock levels of the ranks of the newer sub-skills, by config key name
+    private static HashMap<String, int[]> subSkillUnlockLevels = new HashMap<>();
 
     /**
      *
@@ -30,16 +35,14 @@ public class RankUtils {
 
         for(SubSkillType subSkillType : primarySkillType.getSkillAbilities())
         {
-            int playerRankInSkill = getRank(mcMMOPlayer.getPlayer(), subSkillType);
+            int playerRankInSkill = mcMMOPlayer.getSubSkillRank(subSkillType);
 
-            HashMap<Integer, Integer> innerMap = subSkillRanks.get(subSkillType.toString());
-
-            //If the skill doesn't have registered ranks gtfo
-            if(innerMap == null || innerMap.get(playerRankInSkill) == null)
-                return;
+            //If the skill doesn't have registered ranks, or none are unlocked yet, skip it
+            if(playerRankInSkill <= 0)
+                continue;
 
             //The players level is the exact level requirement for this skill
-            if(newLevel == innerMap.get(playerRankInSkill))
+            if(newLevel == getUnlockLevels(subSkillType)[playerRankInSkill])
             {
                 SkillUnlockNotificationTask skillUnlockNotificationTask = new SkillUnlockNotificationTask(mcMMOPlayer, subSkillType, newLevel);
 
@@ -53,44 +56,95 @@ public class RankUtils {
     /* NEW SYSTEM */
     private static void addRanks(AbstractSubSkill abstractSubSkill)
     {
-        //Fill out the rank array
-        for(int i = 0; i < abstractSubSkill.getNumRanks(); i++)
-        {
-            //This adds the highest ranks first
-            addRank(abstractSubSkill, abstractSubSkill.getNumRanks()-i);
+        int[] levels = new int[abstractSubSkill.getNumRanks() + 1];
 
-            //TODO: Remove debug code
-            /*System.out.println("DEBUG: Adding rank "+(numRanks-i)+" to "+subSkillType.toString());*/
+        for(int rank = 1; rank <= abstractSubSkill.getNumRanks(); rank++)
+        {
+            levels[rank] = getRankUnlockLevel(abstractSubSkill, rank);
         }
+
+        subSkillUnlockLevels.put(abstractSubSkill.getConfigKeyName(), levels);
     }
 
-    private static void addRanks(SubSkillType subSkillType)
+    /**
+     * Populates the ranks for every skill we know about
+     */
+    public static void populateRanks()
     {
-        //Fill out the rank array
-        for(int i = 0; i < subSkillType.getNumRanks(); i++)
+        SubSkillType[] subSkillTypes = SubSkillType.values();
+        int[][] levels = new int[subSkillTypes.length][];
+        PrimarySkillType[] parents = new PrimarySkillType[subSkillTypes.length];
+
+        for(SubSkillType subSkillType : subSkillTypes)
         {
-            //This adds the highest ranks first
-            addRank(subSkillType, subSkillType.getNumRanks()-i);
+            levels[subSkillType.ordinal()] = new int[subSkillType.getNumRanks() + 1];
+            parents[subSkillType.ordinal()] = subSkillType.getParentSkill();
+
+            for(int rank = 1; rank <= subSkillType.getNumRanks(); rank++)
+            {
+                levels[subSkillType.ordinal()][rank] = getRankUnlockLevel(subSkillType, rank);
+            }
+        }
+
+        unlockLevels = levels;
+        parentSkills = parents;
 
-            //TODO: Remove debug code
-            /*System.out.println("DEBUG: Adding rank "+(numRanks-i)+" to "+subSkillType.toString());*/
+        for(AbstractSubSkill abstractSubSkill : InteractionManager.getSubSkillList())
+        {
+            addRanks(abstractSubSkill);
         }
     }
 
     /**
-     * Populates the ranks for every skill we know about
+     * Get the parent skill of a subskill, without searching through all skills
+     * @param subSkillType target subskill
+     * @return the skill this subskill belongs to
      */
-    public static void populateRanks()
+    public static PrimarySkillType getParentSkill(SubSkillType subSkillType)
     {
-        for(SubSkillType subSkillType : SubSkillType.values())
+        if(parentSkills == null)
+            populateRanks();
+
+        return parentSkills[subSkillType.ordinal()];
+    }
+
+    /**
+     * Work out the ranks of all subskills of a skill at the given level
+     * @param primarySkillType the skill
+     * @param skillLevel the level of the skill
+     * @param ranks the ranks to fill, by SubSkillType ordinal
+     */
+    public static void computeRanks(PrimarySkillType primarySkillType, int skillLevel, byte[] ranks)
+    {
+        for(SubSkillType subSkillType : primarySkillType.getSkillAbilities())
         {
-            addRanks(subSkillType);
+            ranks[subSkillType.ordinal()] = (byte) computeRank(getUnlockLevels(subSkillType), subSkillType.getNumRanks(), skillLevel);
         }
+    }
 
-        for(AbstractSubSkill abstractSubSkill : InteractionManager.getSubSkillList())
+    private static int computeRank(int[] levels, int numRanks, int skillLevel)
+    {
+        if(numRanks == 0)
+            return -1; //-1 Means the skill doesn't have ranks
+
+        //Compare against the highest to lowest rank in that order
+        for(int rank = numRanks; rank >= 1; rank--)
         {
-            addRanks(abstractSubSkill);
+            //True if our skill level can unlock the current rank
+            if(skillLevel >= levels[rank])
+                return rank;
         }
+
+        //If we check all ranks and still cannot unlock the skill, we return rank 0
+        return 0;
+    }
+
+    private static int[] getUnlockLevels(SubSkillType subSkillType)
+    {
+        if(unlockLevels == null)
+            populateRanks();
+
+        return unlockLevels[subSkillType.ordinal()];
     }
 
     /**
@@ -153,40 +207,10 @@ public class RankUtils {
      */
     public static int getRank(Player player, SubSkillType subSkillType)
     {
-        String skillName = subSkillType.toString();
-        int numRanks = subSkillType.getNumRanks();
-
-        if(subSkillRanks == null)
-            subSkillRanks = new HashMap<>();
-
-        if(numRanks == 0)
+        if(subSkillType.getNumRanks() == 0)
             return -1; //-1 Means the skill doesn't have ranks
 
-        if(subSkillRanks.get(skillName) == null && numRanks > 0)
-            addRanks(subSkillType);
-
-        //Get our rank map
-        HashMap<Integer, Integer> rankMap = subSkillRanks.get(skillName);
-
-        //Skill level of parent skill
-        int currentSkillLevel = UserManager.getPlayer(player).getSkillLevel(subSkillType.getParentSkill());
-
-        for(int i = 0; i < numRanks; i++)
-        {
-            //Compare against the highest to lowest rank in that order
-            int rank = numRanks-i;
-            int unlockLevel = getRankUnlockLevel(subSkillType, rank);
-
-            //If we check all ranks and still cannot unlock the skill, we return rank 0
-            if(rank == 0)
-                return 0;
-
-            //True if our skill level can unlock the current rank
-            if(currentSkillLevel >= unlockLevel)
-                return rank;
-        }
-
-        return 0; //We should never reach this
+        return UserManager.getPlayer(player).getSubSkillRank(subSkillType);
     }
 
     /**
@@ -197,72 +221,23 @@ public class RankUtils {
      */
     public static int getRank(Player player, AbstractSubSkill abstractSubSkill)
     {
-        String skillName = abstractSubSkill.getConfigKeyName();
         int numRanks = abstractSubSkill.getNumRanks();
 
-        if(subSkillRanks == null)
-            subSkillRanks = new HashMap<>();
-
         if(numRanks == 0)
             return -1; //-1 Means the skill doesn't have ranks
 
-        if(subSkillRanks.get(skillName) == null && numRanks > 0)
-            addRanks(abstractSubSkill);
-
-        //Get our rank map
-        HashMap<Integer, Integer> rankMap = subSkillRanks.get(skillName);
-
-        //Skill level of parent skill
-        int currentSkillLevel = UserManager.getPlayer(player).getSkillLevel(abstractSubSkill.getPrimarySkill());
+        int[] levels = subSkillUnlockLevels.get(abstractSubSkill.getConfigKeyName());
 
-        for(int i = 0; i < numRanks; i++)
+        if(levels == null)
         {
-            //Compare against the highest to lowest rank in that order
-            int rank = numRanks-i;
-            int unlockLevel = getRankUnlockLevel(abstractSubSkill, rank);
-
-            //If we check all ranks and still cannot unlock the skill, we return rank 0
-            if(rank == 0)
-                return 0;
-
-            //True if our skill level can unlock the current rank
-            if(currentSkillLevel >= unlockLevel)
-                return rank;
+            addRanks(abstractSubSkill);
+            levels = subSkillUnlockLevels.get(abstractSubSkill.getConfigKeyName());
         }
 
-        return 0; //We should never reach this
-    }
-
-    /**
-     * Adds ranks to our map
-     * @param abstractSubSkill The subskill to add ranks for
-     * @param rank The rank to add
-     */
-    private static void addRank(AbstractSubSkill abstractSubSkill, int rank)
-    {
-        initMaps(abstractSubSkill.getConfigKeyName());
-
-        HashMap<Integer, Integer> rankMap = subSkillRanks.get(abstractSubSkill.getConfigKeyName());
-
-        rankMap.put(rank, getRankUnlockLevel(abstractSubSkill, rank));
-    }
-
-    @Deprecated
-    private static void addRank(SubSkillType subSkillType, int rank)
-    {
-        initMaps(subSkillType.toString());
-
-        HashMap<Integer, Integer> rankMap = subSkillRanks.get(subSkillType.toString());
-
-        rankMap.put(rank, getRankUnlockLevel(subSkillType, rank));
-    }
-
-    private static void initMaps(String s) {
-        if (subSkillRanks == null)
-            subSkillRanks = new HashMap<>();
+        //Skill level of parent skill
+        int currentSkillLevel = UserManager.getPlayer(player).getSkillLevel(abstractSubSkill.getPrimarySkill());
 
-        if (subSkillRanks.get(s) == null)
-            subSkillRanks.put(s, new HashMap<>());
+        return computeRank(levels, numRanks, currentSkillLevel);
     }
 
 /*    public static int getSubSkillUnlockRequirement(SubSkillType subSkillType)